@@ -0,0 +1,216 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static java.util.Comparator.comparingLong;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.platform.commons.util.ReflectionUtils;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.matching.StringValuePattern;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import com.github.tomakehurst.wiremock.stubbing.StubMappings;
+
+/**
+ * Stub mappings of a server tracking their changes since a baseline, e.g. the stubs registered by class-level setup,
+ * so only these changes are rolled back after each test instead of resetting the server and registering the
+ * baseline again. Stubs added are removed, baseline stubs edited are restored in place and scenarios are reset if
+ * a served stub changed their state. As WireMock matches stubs of the same priority by their insertion order, the
+ * whole baseline is registered again if a baseline stub was removed, so it keeps its precedence.
+ *
+ * @author Jens Piegsa
+ */
+final class BaselineStubMappings implements StubMappings {
+
+	private volatile StubMappings delegate;
+
+	private final Map<UUID, StubMapping> baseline = new LinkedHashMap<>();
+	private final Map<UUID, StubMapping> added = new LinkedHashMap<>();
+	private final Map<UUID, StubMapping> changed = new LinkedHashMap<>();
+	private boolean cleared;
+	private volatile boolean scenariosChanged;
+
+	private BaselineStubMappings(final StubMappings delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * Wraps the stub mappings of the given server, unless already done.
+	 *
+	 * @return the tracking stub mappings, or nothing if the internals of WireMock are not as expected.
+	 */
+	static synchronized Optional<BaselineStubMappings> install(final WireMockServer server) {
+
+		final Optional<Object> wireMockApp = readField(WireMockServer.class, "wireMockApp", server);
+		if (!wireMockApp.isPresent()) {
+			return Optional.empty();
+		}
+		final Optional<Object> stubMappings = readField(wireMockApp.get().getClass(), "stubMappings", wireMockApp.get());
+		if (!stubMappings.isPresent() || stubMappings.get() instanceof BaselineStubMappings) {
+			return stubMappings.map(BaselineStubMappings.class::cast);
+		}
+		final BaselineStubMappings baselineStubMappings = new BaselineStubMappings((StubMappings) stubMappings.get());
+		return writeField(wireMockApp.get().getClass(), "stubMappings", wireMockApp.get(), baselineStubMappings)
+				? Optional.of(baselineStubMappings) : Optional.empty();
+	}
+
+	/**
+	 * @return the tracking stub mappings of the given server, if installed.
+	 */
+	static Optional<BaselineStubMappings> find(final WireMockServer server) {
+		return readField(WireMockServer.class, "wireMockApp", server)
+				.flatMap(wireMockApp -> readField(wireMockApp.getClass(), "stubMappings", wireMockApp))
+				.filter(BaselineStubMappings.class::isInstance)
+				.map(BaselineStubMappings.class::cast);
+	}
+
+	/**
+	 * Takes the current stubs as baseline, discarding all changes tracked so far.
+	 */
+	synchronized void markBaseline() {
+		final List<StubMapping> stubMappings = new ArrayList<>(delegate.getAll());
+		stubMappings.sort(comparingLong(StubMapping::getInsertionIndex));
+		baseline.clear();
+		stubMappings.forEach(stubMapping -> baseline.put(stubMapping.getUuid(), stubMapping));
+		clearChanges();
+	}
+
+	/**
+	 * Rolls back the changes since the baseline, at a cost proportional to the number of changes unless a baseline
+	 * stub was removed.
+	 */
+	synchronized void rollback() {
+
+		added.values().forEach(delegate::removeMapping);
+		if (cleared || changed.keySet().stream().anyMatch(id -> !delegate.get(id).isPresent())) {
+			// stubs added again would take precedence over the baseline stubs of the same priority
+			delegate.reset();
+			baseline.values().forEach(delegate::addMapping);
+		} else {
+			changed.values().forEach(delegate::editMapping);
+			if (scenariosChanged) {
+				delegate.resetScenarios();
+			}
+		}
+		clearChanges();
+	}
+
+	/**
+	 * @return the stub mappings wrapped, which {@link IndexedMappingSet} may replace by {@link #setDelegate}.
+	 */
+	StubMappings getDelegate() {
+		return delegate;
+	}
+
+	void setDelegate(final StubMappings delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public ServeEvent serveFor(final Request request) {
+		final ServeEvent serveEvent = delegate.serveFor(request);
+		if (!scenariosChanged && serveEvent.getStubMapping() != null && serveEvent.getStubMapping().modifiesScenarioState()) {
+			scenariosChanged = true;
+		}
+		return serveEvent;
+	}
+
+	@Override
+	public synchronized void addMapping(final StubMapping mapping) {
+		delegate.addMapping(mapping);
+		added.put(mapping.getUuid(), mapping);
+		// a duplicate id removes the baseline stub along with the added one on rollback
+		trackChangeOf(mapping.getUuid());
+	}
+
+	@Override
+	public synchronized void removeMapping(final StubMapping mapping) {
+		delegate.removeMapping(mapping);
+		if (added.remove(mapping.getUuid()) == null) {
+			trackChangeOf(mapping.getUuid());
+		}
+	}
+
+	@Override
+	public synchronized void editMapping(final StubMapping stubMapping) {
+		delegate.editMapping(stubMapping);
+		if (added.containsKey(stubMapping.getUuid())) {
+			added.put(stubMapping.getUuid(), stubMapping);
+		} else {
+			trackChangeOf(stubMapping.getUuid());
+		}
+	}
+
+	@Override
+	public synchronized void reset() {
+		delegate.reset();
+		clearChanges();
+		cleared = true;
+	}
+
+	@Override
+	public void resetScenarios() {
+		delegate.resetScenarios();
+	}
+
+	@Override
+	public List<StubMapping> getAll() {
+		return delegate.getAll();
+	}
+
+	@Override
+	public com.google.common.base.Optional<StubMapping> get(final UUID id) {
+		return delegate.get(id);
+	}
+
+	@Override
+	public List<Scenario> getAllScenarios() {
+		return delegate.getAllScenarios();
+	}
+
+	@Override
+	public List<StubMapping> findByMetadata(final StringValuePattern pattern) {
+		return delegate.findByMetadata(pattern);
+	}
+
+	private void trackChangeOf(final UUID id) {
+		final StubMapping original = baseline.get(id);
+		if (original != null) {
+			changed.putIfAbsent(id, original);
+		}
+	}
+
+	private void clearChanges() {
+		added.clear();
+		changed.clear();
+		cleared = false;
+		scenariosChanged = false;
+	}
+
+	private static Optional<Object> readField(final Class<?> type, final String name, final Object instance) {
+		try {
+			return Optional.ofNullable(ReflectionUtils.makeAccessible(type.getDeclaredField(name)).get(instance));
+		} catch (final ReflectiveOperationException | RuntimeException e) {
+			return Optional.empty();
+		}
+	}
+
+	private static boolean writeField(final Class<?> type, final String name, final Object instance, final Object value) {
+		try {
+			final Field field = ReflectionUtils.makeAccessible(type.getDeclaredField(name));
+			field.set(instance, value);
+			return true;
+		} catch (final ReflectiveOperationException | RuntimeException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.exactly;
+import static com.github.tomakehurst.wiremock.client.WireMock.moreThanOrExactly;
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.tomakehurst.wiremock.admin.model.GetServeEventsResult;
+import com.github.tomakehurst.wiremock.client.CountMatchingStrategy;
+import com.github.tomakehurst.wiremock.client.VerificationException;
+import com.github.tomakehurst.wiremock.core.Admin;
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.github.tomakehurst.wiremock.matching.RequestPatternBuilder;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import com.github.tomakehurst.wiremock.verification.RequestJournalDisabledException;
+import com.github.tomakehurst.wiremock.verification.VerificationResult;
+
+/**
+ * Verifies many request patterns by a single pass over the request journal, instead of scanning the whole journal
+ * once per {@code verify} call. Patterns requiring an exact url or url path are only matched against requests to
+ * this url, so the cost grows with the number of requests rather than with the product of patterns and requests.
+ * All failed expectations are reported together.
+ *
+ * <pre>
+ * BatchVerification.of(server)
+ *     .expect(getRequestedFor(urlEqualTo("/orders")))
+ *     .expect(2, postRequestedFor(urlPathEqualTo("/orders")))
+ *     .verify();
+ * </pre>
+ *
+ * @author Jens Piegsa
+ */
+public final class BatchVerification {
+
+	private final Admin admin;
+	private final List<Expectation> expectations = new ArrayList<>();
+
+	private BatchVerification(final Admin admin) {
+		this.admin = admin;
+	}
+
+	/**
+	 * @param admin the server, e.g. injected by {@link InjectServer} or {@link Managed}, or a partition of it
+	 */
+	public static BatchVerification of(final Admin admin) {
+		return new BatchVerification(admin);
+	}
+
+	/**
+	 * Expects at least one request matching the given pattern.
+	 */
+	public BatchVerification expect(final RequestPatternBuilder requestPatternBuilder) {
+		return expect(moreThanOrExactly(1), requestPatternBuilder);
+	}
+
+	/**
+	 * Expects exactly the given number of requests matching the given pattern.
+	 */
+	public BatchVerification expect(final int count, final RequestPatternBuilder requestPatternBuilder) {
+		return expect(exactly(count), requestPatternBuilder);
+	}
+
+	/**
+	 * Expects a number of requests matching the given pattern, e.g. {@code lessThan(3)}.
+	 */
+	public BatchVerification expect(final CountMatchingStrategy count, final RequestPatternBuilder requestPatternBuilder) {
+		expectations.add(new Expectation(requestPatternBuilder.build(), count));
+		return this;
+	}
+
+	/**
+	 * Evaluates all expectations against the request journal.
+	 *
+	 * @throws VerificationException listing every expectation not met
+	 * @throws RequestJournalDisabledException if the request journal of the server is disabled
+	 */
+	public void verify() {
+
+		if (expectations.isEmpty()) {
+			return;
+		}
+		final Map<String, List<Expectation>> byUrl = new HashMap<>();
+		final Map<String, List<Expectation>> byUrlPath = new HashMap<>();
+		final List<Expectation> unindexed = new ArrayList<>();
+		for (final Expectation expectation : expectations) {
+			final RequestPattern pattern = expectation.pattern;
+			expectation.actual = 0;
+			if (pattern.getCustomMatcher() != null) {
+				// custom matcher extensions are only known to the server
+				final VerificationResult result = admin.countRequestsMatching(pattern);
+				result.assertRequestJournalEnabled();
+				expectation.actual = result.getCount();
+			} else if (pattern.getUrl() != null) {
+				byUrl.computeIfAbsent(pattern.getUrl(), url -> new ArrayList<>()).add(expectation);
+			} else if (pattern.getUrlPath() != null) {
+				byUrlPath.computeIfAbsent(pattern.getUrlPath(), path -> new ArrayList<>()).add(expectation);
+			} else {
+				unindexed.add(expectation);
+			}
+		}
+
+		if (!byUrl.isEmpty() || !byUrlPath.isEmpty() || !unindexed.isEmpty()) {
+			final GetServeEventsResult serveEvents = admin.getServeEvents();
+			if (serveEvents.isRequestJournalDisabled()) {
+				throw new RequestJournalDisabledException();
+			}
+			for (final ServeEvent serveEvent : serveEvents.getRequests()) {
+				final LoggedRequest request = serveEvent.getRequest();
+				count(byUrl.getOrDefault(request.getUrl(), emptyList()), request);
+				if (!byUrlPath.isEmpty()) {
+					count(byUrlPath.getOrDefault(pathOf(request.getUrl()), emptyList()), request);
+				}
+				count(unindexed, request);
+			}
+		}
+
+		final List<Expectation> failed = expectations.stream()
+				.filter(expectation -> !expectation.count.match(expectation.actual))
+				.collect(toList());
+		if (!failed.isEmpty()) {
+			throw new VerificationException(failed.size() + " of " + expectations.size()
+					+ " request verifications failed:\n\n" + failed.stream()
+							.map(expectation -> new VerificationException(expectation.pattern, expectation.count, expectation.actual).getMessage())
+							.collect(joining("\n\n")));
+		}
+	}
+
+	private static void count(final List<Expectation> candidates, final LoggedRequest request) {
+		for (final Expectation candidate : candidates) {
+			if (candidate.pattern.match(request).isExactMatch()) {
+				candidate.actual++;
+			}
+		}
+	}
+
+	private static String pathOf(final String url) {
+		try {
+			return URI.create(url).getRawPath();
+		} catch (final IllegalArgumentException | NullPointerException e) {
+			return null;
+		}
+	}
+
+	private static final class Expectation {
+
+		private final RequestPattern pattern;
+		private final CountMatchingStrategy count;
+		private int actual;
+
+		private Expectation(final RequestPattern pattern, final CountMatchingStrategy count) {
+			this.pattern = pattern;
+			this.count = count;
+		}
+	}
+}
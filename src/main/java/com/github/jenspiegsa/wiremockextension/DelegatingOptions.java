@@ -0,0 +1,177 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.tomakehurst.wiremock.common.AsynchronousResponseSettings;
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.common.HttpsSettings;
+import com.github.tomakehurst.wiremock.common.JettySettings;
+import com.github.tomakehurst.wiremock.common.Notifier;
+import com.github.tomakehurst.wiremock.common.ProxySettings;
+import com.github.tomakehurst.wiremock.core.MappingsSaver;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.extension.Extension;
+import com.github.tomakehurst.wiremock.http.CaseInsensitiveKey;
+import com.github.tomakehurst.wiremock.http.HttpServerFactory;
+import com.github.tomakehurst.wiremock.http.ThreadPoolFactory;
+import com.github.tomakehurst.wiremock.http.trafficlistener.WiremockNetworkTrafficListener;
+import com.github.tomakehurst.wiremock.security.Authenticator;
+import com.github.tomakehurst.wiremock.standalone.MappingsLoader;
+import com.github.tomakehurst.wiremock.verification.notmatched.NotMatchedRenderer;
+import com.google.common.base.Optional;
+
+/**
+ * {@link Options} forwarding to other options, so single settings can be overridden without modifying
+ * the options provided by the test.
+ *
+ * @author Jens Piegsa
+ */
+class DelegatingOptions implements Options {
+
+	private final Options delegate;
+
+	DelegatingOptions(final Options delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * @return the given options with an additional extension, replacing an extension of the same name.
+	 */
+	static Options withExtension(final Options options, final Extension extension) {
+		return new DelegatingOptions(options) {
+			@Override
+			@SuppressWarnings("unchecked")
+			public <T extends Extension> Map<String, T> extensionsOfType(final Class<T> extensionType) {
+				final Map<String, T> extensions = super.extensionsOfType(extensionType);
+				if (!extensionType.isInstance(extension)) {
+					return extensions;
+				}
+				final Map<String, T> extended = new HashMap<>(extensions);
+				extended.put(extension.getName(), (T) extension);
+				return extended;
+			}
+		};
+	}
+
+	@Override
+	public int portNumber() {
+		return delegate.portNumber();
+	}
+
+	@Override
+	public HttpsSettings httpsSettings() {
+		return delegate.httpsSettings();
+	}
+
+	@Override
+	public JettySettings jettySettings() {
+		return delegate.jettySettings();
+	}
+
+	@Override
+	public int containerThreads() {
+		return delegate.containerThreads();
+	}
+
+	@Override
+	public boolean browserProxyingEnabled() {
+		return delegate.browserProxyingEnabled();
+	}
+
+	@Override
+	public ProxySettings proxyVia() {
+		return delegate.proxyVia();
+	}
+
+	@Override
+	public FileSource filesRoot() {
+		return delegate.filesRoot();
+	}
+
+	@Override
+	public MappingsLoader mappingsLoader() {
+		return delegate.mappingsLoader();
+	}
+
+	@Override
+	public MappingsSaver mappingsSaver() {
+		return delegate.mappingsSaver();
+	}
+
+	@Override
+	public Notifier notifier() {
+		return delegate.notifier();
+	}
+
+	@Override
+	public boolean requestJournalDisabled() {
+		return delegate.requestJournalDisabled();
+	}
+
+	@Override
+	public Optional<Integer> maxRequestJournalEntries() {
+		return delegate.maxRequestJournalEntries();
+	}
+
+	@Override
+	public String bindAddress() {
+		return delegate.bindAddress();
+	}
+
+	@Override
+	public List<CaseInsensitiveKey> matchingHeaders() {
+		return delegate.matchingHeaders();
+	}
+
+	@Override
+	public boolean shouldPreserveHostHeader() {
+		return delegate.shouldPreserveHostHeader();
+	}
+
+	@Override
+	public String proxyHostHeader() {
+		return delegate.proxyHostHeader();
+	}
+
+	@Override
+	public HttpServerFactory httpServerFactory() {
+		return delegate.httpServerFactory();
+	}
+
+	@Override
+	public ThreadPoolFactory threadPoolFactory() {
+		return delegate.threadPoolFactory();
+	}
+
+	@Override
+	public <T extends Extension> Map<String, T> extensionsOfType(final Class<T> extensionType) {
+		return delegate.extensionsOfType(extensionType);
+	}
+
+	@Override
+	public WiremockNetworkTrafficListener networkTrafficListener() {
+		return delegate.networkTrafficListener();
+	}
+
+	@Override
+	public Authenticator getAdminAuthenticator() {
+		return delegate.getAdminAuthenticator();
+	}
+
+	@Override
+	public boolean getHttpsRequiredForAdminApi() {
+		return delegate.getHttpsRequiredForAdminApi();
+	}
+
+	@Override
+	public NotMatchedRenderer getNotMatchedRenderer() {
+		return delegate.getNotMatchedRenderer();
+	}
+
+	@Override
+	public AsynchronousResponseSettings getAsynchronousResponseSettings() {
+		return delegate.getAsynchronousResponseSettings();
+	}
+}
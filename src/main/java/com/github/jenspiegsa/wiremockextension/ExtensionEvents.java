@@ -0,0 +1,122 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import org.junit.platform.commons.util.ReflectionUtils;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.Admin;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.extension.PostServeAction;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+
+/**
+ * Java Flight Recorder events of the extension lifecycle and of requests served by {@link ManagedWireMockServer}s,
+ * to be read by the usual tools, e.g. JDK Mission Control or {@code jfr print --categories WireMock}. On runtimes
+ * without the JFR API nothing is recorded. Otherwise an event not enabled by a running recording costs a flag check.
+ *
+ * @author Jens Piegsa
+ */
+abstract class ExtensionEvents {
+
+	static final String SERVER_START = "serverStart";
+	static final String SERVER_STOP = "serverStop";
+	static final String POST_PROCESS_TEST_INSTANCE = "postProcessTestInstance";
+	static final String BEFORE_EACH = "beforeEach";
+	static final String AFTER_EACH = "afterEach";
+	static final String VERIFICATION = "verification";
+
+	private static final ExtensionEvents INSTANCE = load();
+
+	static ExtensionEvents get() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Starts timing a phase of the extension lifecycle.
+	 *
+	 * @param phase one of the phase constants
+	 * @param testId the unique id of the test or test class
+	 */
+	abstract Span begin(String phase, String testId);
+
+	/**
+	 * Records a request served, if enabled by the recording settings, as it is disabled by default.
+	 */
+	abstract void requestServed(ServeEvent serveEvent);
+
+	/**
+	 * @return the given options recording the requests served by a server created with them, applied to every
+	 * {@link ManagedWireMockServer}.
+	 */
+	Options applyTo(final Options options) {
+		return DelegatingOptions.withExtension(options, new RequestRecorder());
+	}
+
+	/**
+	 * A phase being timed.
+	 */
+	interface Span {
+
+		Span NONE = new Span() {
+			@Override
+			public Span on(final WireMockServer server) {
+				return this;
+			}
+
+			@Override
+			public void end() {
+				// nothing recorded
+			}
+		};
+
+		/**
+		 * Takes the port of the server the phase concerns, if running.
+		 *
+		 * @param server the server, or {@code null} if none
+		 */
+		Span on(WireMockServer server);
+
+		void end();
+	}
+
+	private static ExtensionEvents load() {
+		if (!ReflectionUtils.loadClass("jdk.jfr.Event").isPresent()) {
+			return new Disabled();
+		}
+		try {
+			return new JfrExtensionEvents();
+		} catch (final LinkageError e) {
+			return new Disabled();
+		}
+	}
+
+	private static final class Disabled extends ExtensionEvents {
+
+		@Override
+		Span begin(final String phase, final String testId) {
+			return Span.NONE;
+		}
+
+		@Override
+		void requestServed(final ServeEvent serveEvent) {
+			// nothing to record
+		}
+
+		@Override
+		Options applyTo(final Options options) {
+			return options;
+		}
+	}
+
+	private static final class RequestRecorder extends PostServeAction {
+
+		@Override
+		public String getName() {
+			return "wiremock-extension-events";
+		}
+
+		@Override
+		public void doGlobalAction(final ServeEvent serveEvent, final Admin admin) {
+			get().requestServed(serveEvent);
+		}
+	}
+}
@@ -0,0 +1,519 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.platform.commons.util.ReflectionUtils;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.Json;
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import com.github.tomakehurst.wiremock.verification.RequestJournal;
+import com.google.common.base.Optional;
+
+/**
+ * A request journal appending the served requests to a binary log file instead of retaining them on the heap, so
+ * long-running tests keep every request for later analysis. Only the offset, the time recorded and the served stub
+ * of each record are held in memory. Verifications, lookups of unmatched requests and exports read the records one by
+ * one through memory-mapped windows of the file. A reset hides the records journaled so far from verification, but
+ * keeps them in the file for {@link #export(Path)}.
+ * <p>
+ * Each record consists of a fixed header, i.e. its length, the time recorded, the id of the serve event and of the
+ * stub served, if matched, followed by the logged request and the remaining serve event as JSON. The time the
+ * response took to send is not known when the request is journaled, so it is not recorded.
+ *
+ * @author Jens Piegsa
+ */
+public final class FileRequestJournal implements RequestJournal {
+
+	/**
+	 * Configuration parameter locating the directory of the journal files of servers created by the extension with
+	 * {@link JournalMode#FILE}.
+	 */
+	static final String DIRECTORY_PROPERTY_NAME = "wiremock.extension.journal.directory";
+
+	static final String DEFAULT_DIRECTORY = "target/wiremock-journals";
+
+	private static final int LENGTH = 0;
+	private static final int TIMESTAMP = 4;
+	private static final int ID = 12;
+	private static final int STUB_ID = 28;
+	private static final int FLAGS = 44;
+	private static final int REQUEST_LENGTH = 45;
+	private static final int HEADER_SIZE = 49;
+
+	private static final byte MATCHED = 1;
+	private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final Path file;
+
+	private FileChannel channel;
+	private long end;
+	private long lastTimestamp;
+	private int count;
+	private long[] offsets = new long[INITIAL_CAPACITY];
+	private long[] timestamps = new long[INITIAL_CAPACITY];
+	private final Map<UUID, Positions> byStub = new HashMap<>();
+	private final Positions unmatched = new Positions();
+
+	private FileRequestJournal(final Path file) throws IOException {
+		this.file = file;
+		final Path directory = file.toAbsolutePath().getParent();
+		if (directory != null) {
+			Files.createDirectories(directory);
+		}
+		channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, READ, WRITE);
+	}
+
+	/**
+	 * Replaces the request journal of the given server by a journal in the given file, which is truncated. Requests
+	 * journaled before are discarded.
+	 *
+	 * @throws IllegalStateException if the request journal of the server is disabled or the internals of WireMock
+	 * are not as expected
+	 * @throws UncheckedIOException if the file cannot be created
+	 */
+	static FileRequestJournal install(final WireMockServer server, final Path file) {
+
+		if (server.getOptions().requestJournalDisabled()) {
+			throw new IllegalStateException("The request journal of the server is disabled");
+		}
+		final Object wireMockApp = readField(WireMockServer.class, "wireMockApp", server);
+		final Object nearMissCalculator = readField(wireMockApp.getClass(), "nearMissCalculator", wireMockApp);
+		final Object stubRequestHandler = readField(WireMockServer.class, "stubRequestHandler", server);
+		final FileRequestJournal journal;
+		try {
+			journal = new FileRequestJournal(file);
+		} catch (final IOException e) {
+			throw new UncheckedIOException("Cannot create request journal " + file, e);
+		}
+		// the journal is shared by the admin, the near miss calculator and the handler of stub requests
+		writeField(wireMockApp.getClass(), "requestJournal", wireMockApp, journal);
+		writeField(nearMissCalculator.getClass(), "requestJournal", nearMissCalculator, journal);
+		writeField(stubRequestHandler.getClass(), "requestJournal", stubRequestHandler, journal);
+		return journal;
+	}
+
+	/**
+	 * @return the file of this journal.
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * @return the number of requests journaled since the last reset.
+	 */
+	public synchronized int size() {
+		return count;
+	}
+
+	@Override
+	public void requestReceived(final ServeEvent serveEvent) {
+
+		final byte[] request = Json.toByteArray(serveEvent.getRequest());
+		final byte[] event = Json.toByteArray(new ServeEvent(serveEvent.getId(), null, serveEvent.getStubMapping(),
+				serveEvent.getResponseDefinition(), serveEvent.getResponse(), false, serveEvent.getTiming()));
+		final StubMapping stubMapping = serveEvent.getStubMapping();
+		final UUID stubId = serveEvent.getWasMatched() && stubMapping != null ? stubMapping.getId() : null;
+		final UUID id = serveEvent.getId();
+
+		final ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + request.length + event.length);
+		record.putInt(LENGTH, record.capacity())
+				.putLong(ID, id.getMostSignificantBits())
+				.putLong(ID + 8, id.getLeastSignificantBits())
+				.putLong(STUB_ID, stubId == null ? 0 : stubId.getMostSignificantBits())
+				.putLong(STUB_ID + 8, stubId == null ? 0 : stubId.getLeastSignificantBits())
+				.put(FLAGS, stubId == null ? 0 : MATCHED)
+				.putInt(REQUEST_LENGTH, request.length);
+		record.position(HEADER_SIZE);
+		record.put(request).put(event);
+
+		synchronized (this) {
+			// the time recorded never decreases, so the records are ordered by it
+			final long timestamp = Math.max(System.currentTimeMillis(), lastTimestamp);
+			record.putLong(TIMESTAMP, timestamp);
+			record.rewind();
+			try {
+				final FileChannel writeChannel = channel();
+				long position = end;
+				while (record.hasRemaining()) {
+					position += writeChannel.write(record, position);
+				}
+			} catch (final IOException e) {
+				throw new UncheckedIOException("Cannot write to request journal " + file, e);
+			}
+			if (count == offsets.length) {
+				offsets = Arrays.copyOf(offsets, count * 2);
+				timestamps = Arrays.copyOf(timestamps, count * 2);
+			}
+			offsets[count] = end;
+			timestamps[count] = timestamp;
+			if (stubId == null) {
+				unmatched.add(count);
+			} else {
+				byStub.computeIfAbsent(stubId, key -> new Positions()).add(count);
+			}
+			count++;
+			end += record.capacity();
+			lastTimestamp = timestamp;
+		}
+	}
+
+	@Override
+	public int countRequestsMatching(final RequestPattern requestPattern) {
+		final Reader reader = reader();
+		int matching = 0;
+		for (int i = 0; i < reader.count; i++) {
+			if (requestPattern.match(reader.request(reader.offsets[i])).isExactMatch()) {
+				matching++;
+			}
+		}
+		return matching;
+	}
+
+	@Override
+	public List<LoggedRequest> getRequestsMatching(final RequestPattern requestPattern) {
+		final Reader reader = reader();
+		final List<LoggedRequest> requests = new ArrayList<>();
+		for (int i = 0; i < reader.count; i++) {
+			final LoggedRequest request = reader.request(reader.offsets[i]);
+			if (requestPattern.match(request).isExactMatch()) {
+				requests.add(request);
+			}
+		}
+		return requests;
+	}
+
+	/**
+	 * @return the serve events since the last reset, most recent first, each read from the file when accessed.
+	 */
+	@Override
+	public List<ServeEvent> getAllServeEvents() {
+		final Reader reader = reader();
+		return new AbstractList<ServeEvent>() {
+			@Override
+			public ServeEvent get(final int index) {
+				if (index < 0 || index >= reader.count) {
+					throw new IndexOutOfBoundsException("Index: " + index + ", size: " + reader.count);
+				}
+				synchronized (reader) {
+					return reader.serveEvent(reader.offsets[reader.count - 1 - index]);
+				}
+			}
+
+			@Override
+			public int size() {
+				return reader.count;
+			}
+		};
+	}
+
+	@Override
+	public Optional<ServeEvent> getServeEvent(final UUID id) {
+		final Reader reader = reader();
+		for (int i = reader.count - 1; i >= 0; i--) {
+			if (reader.hasId(reader.offsets[i], id)) {
+				return Optional.of(reader.serveEvent(reader.offsets[i]));
+			}
+		}
+		return Optional.absent();
+	}
+
+	/**
+	 * @return the requests since the last reset that no stub matched, in the order journaled, read by the index.
+	 */
+	public List<LoggedRequest> getUnmatchedRequests() {
+		final int[] positions;
+		final Reader reader;
+		synchronized (this) {
+			positions = unmatched.toArray();
+			reader = reader();
+		}
+		final List<LoggedRequest> requests = new ArrayList<>(positions.length);
+		for (final int position : positions) {
+			requests.add(reader.request(reader.offsets[position]));
+		}
+		return requests;
+	}
+
+	/**
+	 * @return the number of requests since the last reset served by the stub of the given id, taken from the index.
+	 */
+	public synchronized int countRequestsServedBy(final UUID stubId) {
+		final Positions positions = byStub.get(stubId);
+		return positions == null ? 0 : positions.size;
+	}
+
+	/**
+	 * @return the serve events since the last reset of the stub of the given id, in the order journaled.
+	 */
+	public List<ServeEvent> getServeEventsServedBy(final UUID stubId) {
+		final int[] positions;
+		final Reader reader;
+		synchronized (this) {
+			final Positions served = byStub.get(stubId);
+			positions = served == null ? new int[0] : served.toArray();
+			reader = reader();
+		}
+		final List<ServeEvent> serveEvents = new ArrayList<>(positions.length);
+		for (final int position : positions) {
+			serveEvents.add(reader.serveEvent(reader.offsets[position]));
+		}
+		return serveEvents;
+	}
+
+	/**
+	 * @param from inclusive lower bound of the time recorded
+	 * @param to exclusive upper bound of the time recorded
+	 * @return the serve events since the last reset recorded in the given period, in the order journaled.
+	 */
+	public List<ServeEvent> getServeEventsBetween(final Date from, final Date to) {
+		final Reader reader;
+		final int first;
+		final int last;
+		synchronized (this) {
+			reader = reader();
+			first = firstRecordedAtOrAfter(from.getTime());
+			last = firstRecordedAtOrAfter(to.getTime());
+		}
+		final List<ServeEvent> serveEvents = new ArrayList<>(Math.max(0, last - first));
+		for (int i = first; i < last; i++) {
+			serveEvents.add(reader.serveEvent(reader.offsets[i]));
+		}
+		return serveEvents;
+	}
+
+	private int firstRecordedAtOrAfter(final long timestamp) {
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (timestamps[middle] < timestamp) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Writes all serve events of the file as JSON, one per line in the order journaled, including those journaled
+	 * before a reset.
+	 *
+	 * @throws UncheckedIOException if the file or the target cannot be accessed
+	 */
+	public void export(final Path target) {
+		try (Writer writer = Files.newBufferedWriter(target, UTF_8)) {
+			export(writer);
+		} catch (final IOException e) {
+			throw new UncheckedIOException("Cannot export request journal " + file + " to " + target, e);
+		}
+	}
+
+	/**
+	 * Writes all serve events of the file as JSON, one per line in the order journaled, including those journaled
+	 * before a reset.
+	 */
+	public void export(final Writer writer) throws IOException {
+		final Reader reader;
+		synchronized (this) {
+			reader = new Reader(offsets, count, end);
+		}
+		long offset = 0;
+		while (offset < reader.end) {
+			writer.write(Json.getObjectMapper().writeValueAsString(reader.serveEvent(offset)));
+			writer.write('\n');
+			offset += reader.length(offset);
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Hides the requests journaled so far from verification. They remain in the file.
+	 */
+	@Override
+	public synchronized void reset() {
+		count = 0;
+		offsets = new long[INITIAL_CAPACITY];
+		timestamps = new long[INITIAL_CAPACITY];
+		byStub.clear();
+		unmatched.clear();
+	}
+
+	/**
+	 * Closes the file, e.g. when the server is stopped. It is opened again if requests are journaled or read later.
+	 */
+	synchronized void close() {
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (final IOException e) {
+				// the records are written already
+			} finally {
+				channel = null;
+			}
+		}
+	}
+
+	private synchronized FileChannel channel() throws IOException {
+		if (channel == null) {
+			channel = FileChannel.open(file, READ, WRITE);
+		}
+		return channel;
+	}
+
+	/**
+	 * @return a reader of the records journaled since the last reset so far.
+	 */
+	private synchronized Reader reader() {
+		// the arrays are replaced when growing, so the records of the reader stay in place
+		return new Reader(offsets, count, end);
+	}
+
+	/**
+	 * Reads records through a memory-mapped window of the file, which is moved as needed. Not thread-safe.
+	 */
+	private final class Reader {
+
+		private final long[] offsets;
+		private final int count;
+		private final long end;
+
+		private MappedByteBuffer window;
+		private long windowStart;
+		private byte[] scratch = new byte[4096];
+
+		Reader(final long[] offsets, final int count, final long end) {
+			this.offsets = offsets;
+			this.count = count;
+			this.end = end;
+		}
+
+		int length(final long offset) {
+			return map(offset, HEADER_SIZE).getInt(LENGTH);
+		}
+
+		boolean hasId(final long offset, final UUID id) {
+			final ByteBuffer header = map(offset, HEADER_SIZE);
+			return header.getLong(ID) == id.getMostSignificantBits() && header.getLong(ID + 8) == id.getLeastSignificantBits();
+		}
+
+		LoggedRequest request(final long offset) {
+			final ByteBuffer header = map(offset, HEADER_SIZE);
+			final int requestLength = header.getInt(REQUEST_LENGTH);
+			return readJson(map(offset, HEADER_SIZE + requestLength), HEADER_SIZE, requestLength, LoggedRequest.class);
+		}
+
+		ServeEvent serveEvent(final long offset) {
+			final ByteBuffer header = map(offset, HEADER_SIZE);
+			final int length = header.getInt(LENGTH);
+			final int requestLength = header.getInt(REQUEST_LENGTH);
+			final ByteBuffer record = map(offset, length);
+			final LoggedRequest request = readJson(record, HEADER_SIZE, requestLength, LoggedRequest.class);
+			final ServeEvent event = readJson(record, HEADER_SIZE + requestLength, length - HEADER_SIZE - requestLength, ServeEvent.class);
+			return new ServeEvent(event.getId(), request, event.getStubMapping(), event.getResponseDefinition(),
+					event.getResponse(), false, event.getTiming());
+		}
+
+		private <T> T readJson(final ByteBuffer record, final int position, final int length, final Class<T> type) {
+			if (scratch.length < length) {
+				scratch = new byte[Math.max(length, scratch.length * 2)];
+			}
+			final ByteBuffer source = record.duplicate();
+			source.position(position);
+			source.get(scratch, 0, length);
+			try {
+				return Json.getObjectMapper().readValue(scratch, 0, length, type);
+			} catch (final IOException e) {
+				throw new UncheckedIOException("Corrupt record in request journal " + file, e);
+			}
+		}
+
+		/**
+		 * @return a buffer whose position 0 is the given offset of the file, holding at least the given length.
+		 */
+		private ByteBuffer map(final long offset, final int length) {
+			if (window == null || offset < windowStart || offset + length > windowStart + window.capacity()) {
+				final long size = Math.min(Math.max(WINDOW_SIZE, length), end - offset);
+				try {
+					window = channel().map(FileChannel.MapMode.READ_ONLY, offset, size);
+				} catch (final IOException e) {
+					throw new UncheckedIOException("Cannot read request journal " + file, e);
+				}
+				windowStart = offset;
+			}
+			final ByteBuffer buffer = window.duplicate();
+			buffer.position((int) (offset - windowStart));
+			return buffer.slice();
+		}
+	}
+
+	/**
+	 * Positions of records in the order journaled.
+	 */
+	private static final class Positions {
+
+		private int[] positions = new int[16];
+		private int size;
+
+		void add(final int position) {
+			if (size == positions.length) {
+				positions = Arrays.copyOf(positions, size * 2);
+			}
+			positions[size++] = position;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(positions, size);
+		}
+
+		void clear() {
+			positions = new int[16];
+			size = 0;
+		}
+	}
+
+	private static Object readField(final Class<?> type, final String name, final Object instance) {
+		try {
+			return ReflectionUtils.makeAccessible(type.getDeclaredField(name)).get(instance);
+		} catch (final ReflectiveOperationException | RuntimeException e) {
+			throw new IllegalStateException("File journal not supported by this WireMock version", e);
+		}
+	}
+
+	private static void writeField(final Class<?> type, final String name, final Object instance, final Object value) {
+		try {
+			final Field field = ReflectionUtils.makeAccessible(type.getDeclaredField(name));
+			field.set(instance, value);
+		} catch (final ReflectiveOperationException | RuntimeException e) {
+			throw new IllegalStateException("File journal not supported by this WireMock version", e);
+		}
+	}
+}
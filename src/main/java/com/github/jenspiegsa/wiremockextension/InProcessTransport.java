@@ -0,0 +1,309 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.ProtocolException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.platform.commons.util.ReflectionUtils;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.LocalNotifier;
+import com.github.tomakehurst.wiremock.common.Notifier;
+import com.github.tomakehurst.wiremock.http.Cookie;
+import com.github.tomakehurst.wiremock.http.HttpHeader;
+import com.github.tomakehurst.wiremock.http.HttpHeaders;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.http.Response;
+import com.github.tomakehurst.wiremock.http.StubRequestHandler;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+
+/**
+ * Dispatches requests of {@link HttpURLConnection} based clients straight into the stub request handler of a
+ * {@link ManagedWireMockServer}, without opening a socket or starting the server at all. Stubs are matched,
+ * journaled, counted by the metrics and verified as for requests over the socket.
+ *
+ * <pre>
+ * final InProcessTransport transport = server.inProcess();
+ * final HttpURLConnection connection = (HttpURLConnection) transport.url("/orders/1").openConnection();
+ * </pre>
+ *
+ * Clients creating their own URLs can open connections by {@link #openConnection(URL)} or pass the
+ * {@link #handler()} to {@link URL#URL(URL, String, URLStreamHandler)}. Delays are applied by the calling thread.
+ * Faults are raised as {@link IOException}. Streamed bodies, multipart requests and files served from
+ * {@code __files} without a stub require the socket.
+ *
+ * @author Jens Piegsa
+ */
+public final class InProcessTransport {
+
+	/**
+	 * Base URL of in-process requests, which cannot be resolved, so requests sent elsewhere by mistake fail fast.
+	 */
+	public static final String BASE_URL = "http://wiremock.in-process";
+
+	private final StubRequestHandler stubRequestHandler;
+	private final Notifier notifier;
+	private final URLStreamHandler handler = new URLStreamHandler() {
+		@Override
+		protected URLConnection openConnection(final URL url) {
+			return new InProcessConnection(url);
+		}
+	};
+
+	InProcessTransport(final WireMockServer server) {
+		stubRequestHandler = readStubRequestHandler(server);
+		notifier = server.getOptions().notifier();
+	}
+
+	/**
+	 * @return a URL of the given path and query, whose connections are dispatched in process.
+	 */
+	public URL url(final String path) {
+		try {
+			return new URL(null, BASE_URL + (path.startsWith("/") ? path : "/" + path), handler);
+		} catch (final MalformedURLException e) {
+			throw new IllegalArgumentException("Invalid path: " + path, e);
+		}
+	}
+
+	/**
+	 * @return a connection dispatched in process, sending the path and query of the given URL regardless of its
+	 * host and port.
+	 */
+	public HttpURLConnection openConnection(final URL url) {
+		return new InProcessConnection(url);
+	}
+
+	public URLStreamHandler handler() {
+		return handler;
+	}
+
+	private static StubRequestHandler readStubRequestHandler(final WireMockServer server) {
+		try {
+			return (StubRequestHandler) ReflectionUtils.makeAccessible(WireMockServer.class.getDeclaredField("stubRequestHandler")).get(server);
+		} catch (final ReflectiveOperationException | RuntimeException e) {
+			throw new IllegalStateException("In-process transport not supported by this WireMock version", e);
+		}
+	}
+
+	private final class InProcessConnection extends HttpURLConnection {
+
+		private HttpHeaders requestHeaders;
+		private ByteArrayOutputStream requestBody;
+		private boolean exchanged;
+		private int status;
+		private String statusMessage;
+		private Map<String, List<String>> headerFields;
+		private List<String> headerKeys;
+		private byte[] body;
+		private IOException failure;
+
+		InProcessConnection(final URL url) {
+			super(url);
+		}
+
+		@Override
+		public void connect() {
+			if (connected) {
+				return;
+			}
+			final List<HttpHeader> headers = new ArrayList<>();
+			for (final Map.Entry<String, List<String>> property : getRequestProperties().entrySet()) {
+				headers.add(new HttpHeader(property.getKey(), property.getValue()));
+			}
+			if (getRequestProperty("Host") == null) {
+				headers.add(new HttpHeader("Host", url.getPort() < 0 ? url.getHost() : url.getHost() + ":" + url.getPort()));
+			}
+			requestHeaders = new HttpHeaders(headers);
+			connected = true;
+		}
+
+		@Override
+		public void disconnect() {
+			// nothing to release
+		}
+
+		@Override
+		public boolean usingProxy() {
+			return false;
+		}
+
+		@Override
+		public OutputStream getOutputStream() throws IOException {
+			if (!doOutput) {
+				throw new ProtocolException("cannot write to a URLConnection if doOutput=false - call setDoOutput(true)");
+			}
+			if (exchanged) {
+				throw new ProtocolException("Cannot write output after reading input.");
+			}
+			if ("GET".equals(method)) {
+				method = "POST";
+			}
+			connect();
+			if (requestBody == null) {
+				requestBody = new ByteArrayOutputStream();
+			}
+			return requestBody;
+		}
+
+		@Override
+		public int getResponseCode() throws IOException {
+			exchange();
+			return status;
+		}
+
+		@Override
+		public String getResponseMessage() throws IOException {
+			exchange();
+			return statusMessage;
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			exchange();
+			if (status == HTTP_NOT_FOUND || status == HTTP_GONE) {
+				throw new FileNotFoundException(url.toString());
+			}
+			if (status >= HTTP_BAD_REQUEST) {
+				throw new IOException("Server returned HTTP response code: " + status + " for URL: " + url);
+			}
+			return new ByteArrayInputStream(body);
+		}
+
+		@Override
+		public InputStream getErrorStream() {
+			return exchanged && failure == null && status >= HTTP_BAD_REQUEST && body.length > 0 ? new ByteArrayInputStream(body) : null;
+		}
+
+		@Override
+		public Map<String, List<String>> getHeaderFields() {
+			return exchangeQuietly() ? headerFields : Collections.emptyMap();
+		}
+
+		@Override
+		public String getHeaderField(final String name) {
+			if (!exchangeQuietly()) {
+				return null;
+			}
+			for (final Map.Entry<String, List<String>> field : headerFields.entrySet()) {
+				if (field.getKey() == null ? name == null : field.getKey().equalsIgnoreCase(name)) {
+					return field.getValue().get(field.getValue().size() - 1);
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public String getHeaderFieldKey(final int n) {
+			return exchangeQuietly() && n < headerKeys.size() ? headerKeys.get(n) : null;
+		}
+
+		@Override
+		public String getHeaderField(final int n) {
+			return exchangeQuietly() && n < headerKeys.size() ? getHeaderField(headerKeys.get(n)) : null;
+		}
+
+		private boolean exchangeQuietly() {
+			try {
+				exchange();
+				return true;
+			} catch (final IOException e) {
+				return false;
+			}
+		}
+
+		private void exchange() throws IOException {
+
+			if (!exchanged) {
+				exchanged = true;
+				connect();
+				final LoggedRequest request = new LoggedRequest(url.getFile().isEmpty() ? "/" : url.getFile(),
+						BASE_URL + url.getFile(), RequestMethod.fromString(method), "127.0.0.1", requestHeaders,
+						cookiesOf(requestHeaders), false, new Date(),
+						requestBody == null ? new byte[0] : requestBody.toByteArray(), null);
+				LocalNotifier.set(notifier);
+				try {
+					stubRequestHandler.handle(request, (servedRequest, response) -> respond(response));
+				} catch (final RuntimeException e) {
+					failure = new IOException("In-process request failed: " + method + " " + url.getFile(), e);
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+
+		private void respond(final Response response) {
+
+			try {
+				if (response.getInitialDelay() > 0) {
+					Thread.sleep(response.getInitialDelay());
+				}
+				if (response.wasConfigured() && response.shouldAddChunkedDribbleDelay()) {
+					Thread.sleep(response.getChunkedDribbleDelay().getTotalDuration());
+				}
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failure = new InterruptedIOException("Interrupted while delaying the response");
+				return;
+			}
+			if (response.wasConfigured() && response.getFault() != null) {
+				failure = new IOException("Connection failed by fault " + response.getFault() + " of the stub");
+				return;
+			}
+			status = response.getStatus();
+			statusMessage = response.getStatusMessage() != null ? response.getStatusMessage() : HttpStatus.getMessage(status);
+			body = response.wasConfigured() && response.getBody() != null ? response.getBody() : new byte[0];
+			headerFields = new LinkedHashMap<>();
+			headerFields.put(null, Collections.singletonList("HTTP/1.1 " + status + " " + statusMessage));
+			if (response.wasConfigured()) {
+				for (final HttpHeader header : response.getHeaders().all()) {
+					headerFields.put(header.key(), Collections.unmodifiableList(new ArrayList<>(header.values())));
+				}
+			}
+			if (!response.getHeaders().getHeader("Content-Length").isPresent()) {
+				headerFields.put("Content-Length", Collections.singletonList(String.valueOf(body.length)));
+			}
+			headerKeys = new ArrayList<>(headerFields.keySet());
+			headerFields = Collections.unmodifiableMap(headerFields);
+		}
+
+		private Map<String, Cookie> cookiesOf(final HttpHeaders headers) {
+
+			final HttpHeader cookieHeader = headers.getHeader("Cookie");
+			if (!cookieHeader.isPresent()) {
+				return Collections.emptyMap();
+			}
+			final Map<String, List<String>> values = new LinkedHashMap<>();
+			for (final String value : cookieHeader.values()) {
+				for (final String cookie : value.split(";")) {
+					final int separator = cookie.indexOf('=');
+					if (separator > 0) {
+						values.computeIfAbsent(cookie.substring(0, separator).trim(), name -> new ArrayList<>())
+								.add(cookie.substring(separator + 1).trim());
+					}
+				}
+			}
+			final Map<String, Cookie> cookies = new LinkedHashMap<>();
+			values.forEach((name, cookieValues) -> cookies.put(name, new Cookie(cookieValues)));
+			return cookies;
+		}
+	}
+}
@@ -0,0 +1,351 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static java.util.Arrays.asList;
+import static java.util.Comparator.comparingLong;
+
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.platform.commons.util.ReflectionUtils;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.matching.EqualToPattern;
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.github.tomakehurst.wiremock.matching.StringValuePattern;
+import com.github.tomakehurst.wiremock.matching.UrlPathPattern;
+import com.github.tomakehurst.wiremock.matching.UrlPattern;
+import com.github.tomakehurst.wiremock.stubbing.InMemoryStubMappings;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+import com.github.tomakehurst.wiremock.stubbing.SortedConcurrentMappingSet;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import com.github.tomakehurst.wiremock.stubbing.StubMappings;
+import com.google.common.base.Optional;
+
+/**
+ * Stub mappings of a server indexed by HTTP method and exact URL or path. While a request is served, iteration is
+ * narrowed to the stubs that may match it by their method and URL, merged with all stubs that cannot be indexed,
+ * e.g. those matching URLs by regular expressions or custom matchers. The order is the same as of the
+ * {@link SortedConcurrentMappingSet} replaced, i.e. by priority, then most recently added first, so the matched
+ * stub is the same as without index.
+ *
+ * @author Jens Piegsa
+ */
+final class IndexedMappingSet extends SortedConcurrentMappingSet {
+
+	private static final Comparator<StubMapping> PRIORITY_THEN_REVERSE_INSERTION_ORDER = (one, two) -> {
+		final int priorityComparison = one.comparePriorityWith(two);
+		return priorityComparison != 0 ? priorityComparison : Long.compare(two.getInsertionIndex(), one.getInsertionIndex());
+	};
+
+	private final AtomicLong insertionCount = new AtomicLong();
+	private final ConcurrentSkipListSet<StubMapping> mappings = new ConcurrentSkipListSet<>(PRIORITY_THEN_REVERSE_INSERTION_ORDER);
+	private final ConcurrentMap<String, ConcurrentSkipListSet<StubMapping>> index = new ConcurrentHashMap<>();
+	private final ConcurrentSkipListSet<StubMapping> unindexed = new ConcurrentSkipListSet<>(PRIORITY_THEN_REVERSE_INSERTION_ORDER);
+	private final ThreadLocal<Request> servedRequest = new ThreadLocal<>();
+
+	/**
+	 * Replaces the stub mappings of the given server by an indexed set, keeping the stubs already registered.
+	 *
+	 * @throws IllegalStateException if the internals of WireMock are not as expected
+	 */
+	static void install(final WireMockServer server) {
+
+		final Object wireMockApp = readField(WireMockServer.class, "wireMockApp", server);
+		final StubMappings installed = (StubMappings) readField(wireMockApp.getClass(), "stubMappings", wireMockApp);
+		// changes of the baseline are tracked on top of the index
+		final BaselineStubMappings baselineStubMappings = installed instanceof BaselineStubMappings
+				? (BaselineStubMappings) installed : null;
+		final StubMappings stubMappings = baselineStubMappings == null ? installed : baselineStubMappings.getDelegate();
+		if (stubMappings instanceof RequestScopedStubMappings) {
+			return;
+		}
+		if (!(stubMappings instanceof InMemoryStubMappings)) {
+			throw new IllegalStateException("Indexed matching not supported for " + stubMappings.getClass().getName());
+		}
+		final IndexedMappingSet indexedMappings = new IndexedMappingSet();
+		final List<StubMapping> registered = new ArrayList<>(stubMappings.getAll());
+		registered.sort(comparingLong(StubMapping::getInsertionIndex));
+		registered.forEach(indexedMappings::add);
+		writeField(InMemoryStubMappings.class, "mappings", stubMappings, indexedMappings);
+		// the near miss calculator keeps the unwrapped stub mappings, which it iterates completely
+		final RequestScopedStubMappings requestScopedStubMappings = new RequestScopedStubMappings(stubMappings, indexedMappings);
+		if (baselineStubMappings == null) {
+			writeField(wireMockApp.getClass(), "stubMappings", wireMockApp, requestScopedStubMappings);
+		} else {
+			baselineStubMappings.setDelegate(requestScopedStubMappings);
+		}
+	}
+
+	@Override
+	public Iterator<StubMapping> iterator() {
+
+		final Request request = servedRequest.get();
+		if (request == null) {
+			return mappings.iterator();
+		}
+		// only the first iteration while serving is the lookup of the matching stub
+		servedRequest.remove();
+		final String url = request.getUrl();
+		final String path;
+		try {
+			path = url == null ? null : URI.create(url).getRawPath();
+		} catch (final IllegalArgumentException e) {
+			return mappings.iterator();
+		}
+		final String method = request.getMethod() == null ? null : request.getMethod().getName();
+		final List<Iterator<StubMapping>> candidates = new ArrayList<>();
+		candidates.add(unindexed.iterator());
+		for (final String key : asList(urlKey(method, url), urlKey(RequestMethod.ANY.getName(), url),
+				pathKey(method, path), pathKey(RequestMethod.ANY.getName(), path))) {
+			final ConcurrentSkipListSet<StubMapping> bucket = key == null ? null : index.get(key);
+			if (bucket != null) {
+				candidates.add(bucket.iterator());
+			}
+		}
+		return candidates.size() == 1 ? candidates.get(0) : new MergingIterator(candidates);
+	}
+
+	@Override
+	public void add(final StubMapping mapping) {
+		mapping.setInsertionIndex(insertionCount.getAndIncrement());
+		mappings.add(mapping);
+		bucketOf(mapping).add(mapping);
+	}
+
+	@Override
+	public boolean remove(final StubMapping mappingToRemove) {
+
+		final UUID id = mappingToRemove.getUuid();
+		boolean removed = false;
+		if (id != null) {
+			for (final StubMapping mapping : mappings) {
+				if (id.equals(mapping.getUuid())) {
+					removed |= removeMapping(mapping);
+				}
+			}
+		}
+		if (!removed) {
+			for (final StubMapping mapping : mappings) {
+				if (mappingToRemove.getRequest().equals(mapping.getRequest())) {
+					removed |= removeMapping(mapping);
+				}
+			}
+		}
+		return removed;
+	}
+
+	@Override
+	public boolean replace(final StubMapping existingStubMapping, final StubMapping newStubMapping) {
+		if (removeMapping(existingStubMapping)) {
+			mappings.add(newStubMapping);
+			bucketOf(newStubMapping).add(newStubMapping);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void clear() {
+		mappings.clear();
+		index.clear();
+		unindexed.clear();
+	}
+
+	@Override
+	public String toString() {
+		return mappings.toString();
+	}
+
+	private boolean removeMapping(final StubMapping mapping) {
+		if (mappings.remove(mapping)) {
+			bucketOf(mapping).remove(mapping);
+			return true;
+		}
+		return false;
+	}
+
+	private ConcurrentSkipListSet<StubMapping> bucketOf(final StubMapping mapping) {
+		final String key = keyOf(mapping.getRequest());
+		return key == null ? unindexed : index.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>(PRIORITY_THEN_REVERSE_INSERTION_ORDER));
+	}
+
+	/**
+	 * @return the index key of stubs matching a single URL or path case-sensitively by their default matcher,
+	 * otherwise {@code null}.
+	 */
+	private static String keyOf(final RequestPattern requestPattern) {
+
+		if (requestPattern == null || requestPattern.hasCustomMatcher() || requestPattern.getCustomMatcher() != null) {
+			return null;
+		}
+		final UrlPattern urlPattern = requestPattern.getUrlMatcher();
+		if (urlPattern == null || urlPattern.isRegex()) {
+			return null;
+		}
+		final StringValuePattern pattern = urlPattern.getPattern();
+		if (pattern == null || pattern.getClass() != EqualToPattern.class
+				|| Boolean.TRUE.equals(((EqualToPattern) pattern).getCaseInsensitive())) {
+			return null;
+		}
+		final String method = requestPattern.getMethod().getName();
+		final String value = ((EqualToPattern) pattern).getEqualTo();
+		if (urlPattern.getClass() == UrlPathPattern.class) {
+			return pathKey(method, value);
+		}
+		return urlPattern.getClass() == UrlPattern.class ? urlKey(method, value) : null;
+	}
+
+	private static String urlKey(final String method, final String url) {
+		return method == null || url == null ? null : method + " url " + url;
+	}
+
+	private static String pathKey(final String method, final String path) {
+		return method == null || path == null ? null : method + " path " + path;
+	}
+
+	private static Object readField(final Class<?> type, final String name, final Object instance) {
+		try {
+			return ReflectionUtils.makeAccessible(type.getDeclaredField(name)).get(instance);
+		} catch (final ReflectiveOperationException | RuntimeException e) {
+			throw new IllegalStateException("Indexed matching not supported by this WireMock version", e);
+		}
+	}
+
+	private static void writeField(final Class<?> type, final String name, final Object instance, final Object value) {
+		try {
+			final Field field = ReflectionUtils.makeAccessible(type.getDeclaredField(name));
+			field.set(instance, value);
+		} catch (final ReflectiveOperationException | RuntimeException e) {
+			throw new IllegalStateException("Indexed matching not supported by this WireMock version", e);
+		}
+	}
+
+	/**
+	 * Merges iterators over disjoint sets sorted by {@link #PRIORITY_THEN_REVERSE_INSERTION_ORDER}.
+	 */
+	private static final class MergingIterator implements Iterator<StubMapping> {
+
+		private final List<Iterator<StubMapping>> iterators;
+		private final StubMapping[] heads;
+
+		MergingIterator(final List<Iterator<StubMapping>> iterators) {
+			this.iterators = iterators;
+			heads = new StubMapping[iterators.size()];
+			for (int i = 0; i < heads.length; i++) {
+				advance(i);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			for (final StubMapping head : heads) {
+				if (head != null) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public StubMapping next() {
+			int next = -1;
+			for (int i = 0; i < heads.length; i++) {
+				if (heads[i] != null && (next < 0 || PRIORITY_THEN_REVERSE_INSERTION_ORDER.compare(heads[i], heads[next]) < 0)) {
+					next = i;
+				}
+			}
+			if (next < 0) {
+				throw new NoSuchElementException();
+			}
+			final StubMapping mapping = heads[next];
+			advance(next);
+			return mapping;
+		}
+
+		private void advance(final int i) {
+			heads[i] = iterators.get(i).hasNext() ? iterators.get(i).next() : null;
+		}
+	}
+
+	/**
+	 * Announces each served request to the {@link IndexedMappingSet} iterated by the stub mappings while serving it.
+	 */
+	private static final class RequestScopedStubMappings implements StubMappings {
+
+		private final StubMappings delegate;
+		private final IndexedMappingSet indexedMappings;
+
+		RequestScopedStubMappings(final StubMappings delegate, final IndexedMappingSet indexedMappings) {
+			this.delegate = delegate;
+			this.indexedMappings = indexedMappings;
+		}
+
+		@Override
+		public ServeEvent serveFor(final Request request) {
+			indexedMappings.servedRequest.set(request);
+			try {
+				return delegate.serveFor(request);
+			} finally {
+				indexedMappings.servedRequest.remove();
+			}
+		}
+
+		@Override
+		public void addMapping(final StubMapping mapping) {
+			delegate.addMapping(mapping);
+		}
+
+		@Override
+		public void removeMapping(final StubMapping mapping) {
+			delegate.removeMapping(mapping);
+		}
+
+		@Override
+		public void editMapping(final StubMapping stubMapping) {
+			delegate.editMapping(stubMapping);
+		}
+
+		@Override
+		public void reset() {
+			delegate.reset();
+		}
+
+		@Override
+		public void resetScenarios() {
+			delegate.resetScenarios();
+		}
+
+		@Override
+		public List<StubMapping> getAll() {
+			return delegate.getAll();
+		}
+
+		@Override
+		public Optional<StubMapping> get(final UUID id) {
+			return delegate.get(id);
+		}
+
+		@Override
+		public List<Scenario> getAllScenarios() {
+			return delegate.getAllScenarios();
+		}
+
+		@Override
+		public List<StubMapping> findByMetadata(final StringValuePattern pattern) {
+			return delegate.findByMetadata(pattern);
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Injects a {@link com.github.tomakehurst.wiremock.client.WireMock} client bound to the server of the current test.
+ * The client is created per test and is independent of the static WireMock DSL.
+ *
+ * @author Jens Piegsa
+ */
+@Documented
+@Target(FIELD)
+@Retention(RUNTIME)
+public @interface InjectClient {
+}
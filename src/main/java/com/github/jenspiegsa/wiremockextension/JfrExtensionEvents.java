@@ -0,0 +1,122 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import java.net.URI;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * {@link ExtensionEvents} committed to the Java Flight Recorder. Only loaded if the JFR API is available.
+ *
+ * @author Jens Piegsa
+ */
+final class JfrExtensionEvents extends ExtensionEvents {
+
+	@Override
+	Span begin(final String phase, final String testId) {
+
+		final LifecycleEvent event = new LifecycleEvent();
+		if (!event.isEnabled()) {
+			return Span.NONE;
+		}
+		event.phase = phase;
+		event.testId = testId;
+		event.port = -1;
+		event.begin();
+		return new Span() {
+			@Override
+			public Span on(final WireMockServer server) {
+				if (server != null && server.isRunning()) {
+					event.port = server.port();
+				}
+				return this;
+			}
+
+			@Override
+			public void end() {
+				event.commit();
+			}
+		};
+	}
+
+	@Override
+	void requestServed(final ServeEvent serveEvent) {
+
+		final RequestEvent event = new RequestEvent();
+		if (!event.shouldCommit()) {
+			return;
+		}
+		event.method = serveEvent.getRequest().getMethod().getName();
+		event.url = serveEvent.getRequest().getUrl();
+		event.port = portOf(serveEvent.getRequest().getAbsoluteUrl());
+		event.matched = serveEvent.getWasMatched();
+		final StubMapping stubMapping = serveEvent.getStubMapping();
+		event.stubId = serveEvent.getWasMatched() && stubMapping != null && stubMapping.getId() != null
+				? stubMapping.getId().toString() : null;
+		event.serveTime = serveEvent.getTiming() == null ? -1 : serveEvent.getTiming().getServeTime();
+		event.commit();
+	}
+
+	private static int portOf(final String absoluteUrl) {
+		try {
+			return URI.create(absoluteUrl).getPort();
+		} catch (final IllegalArgumentException | NullPointerException e) {
+			return -1;
+		}
+	}
+
+	@Name("com.github.jenspiegsa.wiremockextension.Lifecycle")
+	@Label("WireMock Extension Lifecycle")
+	@Description("A phase of the extension lifecycle, e.g. starting a server or checking for unmatched requests")
+	@Category("WireMock")
+	@StackTrace(false)
+	static final class LifecycleEvent extends Event {
+
+		@Label("Phase")
+		String phase;
+
+		@Label("Test Id")
+		String testId;
+
+		@Label("Port")
+		int port;
+	}
+
+	@Name("com.github.jenspiegsa.wiremockextension.Request")
+	@Label("WireMock Request")
+	@Description("A request served by a ManagedWireMockServer")
+	@Category("WireMock")
+	@StackTrace(false)
+	@Enabled(false)
+	static final class RequestEvent extends Event {
+
+		@Label("Method")
+		String method;
+
+		@Label("URL")
+		String url;
+
+		@Label("Port")
+		int port;
+
+		@Label("Matched")
+		boolean matched;
+
+		@Label("Stub Id")
+		String stubId;
+
+		@Label("Serve Time")
+		@Timespan(Timespan.MILLISECONDS)
+		long serveTime;
+	}
+}
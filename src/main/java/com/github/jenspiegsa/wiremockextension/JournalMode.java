@@ -0,0 +1,100 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import com.github.tomakehurst.wiremock.core.Options;
+import com.google.common.base.Optional;
+
+/**
+ * Determines which requests are retained in the request journal of a server. Unmatched requests are tracked
+ * separately, so they are reported after each test in every mode.
+ *
+ * @author Jens Piegsa
+ */
+public enum JournalMode {
+
+	/**
+	 * The journal is configured by the {@link Options} of the server, unbounded by default.
+	 */
+	DEFAULT {
+		@Override
+		public Options applyTo(final Options options, final int maxEntries) {
+			return options;
+		}
+	},
+
+	/**
+	 * The journal retains all requests, regardless of the {@link Options} of the server.
+	 */
+	UNBOUNDED {
+		@Override
+		public Options applyTo(final Options options, final int maxEntries) {
+			return new DelegatingOptions(options) {
+				@Override
+				public boolean requestJournalDisabled() {
+					return false;
+				}
+
+				@Override
+				public Optional<Integer> maxRequestJournalEntries() {
+					return Optional.absent();
+				}
+			};
+		}
+	},
+
+	/**
+	 * The journal retains the most recent requests only, up to a maximum number of entries.
+	 */
+	BOUNDED {
+		@Override
+		public Options applyTo(final Options options, final int maxEntries) {
+			if (maxEntries < 1) {
+				throw new IllegalArgumentException("maximum number of journal entries must be positive, but was: " + maxEntries);
+			}
+			return new DelegatingOptions(options) {
+				@Override
+				public boolean requestJournalDisabled() {
+					return false;
+				}
+
+				@Override
+				public Optional<Integer> maxRequestJournalEntries() {
+					return Optional.of(maxEntries);
+				}
+			};
+		}
+	},
+
+	/**
+	 * The journal retains all requests in a file instead of on the heap, see {@link FileRequestJournal}. Applied by the
+	 * extension to servers it creates, except for {@link ServerLifecycle#POOLED} servers. The options only enable an
+	 * unbounded journal, so {@code @Managed} servers call {@link ManagedWireMockServer#fileJournal(java.nio.file.Path)}.
+	 */
+	FILE {
+		@Override
+		public Options applyTo(final Options options, final int maxEntries) {
+			return UNBOUNDED.applyTo(options, maxEntries);
+		}
+	},
+
+	/**
+	 * The journal is disabled and only unmatched requests are counted. Request verification is not available.
+	 */
+	COUNTERS_ONLY {
+		@Override
+		public Options applyTo(final Options options, final int maxEntries) {
+			return new DelegatingOptions(options) {
+				@Override
+				public boolean requestJournalDisabled() {
+					return true;
+				}
+			};
+		}
+	};
+
+	/**
+	 * @param options options provided by the test, which remain unmodified
+	 * @param maxEntries maximum number of journal entries, only regarded by {@link #BOUNDED}
+	 * @return the options with the journal configured according to this mode.
+	 */
+	public abstract Options applyTo(Options options, int maxEntries);
+}
@@ -0,0 +1,61 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of non-negative values with lock-free recording, similar to HdrHistogram with two
+ * significant digits: values below {@code 64} are counted exactly, larger values in 32 buckets per power of two,
+ * i.e. with a relative error of at most 3%.
+ *
+ * @author Jens Piegsa
+ */
+final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT << 1;
+	private static final int BUCKET_COUNT = LINEAR_LIMIT + (Integer.SIZE - SUB_BUCKET_BITS - 2) * SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+	void record(final int value) {
+		counts.incrementAndGet(indexOf(Math.max(0, value)));
+	}
+
+	void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts.set(i, 0);
+		}
+	}
+
+	long[] copyCounts() {
+		final long[] copy = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			copy[i] = counts.get(i);
+		}
+		return copy;
+	}
+
+	static int indexOf(final int value) {
+		if (value < LINEAR_LIMIT) {
+			return value;
+		}
+		final int exponent = Integer.SIZE - 1 - Integer.numberOfLeadingZeros(value);
+		final int shift = exponent - SUB_BUCKET_BITS;
+		final int subBucket = (value >>> shift) - SUB_BUCKET_COUNT;
+		return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	/**
+	 * @return the highest value counted by the bucket with the given index.
+	 */
+	static long highestValueOf(final int index) {
+		if (index < LINEAR_LIMIT) {
+			return index;
+		}
+		final int exponent = (index - LINEAR_LIMIT) / SUB_BUCKET_COUNT + SUB_BUCKET_BITS + 1;
+		final int subBucket = (index - LINEAR_LIMIT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+		final int shift = exponent - SUB_BUCKET_BITS;
+		return ((long) (subBucket + 1) << shift) - 1;
+	}
+}
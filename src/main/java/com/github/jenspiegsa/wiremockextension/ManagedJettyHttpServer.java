@@ -0,0 +1,536 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.io.NetworkTrafficListener;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.NetworkTrafficServerConnector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.HandlerCollection;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+
+import com.github.tomakehurst.wiremock.common.AsynchronousResponseSettings;
+import com.github.tomakehurst.wiremock.common.JettySettings;
+import com.github.tomakehurst.wiremock.common.LocalNotifier;
+import com.github.tomakehurst.wiremock.common.Notifier;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.core.WireMockApp;
+import com.github.tomakehurst.wiremock.http.AdminRequestHandler;
+import com.github.tomakehurst.wiremock.http.ChunkedDribbleDelay;
+import com.github.tomakehurst.wiremock.http.HttpHeader;
+import com.github.tomakehurst.wiremock.http.HttpResponder;
+import com.github.tomakehurst.wiremock.http.HttpServer;
+import com.github.tomakehurst.wiremock.http.HttpServerFactory;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestHandler;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.http.Response;
+import com.github.tomakehurst.wiremock.http.StubRequestHandler;
+import com.github.tomakehurst.wiremock.jetty9.JettyHttpServer;
+import com.github.tomakehurst.wiremock.jetty9.JettyHttpServerFactory;
+import com.github.tomakehurst.wiremock.servlet.BodyChunker;
+import com.github.tomakehurst.wiremock.servlet.WireMockHandlerDispatchingServlet;
+import com.github.tomakehurst.wiremock.servlet.WireMockHttpServletRequestAdapter;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import com.google.common.io.ByteStreams;
+
+/**
+ * The Jetty server of a {@link ManagedWireMockServer} with {@link StreamedBody streamed bodies}, asynchronous
+ * responses or a {@link SharedThreadPool} enabled, serving stubs by a servlet of its own. Other servers keep
+ * WireMock's Jetty server. It streams bodies without reading them into memory, answering single byte ranges. If
+ * asynchronous responses are enabled by the {@link Options}, fixed delays and chunked dribble delays are served
+ * without blocking container threads: delays are timed by a small pool of daemon threads, which hands each delayed
+ * response and dribbled chunk back to the container to be written, so thousands of concurrent delayed requests can
+ * be served and a slow client does not hold up the others. Unlike WireMock's own asynchronous responses, which only
+ * cover fixed delays, the pool is shut down when the server is stopped. Servers on a {@link SharedThreadPool} share
+ * its delay threads as well. Otherwise delays block the container thread like WireMock does.
+ *
+ * @author Jens Piegsa
+ */
+final class ManagedJettyHttpServer extends JettyHttpServer {
+
+	static final int DEFAULT_THREADS = 2;
+
+	private static final AtomicInteger serverCount = new AtomicInteger();
+
+	private final int threads;
+	private volatile ScheduledExecutorService scheduler;
+	// assigned by createServer(...) while the constructor of JettyHttpServer runs, hence without initializer
+	private Server jettyServer;
+
+	private ManagedJettyHttpServer(final Options options,
+	                               final AdminRequestHandler adminRequestHandler,
+	                               final StubRequestHandler stubRequestHandler) {
+		super(withoutAsynchronousResponses(options), adminRequestHandler, stubRequestHandler);
+		final AsynchronousResponseSettings settings = options.getAsynchronousResponseSettings();
+		threads = settings == null || !settings.isEnabled() ? 0
+				: settings.getThreads() > 0 ? settings.getThreads() : DEFAULT_THREADS;
+	}
+
+	/**
+	 * @return the given options with asynchronous responses enabled, keeping the configured number of threads.
+	 */
+	static Options enableAsynchronousResponses(final Options options) {
+		final int threads = options.getAsynchronousResponseSettings().getThreads();
+		return new DelegatingOptions(options) {
+			@Override
+			public AsynchronousResponseSettings getAsynchronousResponseSettings() {
+				return new AsynchronousResponseSettings(true, threads);
+			}
+		};
+	}
+
+	/**
+	 * @return options creating a {@link ManagedJettyHttpServer} if asynchronous responses are enabled and the default
+	 * Jetty server is used, otherwise the given options.
+	 */
+	static Options applyTo(final Options options) {
+		final AsynchronousResponseSettings settings = options.getAsynchronousResponseSettings();
+		return settings != null && settings.isEnabled() ? install(options) : options;
+	}
+
+	/**
+	 * @return options creating a {@link ManagedJettyHttpServer} if the default Jetty server is used, otherwise the
+	 * given options, e.g. if already installed.
+	 */
+	static Options install(final Options options) {
+
+		if (options.httpServerFactory().getClass() != JettyHttpServerFactory.class) {
+			return options;
+		}
+		return new DelegatingOptions(options) {
+			@Override
+			public HttpServerFactory httpServerFactory() {
+				return Factory.INSTANCE;
+			}
+		};
+	}
+
+	private static Options withoutAsynchronousResponses(final Options options) {
+		return new DelegatingOptions(options) {
+			@Override
+			public AsynchronousResponseSettings getAsynchronousResponseSettings() {
+				// keeps Jetty from creating an executor of its own
+				return new AsynchronousResponseSettings(false, 0);
+			}
+		};
+	}
+
+	/**
+	 * Replaces the servlet serving stubs, called by the constructor of {@link JettyHttpServer}.
+	 */
+	@Override
+	protected HandlerCollection createHandler(final Options options,
+	                                          final AdminRequestHandler adminRequestHandler,
+	                                          final StubRequestHandler stubRequestHandler) {
+
+		final HandlerCollection handlers = super.createHandler(options, adminRequestHandler, stubRequestHandler);
+		for (final Handler handler : handlers.getChildHandlersByClass(ServletContextHandler.class)) {
+			for (final ServletHolder holder : ((ServletContextHandler) handler).getServletHandler().getServlets()) {
+				if (StubRequestHandler.class.getName().equals(holder.getInitParameter("RequestHandlerClass"))) {
+					holder.setServlet(new StubServlet(Paths.get(options.filesRoot().child(WireMockApp.FILES_ROOT).getPath())));
+				}
+			}
+		}
+		return handlers;
+	}
+
+	@Override
+	protected Server createServer(final Options options) {
+		jettyServer = super.createServer(options);
+		return jettyServer;
+	}
+
+	/**
+	 * Creates connectors accepting connections by a single selector thread on a {@link SharedThreadPool}, called by
+	 * the constructor of {@link JettyHttpServer}.
+	 */
+	@Override
+	protected ServerConnector createServerConnector(final String bindAddress,
+	                                                final JettySettings jettySettings,
+	                                                final int port,
+	                                                final NetworkTrafficListener listener,
+	                                                final ConnectionFactory... connectionFactories) {
+
+		if (!isSharedThreadPool()) {
+			return super.createServerConnector(bindAddress, jettySettings, port, listener, connectionFactories);
+		}
+		final NetworkTrafficServerConnector connector = new NetworkTrafficServerConnector(jettyServer, null, null, null,
+				0, 1, connectionFactories);
+		connector.setPort(port);
+		connector.setStopTimeout(0);
+		connector.getSelectorManager().setStopTimeout(0);
+		connector.addNetworkTrafficListener(listener);
+		if (jettySettings.getAcceptQueueSize().isPresent()) {
+			connector.setAcceptQueueSize(jettySettings.getAcceptQueueSize().get());
+		}
+		connector.setHost(bindAddress);
+		return connector;
+	}
+
+	@Override
+	public void start() {
+		if (threads > 0) {
+			if (isSharedThreadPool()) {
+				scheduler = ((SharedThreadPool) jettyServer.getThreadPool()).getScheduler();
+			} else {
+				final ThreadFactory threadFactory = newThreadFactory("wiremock-delays-" + serverCount.incrementAndGet() + "-");
+				scheduler = Executors.newScheduledThreadPool(threads, threadFactory);
+			}
+		}
+		super.start();
+	}
+
+	@Override
+	public void stop() {
+		try {
+			super.stop();
+		} finally {
+			final ScheduledExecutorService stoppedScheduler = scheduler;
+			if (stoppedScheduler != null && !isSharedThreadPool()) {
+				stoppedScheduler.shutdownNow();
+			}
+		}
+	}
+
+	private boolean isSharedThreadPool() {
+		return jettyServer.getThreadPool() instanceof SharedThreadPool;
+	}
+
+	private static ThreadFactory newThreadFactory(final String namePrefix) {
+		final AtomicInteger threadCount = new AtomicInteger();
+		return runnable -> {
+			final Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	private static String streamedBodyOf(final Response response) {
+		if (!response.wasConfigured() || response.getFault() != null) {
+			return null;
+		}
+		final HttpHeader header = response.getHeaders().getHeader(StreamedBody.HEADER);
+		return header.isPresent() ? header.firstValue() : null;
+	}
+
+	/**
+	 * @return the first and last position of the single byte range requested, an empty array if it is not
+	 * satisfiable, or {@code null} if the whole body is to be sent, e.g. for multiple ranges.
+	 */
+	static long[] requestedRange(final String rangeHeader, final long length) {
+
+		if (rangeHeader == null || !rangeHeader.startsWith("bytes=") || rangeHeader.indexOf(',') >= 0) {
+			return null;
+		}
+		final String range = rangeHeader.substring("bytes=".length()).trim();
+		final int separator = range.indexOf('-');
+		if (separator < 0) {
+			return null;
+		}
+		try {
+			final String first = range.substring(0, separator).trim();
+			final String last = range.substring(separator + 1).trim();
+			if (first.isEmpty()) {
+				final long suffixLength = Long.parseLong(last);
+				return suffixLength <= 0 || length == 0 ? new long[0] : new long[] {Math.max(0, length - suffixLength), length - 1};
+			}
+			final long firstPosition = Long.parseLong(first);
+			final long lastPosition = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+			if (firstPosition < 0 || lastPosition < firstPosition) {
+				return null;
+			}
+			return firstPosition >= length ? new long[0] : new long[] {firstPosition, Math.min(lastPosition, length - 1)};
+		} catch (final NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static final class Factory implements HttpServerFactory {
+
+		static final Factory INSTANCE = new Factory();
+
+		@Override
+		public HttpServer buildHttpServer(final Options options,
+		                                  final AdminRequestHandler adminRequestHandler,
+		                                  final StubRequestHandler stubRequestHandler) {
+			return new ManagedJettyHttpServer(options, adminRequestHandler, stubRequestHandler);
+		}
+	}
+
+	private final class StubServlet extends WireMockHandlerDispatchingServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient Path filesDirectory;
+		private transient RequestHandler requestHandler;
+		private transient Notifier notifier;
+		private boolean shouldForwardToFilesContext;
+		private String fileSourceRoot = "/";
+
+		StubServlet(final Path filesDirectory) {
+			this.filesDirectory = filesDirectory;
+		}
+
+		@Override
+		public void init(final ServletConfig config) {
+			super.init(config);
+			final ServletContext context = config.getServletContext();
+			requestHandler = (RequestHandler) context.getAttribute(config.getInitParameter("RequestHandlerClass"));
+			notifier = (Notifier) context.getAttribute("Notifier");
+			shouldForwardToFilesContext = Boolean.parseBoolean(config.getInitParameter(SHOULD_FORWARD_TO_FILES_CONTEXT));
+			if (context.getInitParameter("WireMockFileSourceRoot") != null) {
+				fileSourceRoot = context.getInitParameter("WireMockFileSourceRoot");
+			}
+		}
+
+		@Override
+		protected void service(final HttpServletRequest httpServletRequest, final HttpServletResponse httpServletResponse) {
+			LocalNotifier.set(notifier);
+			requestHandler.handle(new WireMockHttpServletRequestAdapter(httpServletRequest),
+					new StubResponder(httpServletRequest, httpServletResponse));
+		}
+
+		private final class StubResponder implements HttpResponder {
+
+			private final HttpServletRequest httpServletRequest;
+			private final HttpServletResponse httpServletResponse;
+
+			StubResponder(final HttpServletRequest httpServletRequest, final HttpServletResponse httpServletResponse) {
+				this.httpServletRequest = httpServletRequest;
+				this.httpServletResponse = httpServletResponse;
+			}
+
+			@Override
+			public void respond(final Request request, final Response response) {
+
+				if (Thread.currentThread().isInterrupted()) {
+					return;
+				}
+				httpServletRequest.setAttribute(WireMockHttpServletRequestAdapter.ORIGINAL_REQUEST_KEY, LoggedRequest.createFrom(request));
+				// streamed bodies are written at once, they are usually too large to be dribbled
+				final boolean dribble = response.wasConfigured() && response.getFault() == null
+						&& response.shouldAddChunkedDribbleDelay() && streamedBodyOf(response) == null;
+				final ScheduledExecutorService currentScheduler = scheduler;
+				if (response.getInitialDelay() <= 0 && !dribble || !httpServletRequest.isAsyncSupported() || currentScheduler == null) {
+					// blocks the container thread like WireMock, dribbled chunks are delayed by applyResponse(...)
+					delayIfRequired(response.getInitialDelay());
+					respondTo(request, response);
+					return;
+				}
+				final AsyncContext asyncContext = httpServletRequest.startAsync();
+				// delays are limited by the stubs, not by the container
+				asyncContext.setTimeout(0);
+				try {
+					currentScheduler.schedule(() -> dispatch(asyncContext, () -> {
+						if (dribble) {
+							startDribble(asyncContext, response, currentScheduler);
+							return;
+						}
+						try {
+							respondTo(request, response);
+						} finally {
+							asyncContext.complete();
+						}
+					}), Math.max(0, response.getInitialDelay()), TimeUnit.MILLISECONDS);
+				} catch (final RejectedExecutionException e) {
+					// the server is stopping
+					asyncContext.complete();
+				}
+			}
+
+			/**
+			 * Runs the given task on a container thread, so the scheduler only times delays and is never blocked
+			 * by writing to a slow client.
+			 */
+			private void dispatch(final AsyncContext asyncContext, final Runnable task) {
+				try {
+					asyncContext.start(task);
+				} catch (final RuntimeException e) {
+					// the server is stopping
+					asyncContext.complete();
+				}
+			}
+
+			private void delayIfRequired(final long delayMillis) {
+				if (delayMillis <= 0) {
+					return;
+				}
+				try {
+					TimeUnit.MILLISECONDS.sleep(delayMillis);
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			private void respondTo(final Request request, final Response response) {
+				try {
+					final String streamedBody = streamedBodyOf(response);
+					if (streamedBody != null) {
+						respondStreamed(response, streamedBody);
+					} else if (response.wasConfigured()) {
+						applyResponse(response, httpServletRequest, httpServletResponse);
+					} else if (request.getMethod().equals(RequestMethod.GET) && shouldForwardToFilesContext) {
+						final String forwardUrl = fileSourceRoot + "__files" + request.getUrl();
+						httpServletRequest.getRequestDispatcher(URLDecoder.decode(forwardUrl, StandardCharsets.UTF_8.name()))
+								.forward(httpServletRequest, httpServletResponse);
+					} else {
+						httpServletResponse.sendError(HttpServletResponse.SC_NOT_FOUND);
+					}
+				} catch (final IOException | ServletException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+
+			/**
+			 * Writes the status and headers of the response and the requested range of the streamed body, if any.
+			 */
+			private void respondStreamed(final Response response, final String streamedBody) throws IOException {
+
+				final StreamedBody body;
+				final long length;
+				try {
+					body = StreamedBody.parse(streamedBody, filesDirectory);
+					length = body.length();
+				} catch (final IllegalArgumentException | IOException e) {
+					notifier.error("Cannot stream body " + streamedBody, e);
+					httpServletResponse.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+					return;
+				}
+				final long[] range = response.getStatus() == HttpServletResponse.SC_OK
+						? requestedRange(httpServletRequest.getHeader("Range"), length) : null;
+				if (range == null) {
+					setStatus(response.getStatus(), response.getStatusMessage());
+				} else if (range.length == 0) {
+					setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, null);
+				} else {
+					setStatus(HttpServletResponse.SC_PARTIAL_CONTENT, null);
+				}
+				for (final HttpHeader header : response.getHeaders().all()) {
+					if (!header.keyEquals(StreamedBody.HEADER)) {
+						for (final String value : header.values()) {
+							httpServletResponse.addHeader(header.key(), value);
+						}
+					}
+				}
+				httpServletResponse.setHeader("Accept-Ranges", "bytes");
+				if (range != null && range.length == 0) {
+					httpServletResponse.setHeader("Content-Range", "bytes */" + length);
+					httpServletResponse.setContentLength(0);
+					return;
+				}
+				final long position = range == null ? 0 : range[0];
+				final long count = range == null ? length : range[1] - range[0] + 1;
+				if (range != null) {
+					httpServletResponse.setHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + length);
+				}
+				httpServletResponse.setContentLengthLong(count);
+				if (!RequestMethod.HEAD.getName().equals(httpServletRequest.getMethod())) {
+					body.writeTo(httpServletResponse.getOutputStream(), position, count);
+				}
+			}
+
+			/**
+			 * Sets the status, with the reason phrase if given and the response is Jetty's own.
+			 */
+			private void setStatus(final int status, final String statusMessage) {
+				if (statusMessage != null && httpServletResponse instanceof org.eclipse.jetty.server.Response) {
+					((org.eclipse.jetty.server.Response) httpServletResponse).setStatusWithReason(status, statusMessage);
+				} else {
+					httpServletResponse.setStatus(status);
+				}
+			}
+
+			/**
+			 * Writes the status and headers, then schedules the chunks of the body like WireMock, i.e. each chunk
+			 * after an equal share of the total duration.
+			 */
+			private void startDribble(final AsyncContext asyncContext,
+			                          final Response response,
+			                          final ScheduledExecutorService currentScheduler) {
+
+				final byte[] body;
+				try (InputStream bodyStream = response.getBodyStream()) {
+					body = ByteStreams.toByteArray(bodyStream);
+				} catch (final IOException e) {
+					asyncContext.complete();
+					throw new IllegalStateException(e);
+				}
+				setStatus(response.getStatus(), response.getStatusMessage());
+				for (final HttpHeader header : response.getHeaders().all()) {
+					for (final String value : header.values()) {
+						httpServletResponse.addHeader(header.key(), value);
+					}
+				}
+				if (body.length < 1) {
+					notifier.error("Cannot chunk dribble delay when no body set");
+					asyncContext.complete();
+					return;
+				}
+				final ChunkedDribbleDelay dribbleDelay = response.getChunkedDribbleDelay();
+				final byte[][] chunks = BodyChunker.chunkBody(body, dribbleDelay.getNumberOfChunks());
+				final long chunkInterval = dribbleDelay.getTotalDuration() / chunks.length;
+				scheduleChunk(asyncContext, chunks, 0, chunkInterval, currentScheduler);
+			}
+
+			private void scheduleChunk(final AsyncContext asyncContext,
+			                           final byte[][] chunks,
+			                           final int chunk,
+			                           final long chunkInterval,
+			                           final ScheduledExecutorService currentScheduler) {
+
+				try {
+					currentScheduler.schedule(() -> dispatch(asyncContext,
+							() -> writeChunk(asyncContext, chunks, chunk, chunkInterval, currentScheduler)),
+							chunkInterval, TimeUnit.MILLISECONDS);
+				} catch (final RejectedExecutionException e) {
+					// the server is stopping
+					asyncContext.complete();
+				}
+			}
+
+			private void writeChunk(final AsyncContext asyncContext,
+			                        final byte[][] chunks,
+			                        final int chunk,
+			                        final long chunkInterval,
+			                        final ScheduledExecutorService currentScheduler) {
+				try {
+					final ServletOutputStream out = httpServletResponse.getOutputStream();
+					out.write(chunks[chunk]);
+					out.flush();
+				} catch (final IOException e) {
+					// the client went away
+					asyncContext.complete();
+					return;
+				}
+				if (chunk + 1 < chunks.length) {
+					scheduleChunk(asyncContext, chunks, chunk + 1, chunkInterval, currentScheduler);
+				} else {
+					asyncContext.complete();
+				}
+			}
+		}
+	}
+}
@@ -2,15 +2,27 @@ package com.github.jenspiegsa.wiremockextension;
 
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.verification.FindRequestsResult;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
 
 /**
  * @author Jens Piegsa
  */
 public class ManagedWireMockServer extends WireMockServer {
 
+	private final ServerMetrics metrics;
 	private Boolean failOnUnmatchedRequests;
+	private volatile boolean lazyStart;
+	private volatile boolean started;
+	private volatile boolean indexedMatching;
+	private volatile InProcessTransport inProcessTransport;
+	private volatile FileRequestJournal fileJournal;
 
 	public ManagedWireMockServer() {
 		this(wireMockConfig());
@@ -25,7 +37,8 @@ public class ManagedWireMockServer extends WireMockServer {
 	}
 
 	public ManagedWireMockServer(final Options options) {
-		super(options);
+		super(ExtensionEvents.get().applyTo(ManagedJettyHttpServer.applyTo(options)));
+		metrics = ServerMetrics.of(options).orElse(null);
 	}
 
 	public static ManagedWireMockServer with(final Options options) {
@@ -40,4 +53,166 @@ public class ManagedWireMockServer extends WireMockServer {
 	public Boolean failOnUnmatchedRequests() {
 		return failOnUnmatchedRequests;
 	}
+
+	/**
+	 * @param lazyStart {@code true} to start this server not before its port is requested, e.g. by {@link #port()},
+	 * {@link #baseUrl()} or {@link #url(String)}. Stubs can be registered and verified without starting it.
+	 */
+	public ManagedWireMockServer lazyStart(final boolean lazyStart) {
+		this.lazyStart = lazyStart;
+		return this;
+	}
+
+	public boolean isLazyStart() {
+		return lazyStart;
+	}
+
+	/**
+	 * Enables an index of the stub mappings by HTTP method and exact URL or path, narrowing the stubs evaluated
+	 * for each request. Stubs matching URLs by regular expressions or custom matchers are still evaluated for every
+	 * request. The matched stub is the same as without index. Cannot be disabled again.
+	 *
+	 * @throws IllegalStateException if not supported by the WireMock version in use
+	 */
+	public synchronized ManagedWireMockServer indexedMatching() {
+		if (!indexedMatching) {
+			IndexedMappingSet.install(this);
+			indexedMatching = true;
+		}
+		return this;
+	}
+
+	public boolean isIndexedMatching() {
+		return indexedMatching;
+	}
+
+	/**
+	 * @return a transport dispatching requests to this server in process, which need not be started for it.
+	 * @throws IllegalStateException if not supported by the WireMock version in use
+	 */
+	public InProcessTransport inProcess() {
+		if (inProcessTransport == null) {
+			synchronized (this) {
+				if (inProcessTransport == null) {
+					inProcessTransport = new InProcessTransport(this);
+				}
+			}
+		}
+		return inProcessTransport;
+	}
+
+	/**
+	 * Replaces the request journal of this server by an append-only log in the given file, which is truncated, so
+	 * every request is retained without growing the heap. Requests journaled before are discarded. Cannot be
+	 * disabled again, but may be moved to another file.
+	 *
+	 * @throws IllegalStateException if the request journal is disabled by the options or not supported by the
+	 * WireMock version in use
+	 * @see FileRequestJournal
+	 */
+	public synchronized ManagedWireMockServer fileJournal(final Path file) {
+		final FileRequestJournal previous = fileJournal;
+		fileJournal = FileRequestJournal.install(this, file);
+		if (previous != null) {
+			previous.close();
+		}
+		return this;
+	}
+
+	/**
+	 * @return the file journal of this server, if enabled by {@link #fileJournal(Path)}.
+	 */
+	public Optional<FileRequestJournal> getFileJournal() {
+		return Optional.ofNullable(fileJournal);
+	}
+
+	/**
+	 * Looks up unmatched requests by the index of the file journal, if enabled, instead of reading all requests.
+	 */
+	@Override
+	public FindRequestsResult findUnmatchedRequests() {
+		final FileRequestJournal journal = fileJournal;
+		return journal == null ? super.findUnmatchedRequests() : FindRequestsResult.withRequests(journal.getUnmatchedRequests());
+	}
+
+	@Override
+	public List<LoggedRequest> findAllUnmatchedRequests() {
+		final FileRequestJournal journal = fileJournal;
+		return journal == null ? super.findAllUnmatchedRequests() : journal.getUnmatchedRequests();
+	}
+
+	/**
+	 * Resets the count of unmatched requests along with the request journal, so requests discarded by the test are
+	 * not reported by the check after it.
+	 */
+	@Override
+	public void resetRequests() {
+		super.resetRequests();
+		resetUnmatchedRequests();
+	}
+
+	@Override
+	public void resetToDefaultMappings() {
+		super.resetToDefaultMappings();
+		resetUnmatchedRequests();
+	}
+
+	@Override
+	public void resetAll() {
+		super.resetAll();
+		resetUnmatchedRequests();
+	}
+
+	private void resetUnmatchedRequests() {
+		UnmatchedRequestTracker.find(this).ifPresent(UnmatchedRequestTracker::reset);
+	}
+
+	@Override
+	public void start() {
+		started = true;
+		// an allocated port is kept bound until now, so no other process takes it meanwhile
+		PortAllocator.unbind(getOptions().portNumber());
+		super.start();
+	}
+
+	@Override
+	public void stop() {
+		super.stop();
+		final FileRequestJournal journal = fileJournal;
+		if (journal != null) {
+			journal.close();
+		}
+	}
+
+	@Override
+	public int port() {
+		startIfLazy();
+		return super.port();
+	}
+
+	@Override
+	public int httpsPort() {
+		startIfLazy();
+		return super.httpsPort();
+	}
+
+	/**
+	 * Starts a lazy server on first use. A server stopped afterwards is not started again.
+	 */
+	private void startIfLazy() {
+		if (lazyStart && !started) {
+			synchronized (this) {
+				if (!started) {
+					start();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the metrics of the traffic served by this server, if enabled by {@link ServerMetrics#applyTo(Options)}.
+	 */
+	public Optional<ServerMetrics> getMetrics() {
+		return Optional.ofNullable(metrics);
+	}
 }
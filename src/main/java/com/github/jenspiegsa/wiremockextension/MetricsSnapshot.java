@@ -0,0 +1,123 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable copy of {@link ServerMetrics}.
+ *
+ * @author Jens Piegsa
+ */
+public final class MetricsSnapshot {
+
+	private final long requests;
+	private final long unmatchedRequests;
+	private final long bytesReceived;
+	private final long bytesSent;
+	private final Map<UUID, Long> stubHits;
+	private final long[] latencyCounts;
+	private final long elapsedNanos;
+
+	MetricsSnapshot(final long requests,
+	                final long unmatchedRequests,
+	                final long bytesReceived,
+	                final long bytesSent,
+	                final Map<UUID, Long> stubHits,
+	                final long[] latencyCounts,
+	                final long elapsedNanos) {
+		this.requests = requests;
+		this.unmatchedRequests = unmatchedRequests;
+		this.bytesReceived = bytesReceived;
+		this.bytesSent = bytesSent;
+		this.stubHits = unmodifiableMap(stubHits);
+		this.latencyCounts = latencyCounts;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	public long getRequests() {
+		return requests;
+	}
+
+	public long getUnmatchedRequests() {
+		return unmatchedRequests;
+	}
+
+	/**
+	 * @return the number of request body bytes received.
+	 */
+	public long getBytesReceived() {
+		return bytesReceived;
+	}
+
+	/**
+	 * @return the number of response body bytes sent.
+	 */
+	public long getBytesSent() {
+		return bytesSent;
+	}
+
+	/**
+	 * @return the number of requests served per stub mapping id.
+	 */
+	public Map<UUID, Long> getStubHits() {
+		return stubHits;
+	}
+
+	/**
+	 * @return the average number of requests per second since the metrics were created or reset.
+	 */
+	public double getRequestRate() {
+		return elapsedNanos <= 0 ? 0 : requests * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+	}
+
+	/**
+	 * @param percentile between {@code 0} and {@code 100}
+	 * @return the latency in milliseconds that the given percentage of requests did not exceed, with a
+	 * relative error of at most 3%.
+	 */
+	public long getLatencyAtPercentile(final double percentile) {
+
+		final long totalCount = getLatencyCount();
+		if (totalCount == 0) {
+			return 0;
+		}
+		final long countAtPercentile = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * totalCount));
+		long count = 0;
+		for (int i = 0; i < latencyCounts.length; i++) {
+			count += latencyCounts[i];
+			if (count >= countAtPercentile) {
+				return LatencyHistogram.highestValueOf(i);
+			}
+		}
+		return getMaxLatency();
+	}
+
+	public long getMaxLatency() {
+		for (int i = latencyCounts.length - 1; i >= 0; i--) {
+			if (latencyCounts[i] > 0) {
+				return LatencyHistogram.highestValueOf(i);
+			}
+		}
+		return 0;
+	}
+
+	private long getLatencyCount() {
+		long count = 0;
+		for (final long bucketCount : latencyCounts) {
+			count += bucketCount;
+		}
+		return count;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT,
+				"requests=%d, unmatched=%d, rate=%.1f/s, latency[ms] p50=%d p90=%d p99=%d max=%d, bytes in=%d out=%d, stub hits=%s",
+				requests, unmatchedRequests, getRequestRate(), getLatencyAtPercentile(50), getLatencyAtPercentile(90),
+				getLatencyAtPercentile(99), getMaxLatency(), bytesReceived, bytesSent, stubHits);
+	}
+}
@@ -0,0 +1,93 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static java.util.Arrays.asList;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import com.github.tomakehurst.wiremock.common.AsynchronousResponseSettings;
+import com.github.tomakehurst.wiremock.common.HttpsSettings;
+import com.github.tomakehurst.wiremock.common.ProxySettings;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.extension.Extension;
+
+/**
+ * Value object identifying {@link Options} that result in interchangeable servers.
+ *
+ * @author Jens Piegsa
+ */
+final class OptionsFingerprint {
+
+	private final List<Object> components;
+
+	private OptionsFingerprint(final List<Object> components) {
+		this.components = components;
+	}
+
+	static OptionsFingerprint of(final Options options) {
+
+		final HttpsSettings https = options.httpsSettings();
+		final ProxySettings proxy = options.proxyVia();
+		final AsynchronousResponseSettings async = options.getAsynchronousResponseSettings();
+
+		return new OptionsFingerprint(asList(
+				options.portNumber(),
+				https.port(),
+				https.keyStorePath(),
+				https.trustStorePath(),
+				https.needClientAuth(),
+				options.bindAddress(),
+				options.containerThreads(),
+				String.valueOf(options.jettySettings()),
+				options.browserProxyingEnabled(),
+				proxy == null ? null : proxy.host() + ':' + proxy.port(),
+				options.shouldPreserveHostHeader(),
+				options.proxyHostHeader(),
+				options.filesRoot().getPath(),
+				typeOf(options.mappingsLoader()),
+				options.requestJournalDisabled(),
+				options.maxRequestJournalEntries().orNull(),
+				String.valueOf(options.matchingHeaders()),
+				typeOf(options.notifier()),
+				typeOf(options.httpServerFactory()),
+				typeOf(options.threadPoolFactory()),
+				typeOf(options.networkTrafficListener()),
+				typeOf(options.getAdminAuthenticator()),
+				options.getHttpsRequiredForAdminApi(),
+				typeOf(options.getNotMatchedRenderer()),
+				async != null && async.isEnabled(),
+				async == null ? 0 : async.getThreads(),
+				extensionTypes(options)));
+	}
+
+	private static String typeOf(final Object component) {
+		return Optional.ofNullable(component)
+				.map(Object::getClass)
+				.map(Class::getName)
+				.orElse(null);
+	}
+
+	private static Map<String, String> extensionTypes(final Options options) {
+		final Map<String, String> extensionTypes = new TreeMap<>();
+		options.extensionsOfType(Extension.class).forEach((name, extension) -> extensionTypes.put(name, typeOf(extension)));
+		return extensionTypes;
+	}
+
+	@Override
+	public boolean equals(final Object other) {
+		return this == other
+				|| other instanceof OptionsFingerprint && components.equals(((OptionsFingerprint) other).components);
+	}
+
+	@Override
+	public int hashCode() {
+		return components.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "OptionsFingerprint" + components;
+	}
+}
@@ -0,0 +1,48 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import java.util.UUID;
+
+import com.github.tomakehurst.wiremock.http.Request;
+
+/**
+ * The share of a server owned by a single test, if servers are {@link WireMockSettings#partitioned() partitioned}.
+ * Requests of the test carry the id of its partition in the {@value #HEADER} header, which the stubs registered by
+ * its client require. Its verifications, the check for unmatched requests and resets only regard these requests and
+ * stubs, so concurrent tests can share a server.
+ *
+ * @author Jens Piegsa
+ */
+public final class Partition {
+
+	public static final String HEADER = "X-WireMock-Partition";
+
+	private final String id;
+
+	private Partition(final String id) {
+		this.id = id;
+	}
+
+	/**
+	 * @return a partition with an id unique across test runs, so requests of former partitions are never attributed
+	 * to it.
+	 */
+	static Partition create() {
+		return new Partition(UUID.randomUUID().toString());
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * @return {@code true} if the given request carries the id of this partition.
+	 */
+	boolean contains(final Request request) {
+		return id.equals(request.getHeader(HEADER));
+	}
+
+	@Override
+	public String toString() {
+		return HEADER + ": " + id;
+	}
+}
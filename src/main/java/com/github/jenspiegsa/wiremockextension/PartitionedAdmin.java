@@ -0,0 +1,377 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.anyUrl;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.matchingJsonPath;
+import static com.github.tomakehurst.wiremock.matching.RequestPatternBuilder.newRequestPattern;
+import static java.util.stream.Collectors.toList;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.tomakehurst.wiremock.admin.LimitAndOffsetPaginator;
+import com.github.tomakehurst.wiremock.admin.model.GetScenariosResult;
+import com.github.tomakehurst.wiremock.admin.model.GetServeEventsResult;
+import com.github.tomakehurst.wiremock.admin.model.ListStubMappingsResult;
+import com.github.tomakehurst.wiremock.admin.model.SingleServedStubResult;
+import com.github.tomakehurst.wiremock.admin.model.SingleStubMappingResult;
+import com.github.tomakehurst.wiremock.common.Metadata;
+import com.github.tomakehurst.wiremock.core.Admin;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.global.GlobalSettings;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.matching.MatchResult;
+import com.github.tomakehurst.wiremock.matching.MultiValuePattern;
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.github.tomakehurst.wiremock.matching.StringValuePattern;
+import com.github.tomakehurst.wiremock.matching.ValueMatcher;
+import com.github.tomakehurst.wiremock.recording.RecordSpec;
+import com.github.tomakehurst.wiremock.recording.RecordSpecBuilder;
+import com.github.tomakehurst.wiremock.recording.RecordingStatusResult;
+import com.github.tomakehurst.wiremock.recording.SnapshotRecordResult;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import com.github.tomakehurst.wiremock.verification.FindNearMissesResult;
+import com.github.tomakehurst.wiremock.verification.FindRequestsResult;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import com.github.tomakehurst.wiremock.verification.VerificationResult;
+import com.google.common.base.Optional;
+
+/**
+ * Administration of a {@link Partition} of a server. Stubs added are scoped to the partition by requiring its
+ * header, tagged by metadata and their scenarios are prefixed by the partition id. Requests are only found, counted
+ * and reset within the partition. The request journal cannot remove single requests, so reset requests are merely
+ * hidden. Operations affecting the whole server, like recording or global settings, are not supported.
+ *
+ * @author Jens Piegsa
+ */
+final class PartitionedAdmin implements Admin, StubImporter {
+
+	static final String METADATA_KEY = "wiremockExtensionPartition";
+
+	private final Admin delegate;
+	private final Partition partition;
+	private final Set<String> resetRequests = ConcurrentHashMap.newKeySet();
+
+	PartitionedAdmin(final Admin delegate, final Partition partition) {
+		this.delegate = delegate;
+		this.partition = partition;
+	}
+
+	/**
+	 * Scopes the given stub to the partition, modifying it. Stub ids are unique per server, so a stub whose id is
+	 * taken by another partition, e.g. when applying the same {@link WireMockStubs}, receives a new one.
+	 *
+	 * @throws IllegalArgumentException if the stub is matched by a custom matcher extension
+	 */
+	@Override
+	public void addStubMapping(final StubMapping stubMapping) {
+		final StubMapping existing = stubMapping.getId() == null ? null : delegate.getStubMapping(stubMapping.getId()).getItem();
+		if (existing != null && !isScoped(existing)) {
+			stubMapping.setId(UUID.randomUUID());
+		}
+		delegate.addStubMapping(scope(stubMapping));
+	}
+
+	/**
+	 * Scopes the given stubs to the partition and registers them at once, if supported by the server. Imported stubs
+	 * receive new ids, since stub sets are imported by all partitions.
+	 */
+	@Override
+	public void importStubMappings(final List<StubMapping> stubMappings) {
+		stubMappings.forEach(stubMapping -> stubMapping.setId(UUID.randomUUID()));
+		stubMappings.forEach(this::scope);
+		if (delegate instanceof StubImporter) {
+			((StubImporter) delegate).importStubMappings(stubMappings);
+		} else {
+			stubMappings.forEach(delegate::addStubMapping);
+		}
+	}
+
+	@Override
+	public void editStubMapping(final StubMapping stubMapping) {
+		delegate.editStubMapping(scope(stubMapping));
+	}
+
+	@Override
+	public void removeStubMapping(final StubMapping stubMapping) {
+		delegate.removeStubMapping(stubMapping);
+	}
+
+	@Override
+	public ListStubMappingsResult listAllStubMappings() {
+		return delegate.findAllStubsByMetadata(partitionMetadata());
+	}
+
+	@Override
+	public SingleStubMappingResult getStubMapping(final UUID id) {
+		final Optional<StubMapping> stubMapping = Optional.fromNullable(delegate.getStubMapping(id).getItem());
+		return SingleStubMappingResult.fromOptional(stubMapping.isPresent() && isScoped(stubMapping.get())
+				? stubMapping : Optional.absent());
+	}
+
+	@Override
+	public void saveMappings() {
+		throw unsupported("Saving mappings");
+	}
+
+	@Override
+	public void resetRequests() {
+		final FindRequestsResult requests = delegate.findRequestsMatching(partitionRequests());
+		if (!requests.requestJournalIsDisabled()) {
+			requests.getRequests().forEach(request -> resetRequests.add(keyOf(request)));
+		}
+	}
+
+	/**
+	 * Resets the scenarios of the partition by registering their stubs again, since scenarios of a server can only
+	 * be reset altogether.
+	 */
+	@Override
+	public void resetScenarios() {
+		final List<StubMapping> scenarioStubs = listAllStubMappings().getMappings().stream()
+				.filter(StubMapping::isInScenario)
+				.sorted(Comparator.comparingLong(StubMapping::getInsertionIndex))
+				.collect(toList());
+		scenarioStubs.forEach(delegate::removeStubMapping);
+		scenarioStubs.forEach(delegate::addStubMapping);
+	}
+
+	@Override
+	public void resetMappings() {
+		delegate.removeStubsByMetadata(partitionMetadata());
+	}
+
+	@Override
+	public void resetAll() {
+		resetMappings();
+		resetRequests();
+	}
+
+	@Override
+	public void resetToDefaultMappings() {
+		resetMappings();
+	}
+
+	@Override
+	public GetServeEventsResult getServeEvents() {
+		final GetServeEventsResult serveEvents = delegate.getServeEvents();
+		if (serveEvents.isRequestJournalDisabled()) {
+			return serveEvents;
+		}
+		return GetServeEventsResult.requestJournalEnabled(LimitAndOffsetPaginator.none(serveEvents.getServeEvents().stream()
+				.filter(serveEvent -> isOwnRequest(serveEvent.getRequest()))
+				.collect(toList())));
+	}
+
+	@Override
+	public SingleServedStubResult getServedStub(final UUID id) {
+		return delegate.getServedStub(id);
+	}
+
+	@Override
+	public VerificationResult countRequestsMatching(final RequestPattern requestPattern) {
+		if (resetRequests.isEmpty() && requestPattern.getCustomMatcher() == null) {
+			// counted by the server
+			return delegate.countRequestsMatching(scope(requestPattern));
+		}
+		final FindRequestsResult requests = findRequestsMatching(requestPattern);
+		return requests.requestJournalIsDisabled()
+				? VerificationResult.withRequestJournalDisabled() : VerificationResult.withCount(requests.getRequests().size());
+	}
+
+	@Override
+	public FindRequestsResult findRequestsMatching(final RequestPattern requestPattern) {
+		// patterns of custom matcher extensions cannot be scoped, their requests are filtered instead
+		return filter(delegate.findRequestsMatching(requestPattern.getCustomMatcher() == null ? scope(requestPattern) : requestPattern));
+	}
+
+	@Override
+	public FindRequestsResult findUnmatchedRequests() {
+		return filter(delegate.findUnmatchedRequests());
+	}
+
+	@Override
+	public FindNearMissesResult findTopNearMissesFor(final LoggedRequest loggedRequest) {
+		return withPartitionStubs(delegate.findTopNearMissesFor(loggedRequest));
+	}
+
+	@Override
+	public FindNearMissesResult findTopNearMissesFor(final RequestPattern requestPattern) {
+		return new FindNearMissesResult(delegate.findTopNearMissesFor(requestPattern).getNearMisses().stream()
+				.filter(nearMiss -> isOwnRequest(nearMiss.getRequest()))
+				.collect(toList()));
+	}
+
+	@Override
+	public FindNearMissesResult findNearMissesForUnmatchedRequests() {
+		return new FindNearMissesResult(delegate.findNearMissesForUnmatchedRequests().getNearMisses().stream()
+				.filter(nearMiss -> isOwnRequest(nearMiss.getRequest()))
+				.filter(nearMiss -> nearMiss.getStubMapping() == null || isScoped(nearMiss.getStubMapping()))
+				.collect(toList()));
+	}
+
+	@Override
+	public GetScenariosResult getAllScenarios() {
+		final String prefix = scenarioPrefix();
+		return new GetScenariosResult(delegate.getAllScenarios().getScenarios().stream()
+				.filter(scenario -> scenario.getName().startsWith(prefix))
+				.collect(toList()));
+	}
+
+	@Override
+	public void updateGlobalSettings(final GlobalSettings settings) {
+		throw unsupported("Updating global settings");
+	}
+
+	@Override
+	public SnapshotRecordResult snapshotRecord() {
+		throw unsupported("Recording");
+	}
+
+	@Override
+	public SnapshotRecordResult snapshotRecord(final RecordSpec spec) {
+		throw unsupported("Recording");
+	}
+
+	@Override
+	public SnapshotRecordResult snapshotRecord(final RecordSpecBuilder spec) {
+		throw unsupported("Recording");
+	}
+
+	@Override
+	public void startRecording(final String targetBaseUrl) {
+		throw unsupported("Recording");
+	}
+
+	@Override
+	public void startRecording(final RecordSpec spec) {
+		throw unsupported("Recording");
+	}
+
+	@Override
+	public void startRecording(final RecordSpecBuilder recordSpec) {
+		throw unsupported("Recording");
+	}
+
+	@Override
+	public SnapshotRecordResult stopRecording() {
+		throw unsupported("Recording");
+	}
+
+	@Override
+	public RecordingStatusResult getRecordingStatus() {
+		return delegate.getRecordingStatus();
+	}
+
+	@Override
+	public Options getOptions() {
+		return delegate.getOptions();
+	}
+
+	@Override
+	public void shutdownServer() {
+		throw unsupported("Shutting down the server");
+	}
+
+	@Override
+	public ListStubMappingsResult findAllStubsByMetadata(final StringValuePattern pattern) {
+		return new ListStubMappingsResult(LimitAndOffsetPaginator.none(delegate.findAllStubsByMetadata(pattern).getMappings().stream()
+				.filter(this::isScoped)
+				.collect(toList())));
+	}
+
+	@Override
+	public void removeStubsByMetadata(final StringValuePattern pattern) {
+		findAllStubsByMetadata(pattern).getMappings().forEach(delegate::removeStubMapping);
+	}
+
+	Partition getPartition() {
+		return partition;
+	}
+
+	private StubMapping scope(final StubMapping stubMapping) {
+		stubMapping.setRequest(scope(stubMapping.getRequest()));
+		final Map<String, Object> metadata = new LinkedHashMap<>();
+		if (stubMapping.getMetadata() != null) {
+			metadata.putAll(stubMapping.getMetadata());
+		}
+		metadata.put(METADATA_KEY, partition.getId());
+		stubMapping.setMetadata(new Metadata(metadata));
+		if (stubMapping.isInScenario() && !stubMapping.getScenarioName().startsWith(scenarioPrefix())) {
+			stubMapping.setScenarioName(scenarioPrefix() + stubMapping.getScenarioName());
+		}
+		return stubMapping;
+	}
+
+	private RequestPattern scope(final RequestPattern requestPattern) {
+		if (requestPattern.getCustomMatcher() != null) {
+			throw new IllegalArgumentException("Stubs matched by custom matcher extensions cannot be partitioned: " + requestPattern);
+		}
+		if (requestPattern.hasCustomMatcher()) {
+			final ValueMatcher<Request> matcher = requestPattern.getMatcher();
+			return new RequestPattern(request -> partition.contains(request) ? matcher.match(request) : MatchResult.noMatch());
+		}
+		final Map<String, MultiValuePattern> headers = new LinkedHashMap<>();
+		if (requestPattern.getHeaders() != null) {
+			headers.putAll(requestPattern.getHeaders());
+		}
+		headers.put(Partition.HEADER, MultiValuePattern.of(equalTo(partition.getId())));
+		return new RequestPattern(requestPattern.getUrlMatcher(), requestPattern.getMethod(), headers,
+				requestPattern.getQueryParameters(), requestPattern.getCookies(), requestPattern.getBasicAuthCredentials(),
+				requestPattern.getBodyPatterns(), null, requestPattern.getMultipartPatterns());
+	}
+
+	private boolean isScoped(final StubMapping stubMapping) {
+		return stubMapping.getMetadata() != null && partition.getId().equals(stubMapping.getMetadata().get(METADATA_KEY));
+	}
+
+	private StringValuePattern partitionMetadata() {
+		return matchingJsonPath("$." + METADATA_KEY, equalTo(partition.getId()));
+	}
+
+	private String scenarioPrefix() {
+		return partition.getId() + ":";
+	}
+
+	private RequestPattern partitionRequests() {
+		return newRequestPattern(RequestMethod.ANY, anyUrl()).withHeader(Partition.HEADER, equalTo(partition.getId())).build();
+	}
+
+	private boolean isOwnRequest(final LoggedRequest request) {
+		return partition.contains(request) && !resetRequests.contains(keyOf(request));
+	}
+
+	private FindRequestsResult filter(final FindRequestsResult requests) {
+		if (requests.requestJournalIsDisabled()) {
+			return requests;
+		}
+		return FindRequestsResult.withRequests(requests.getRequests().stream()
+				.filter(this::isOwnRequest)
+				.collect(toList()));
+	}
+
+	/**
+	 * @return a key identifying the given request in the journal, which does not expose the id of its serve event
+	 * in all queries.
+	 */
+	private static String keyOf(final LoggedRequest request) {
+		return request.getLoggedDate().getTime() + " " + request.getMethod() + " " + request.getAbsoluteUrl() + " "
+				+ request.getBodyAsBase64();
+	}
+
+	private FindNearMissesResult withPartitionStubs(final FindNearMissesResult nearMisses) {
+		return new FindNearMissesResult(nearMisses.getNearMisses().stream()
+				.filter(nearMiss -> nearMiss.getStubMapping() == null || isScoped(nearMiss.getStubMapping()))
+				.collect(toList()));
+	}
+
+	private static UnsupportedOperationException unsupported(final String operation) {
+		return new UnsupportedOperationException(operation + " is not supported for a partition of a server");
+	}
+}
@@ -0,0 +1,209 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.junit.jupiter.api.extension.ExtensionConfigurationException;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import com.github.tomakehurst.wiremock.core.Options;
+
+/**
+ * Hands out ports to the servers of a JVM from blocks reserved for it, so parallel tests and forks of a build do not
+ * bind the same ports. Forks reserve blocks of {@value #FIRST_PORT} to {@value #LAST_PORT} by locking a byte of a
+ * lock file per block, e.g. in the build directory, which is held until the allocator is closed or the fork exits,
+ * so blocks of live forks are never handed out again. That range is below the ephemeral ports assigned by the
+ * operating system to dynamic ports. Ports still bound by other processes are skipped, and each port handed out is
+ * kept bound until its server starts. Kept in the root {@link ExtensionContext.Store}.
+ *
+ * @author Jens Piegsa
+ */
+final class PortAllocator implements ExtensionContext.Store.CloseableResource {
+
+	/**
+	 * Configuration parameter enabling the allocation of ports for servers created by the extension.
+	 */
+	static final String ENABLED_PROPERTY_NAME = "wiremock.extension.ports.enabled";
+
+	/**
+	 * Configuration parameter locating the lock file shared by all forks of a build.
+	 */
+	static final String LOCK_FILE_PROPERTY_NAME = "wiremock.extension.ports.lockFile";
+
+	/**
+	 * Configuration parameter setting the number of ports reserved by a fork at once.
+	 */
+	static final String BLOCK_SIZE_PROPERTY_NAME = "wiremock.extension.ports.blockSize";
+
+	static final String DEFAULT_LOCK_FILE = "target/wiremock-extension-ports.lock";
+	static final int DEFAULT_BLOCK_SIZE = 20;
+	static final int FIRST_PORT = 10000;
+	static final int LAST_PORT = 32767;
+
+	private static final Set<Integer> ALLOCATED_PORTS = ConcurrentHashMap.newKeySet();
+	private static final ConcurrentMap<Integer, ServerSocket> BOUND_PORTS = new ConcurrentHashMap<>();
+
+	private final Path lockFile;
+	private final int blockSize;
+	private final int blockCount;
+	private final List<Integer> ports = new ArrayList<>();
+
+	private FileChannel channel;
+	private int nextBlock;
+	private int nextPort;
+	private int blockEnd;
+
+	PortAllocator(final Path lockFile, final int blockSize) {
+		if (blockSize < 1 || blockSize > LAST_PORT - FIRST_PORT + 1) {
+			throw new ExtensionConfigurationException("Configuration parameter " + BLOCK_SIZE_PROPERTY_NAME
+					+ " must be between 1 and " + (LAST_PORT - FIRST_PORT + 1) + ", but was: " + blockSize);
+		}
+		this.lockFile = lockFile;
+		this.blockSize = blockSize;
+		blockCount = (LAST_PORT - FIRST_PORT + 1) / blockSize;
+	}
+
+	/**
+	 * @return the given options with an allocated port instead of a dynamic port. Fixed ports are kept, even the
+	 * default port.
+	 */
+	Options applyTo(final Options options) {
+		if (options.portNumber() != Options.DYNAMIC_PORT) {
+			return options;
+		}
+		final int port = allocate();
+		return new DelegatingOptions(options) {
+			@Override
+			public int portNumber() {
+				return port;
+			}
+		};
+	}
+
+	/**
+	 * @return {@code true} if the given port was allocated in this JVM, so it is not handed out again.
+	 */
+	static boolean isAllocated(final int port) {
+		return ALLOCATED_PORTS.contains(port);
+	}
+
+	/**
+	 * Unbinds an allocated port right before its server binds it. The port remains allocated, so a server stopped
+	 * can be started again on it.
+	 */
+	static void unbind(final int port) {
+		final ServerSocket socket = BOUND_PORTS.remove(port);
+		if (socket != null) {
+			closeQuietly(socket);
+		}
+	}
+
+	/**
+	 * @return a port of the blocks reserved by this JVM, bound until {@link #unbind(int)}.
+	 * @throws ExtensionConfigurationException if the lock file is not accessible or no port is free
+	 */
+	synchronized int allocate() {
+		while (true) {
+			if (nextPort >= blockEnd) {
+				nextPort = FIRST_PORT + reserveBlock() * blockSize;
+				blockEnd = nextPort + blockSize;
+			}
+			final int port = nextPort++;
+			final ServerSocket socket = bind(port);
+			if (socket != null) {
+				ALLOCATED_PORTS.add(port);
+				BOUND_PORTS.put(port, socket);
+				ports.add(port);
+				return port;
+			}
+		}
+	}
+
+	/**
+	 * Releases the blocks reserved and unbinds the ports of servers not started.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		ports.forEach(PortAllocator::unbind);
+		ports.clear();
+		if (channel != null) {
+			// releases the locks of all blocks
+			channel.close();
+			channel = null;
+		}
+	}
+
+	/**
+	 * @return the index of the next block not locked by this or another allocator, locked until this allocator is
+	 * closed.
+	 */
+	private int reserveBlock() {
+		try {
+			if (channel == null) {
+				final Path directory = lockFile.toAbsolutePath().getParent();
+				if (directory != null) {
+					Files.createDirectories(directory);
+				}
+				channel = FileChannel.open(lockFile, CREATE, WRITE);
+			}
+			for (int attempts = 0; attempts < blockCount; attempts++) {
+				final int block = nextBlock;
+				nextBlock = (block + 1) % blockCount;
+				if (tryLock(block)) {
+					return block;
+				}
+			}
+		} catch (final IOException e) {
+			throw new ExtensionConfigurationException("Cannot reserve ports by lock file " + lockFile, e);
+		}
+		throw new ExtensionConfigurationException("No free port between " + FIRST_PORT + " and " + LAST_PORT + ".");
+	}
+
+	private boolean tryLock(final int block) throws IOException {
+		try {
+			return channel.tryLock(block, 1, false) != null;
+		} catch (final OverlappingFileLockException e) {
+			// locked by this or another allocator of this JVM
+			return false;
+		}
+	}
+
+	/**
+	 * @return a socket bound to the given port, or {@code null} if in use.
+	 */
+	private static ServerSocket bind(final int port) {
+		ServerSocket socket = null;
+		try {
+			socket = new ServerSocket();
+			socket.setReuseAddress(true);
+			socket.bind(new InetSocketAddress(port), 1);
+			return socket;
+		} catch (final IOException e) {
+			if (socket != null) {
+				closeQuietly(socket);
+			}
+			return null;
+		}
+	}
+
+	private static void closeQuietly(final ServerSocket socket) {
+		try {
+			socket.close();
+		} catch (final IOException e) {
+			// the port is released anyway
+		}
+	}
+}
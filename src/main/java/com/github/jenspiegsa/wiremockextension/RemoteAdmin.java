@@ -0,0 +1,128 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.util.List;
+
+import org.junit.jupiter.api.extension.ExtensionConfigurationException;
+
+import com.github.tomakehurst.wiremock.client.HttpAdminClient;
+import com.github.tomakehurst.wiremock.client.VerificationException;
+import com.github.tomakehurst.wiremock.common.Json;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+
+/**
+ * Admin client of an already running server the extension connects to instead of starting servers, if
+ * {@link WireMockSettings#remote() remote}. Stubs are imported in batches by the {@link StubImportExtension}, if
+ * installed at the server, otherwise one by one.
+ *
+ * @author Jens Piegsa
+ */
+final class RemoteAdmin extends HttpAdminClient implements StubImporter {
+
+	/**
+	 * Configuration parameter enabling the remote mode for all test classes not managing servers themselves.
+	 */
+	static final String ENABLED_PROPERTY_NAME = "wiremock.extension.remote.enabled";
+	static final String URL_PROPERTY_NAME = "wiremock.extension.remote.url";
+	static final String DEFAULT_URL = "http://localhost:8080";
+
+	private final String baseUrl;
+	private volatile boolean importSupported = true;
+
+	private RemoteAdmin(final URI uri) {
+		super(uri.getScheme(), uri.getHost(), uri.getPort() < 0 ? defaultPort(uri) : uri.getPort(),
+				uri.getRawPath() == null ? "" : trimTrailingSlash(uri.getRawPath()));
+		baseUrl = trimTrailingSlash(uri.toString());
+	}
+
+	/**
+	 * @throws ExtensionConfigurationException if the url is not an absolute HTTP(S) url
+	 */
+	static RemoteAdmin connect(final String url) {
+		final URI uri;
+		try {
+			uri = URI.create(url.trim());
+		} catch (final IllegalArgumentException e) {
+			throw new ExtensionConfigurationException("Configuration parameter " + URL_PROPERTY_NAME + " must be a url, but was: " + url, e);
+		}
+		if (!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme()) || uri.getHost() == null) {
+			throw new ExtensionConfigurationException("Configuration parameter " + URL_PROPERTY_NAME
+					+ " must be an absolute http(s) url, but was: " + url);
+		}
+		return new RemoteAdmin(uri);
+	}
+
+	/**
+	 * @return the url of the server, which requests of tests are sent to.
+	 */
+	String baseUrl() {
+		return baseUrl;
+	}
+
+	@Override
+	public void importStubMappings(final List<StubMapping> stubMappings) {
+		if (stubMappings.isEmpty()) {
+			return;
+		}
+		if (!importSupported || !tryImport(stubMappings)) {
+			stubMappings.forEach(this::addStubMapping);
+		}
+	}
+
+	/**
+	 * @return {@code false} if the server does not support imports.
+	 */
+	private boolean tryImport(final List<StubMapping> stubMappings) {
+		final String url = baseUrl + StubImportExtension.PATH;
+		try {
+			final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+			connection.setRequestMethod("POST");
+			connection.setRequestProperty("Content-Type", "application/json");
+			connection.setDoOutput(true);
+			try (OutputStream body = connection.getOutputStream()) {
+				body.write(Json.write(singletonMap("mappings", stubMappings)).getBytes(UTF_8));
+			}
+			final int status = connection.getResponseCode();
+			drain(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+			if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+				importSupported = false;
+				return false;
+			}
+			if (status >= 300) {
+				throw new VerificationException("Expected status 2xx for " + url + " but was " + status);
+			}
+			return true;
+		} catch (final IOException e) {
+			throw new UncheckedIOException("Cannot import stub mappings at " + url, e);
+		}
+	}
+
+	private static void drain(final InputStream body) throws IOException {
+		if (body == null) {
+			return;
+		}
+		try (InputStream in = body) {
+			final byte[] buffer = new byte[1024];
+			while (in.read(buffer) != -1) {
+				// keeps the connection alive for reuse
+			}
+		}
+	}
+
+	private static int defaultPort(final URI uri) {
+		return "https".equals(uri.getScheme()) ? 443 : 80;
+	}
+
+	private static String trimTrailingSlash(final String value) {
+		return value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+	}
+}
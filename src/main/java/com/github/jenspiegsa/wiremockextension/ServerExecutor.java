@@ -0,0 +1,215 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static org.junit.platform.commons.util.ExceptionUtils.throwAsUncheckedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import com.github.jenspiegsa.wiremockextension.ExtensionEvents.Span;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.Options;
+
+/**
+ * Starts and stops multiple servers concurrently on a bounded number of threads. Failures of the individual
+ * servers are aggregated into a single exception with the further failures as suppressed exceptions.
+ * Kept in the root {@link ExtensionContext.Store}, so servers still stopping in the background are awaited at
+ * the end of the test run.
+ *
+ * @author Jens Piegsa
+ */
+class ServerExecutor implements ExtensionContext.Store.CloseableResource {
+
+	/**
+	 * Configuration parameter limiting the number of servers started or stopped at the same time.
+	 */
+	static final String PARALLELISM_PROPERTY_NAME = "wiremock.extension.parallelism";
+
+	static final int DEFAULT_PARALLELISM = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+	private final ExecutorService executor;
+	private final Queue<Throwable> backgroundFailures = new ConcurrentLinkedQueue<>();
+	private final Map<WireMockServer, Future<?>> pendingStops = new ConcurrentHashMap<>();
+
+	ServerExecutor(final int parallelism) {
+		executor = Executors.newFixedThreadPool(parallelism, new DaemonThreadFactory());
+	}
+
+	/**
+	 * Starts all servers not yet running and waits for them. Concurrent tests sharing a server start it once.
+	 *
+	 * @param testId the unique id of the test starting the servers, recorded by {@link ExtensionEvents}
+	 */
+	void startAll(final List<WireMockServer> servers, final String testId) {
+
+		// a server still stopping in the background is running until stopped
+		awaitPendingStops(servers);
+		final List<WireMockServer> stoppedServers = new ArrayList<>();
+		for (final WireMockServer server : servers) {
+			if (!server.isRunning()) {
+				stoppedServers.add(server);
+			}
+		}
+		awaitAll(submitAll(stoppedServers, server -> startIfStopped(server, testId)));
+	}
+
+	/**
+	 * Stops all servers. Only servers bound to fixed ports are waited for, since a following test may
+	 * bind them again. Servers on dynamic or allocated ports drain in the background, which a later
+	 * {@link #startAll(List, String)} of the same server waits for.
+	 */
+	void stopAll(final List<WireMockServer> servers, final String testId) {
+
+		final List<WireMockServer> fixedPortServers = new ArrayList<>();
+		for (final WireMockServer server : servers) {
+			if (!server.isRunning()) {
+				continue;
+			}
+			if (isBoundToDynamicPorts(server)) {
+				final FutureTask<Void> stop = new FutureTask<>(() -> stopInBackground(server, testId), null);
+				pendingStops.put(server, stop);
+				executor.execute(stop);
+			} else {
+				fixedPortServers.add(server);
+			}
+		}
+		awaitAll(submitAll(fixedPortServers, server -> stop(server, testId)));
+	}
+
+	@Override
+	public void close() throws InterruptedException {
+
+		executor.shutdown();
+		if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+			executor.shutdownNow();
+		}
+		pendingStops.clear();
+		throwAggregated(new ArrayList<>(backgroundFailures));
+	}
+
+	private void awaitPendingStops(final List<WireMockServer> servers) {
+
+		final List<Future<?>> stops = new ArrayList<>();
+		for (final WireMockServer server : servers) {
+			final Future<?> stop = pendingStops.remove(server);
+			if (stop != null) {
+				stops.add(stop);
+			}
+		}
+		// failures are reported when the executor is closed
+		for (final Future<?> stop : stops) {
+			try {
+				stop.get();
+			} catch (final ExecutionException e) {
+				// recorded by stopInBackground(...)
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private List<Future<?>> submitAll(final List<WireMockServer> servers, final Consumer<WireMockServer> operation) {
+
+		final List<Future<?>> futures = new ArrayList<>();
+		if (servers.size() == 1) {
+			// not worth a thread hop
+			operation.accept(servers.get(0));
+			return futures;
+		}
+		for (final WireMockServer server : servers) {
+			futures.add(executor.submit(() -> operation.accept(server)));
+		}
+		return futures;
+	}
+
+	private static void awaitAll(final List<Future<?>> futures) {
+
+		final List<Throwable> failures = new ArrayList<>();
+		for (final Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (final ExecutionException e) {
+				failures.add(e.getCause());
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failures.add(e);
+			}
+		}
+		throwAggregated(failures);
+	}
+
+	private static void throwAggregated(final List<Throwable> failures) {
+
+		if (!failures.isEmpty()) {
+			final Throwable failure = failures.get(0);
+			failures.subList(1, failures.size()).forEach(failure::addSuppressed);
+			throw throwAsUncheckedException(failure);
+		}
+	}
+
+	private static void startIfStopped(final WireMockServer server, final String testId) {
+		synchronized (server) {
+			if (!server.isRunning()) {
+				final Span span = ExtensionEvents.get().begin(ExtensionEvents.SERVER_START, testId);
+				try {
+					server.start();
+				} finally {
+					span.on(server).end();
+				}
+			}
+		}
+	}
+
+	private static void stop(final WireMockServer server, final String testId) {
+		// the port is gone once stopped
+		final Span span = ExtensionEvents.get().begin(ExtensionEvents.SERVER_STOP, testId).on(server);
+		try {
+			server.stop();
+		} finally {
+			span.end();
+		}
+	}
+
+	private void stopInBackground(final WireMockServer server, final String testId) {
+		try {
+			stop(server, testId);
+		} catch (final RuntimeException e) {
+			backgroundFailures.add(e);
+		}
+	}
+
+	private static boolean isBoundToDynamicPorts(final WireMockServer server) {
+		final Options options = server.getOptions();
+		// allocated ports are not handed out again
+		return (options.portNumber() == 0 || PortAllocator.isAllocated(options.portNumber())) && options.httpsSettings().port() <= 0;
+	}
+
+	private static final class DaemonThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger threadNumber = new AtomicInteger();
+
+		@Override
+		public Thread newThread(final Runnable runnable) {
+			final Thread thread = new Thread(runnable, "wiremock-extension-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+/**
+ * The servers registered for a test class, stopped when the owning {@link ExtensionContext} is closed.
+ *
+ * @author Jens Piegsa
+ */
+class ServerGroup implements ExtensionContext.Store.CloseableResource {
+
+	private final List<WireMockServer> servers;
+	private final ServerLifecycle lifecycle;
+	private final AtomicBoolean closed = new AtomicBoolean();
+	private final AtomicBoolean baselineMarked = new AtomicBoolean();
+
+	ServerGroup(final List<WireMockServer> servers, final ServerLifecycle lifecycle) {
+		this.servers = unmodifiableList(servers);
+		this.lifecycle = lifecycle;
+	}
+
+	List<WireMockServer> getServers() {
+		return servers;
+	}
+
+	ServerLifecycle getLifecycle() {
+		return lifecycle;
+	}
+
+	/**
+	 * @return {@code true} if the servers are kept running and reset between test methods.
+	 */
+	boolean isReusable() {
+		return lifecycle != ServerLifecycle.PER_METHOD;
+	}
+
+	/**
+	 * Marks the baseline of the servers as taken, which reusable servers are rolled back to after each test.
+	 *
+	 * @return {@code true} if the baseline was not taken before and the caller has to take it.
+	 */
+	boolean markBaseline() {
+		return baselineMarked.compareAndSet(false, true);
+	}
+
+	/**
+	 * Marks the group as closed, so its servers are stopped only once per test execution.
+	 *
+	 * @return {@code true} if the group was not closed before and the caller has to stop its servers.
+	 */
+	boolean markClosed() {
+		return closed.compareAndSet(false, true);
+	}
+
+	/**
+	 * Marks the group as open again when its servers are started for a further test, e.g. of a test instance
+	 * shared by all tests of the class, so they are stopped again afterwards.
+	 */
+	void markOpen() {
+		closed.set(false);
+	}
+
+	@Override
+	public void close() {
+		if (!markClosed()) {
+			return;
+		}
+		servers.stream()
+				.filter(WireMockServer::isRunning)
+				.forEach(WireMockServer::stop);
+	}
+}
@@ -0,0 +1,29 @@
+package com.github.jenspiegsa.wiremockextension;
+
+/**
+ * Determines how long the servers of a test class are kept running.
+ *
+ * @author Jens Piegsa
+ */
+public enum ServerLifecycle {
+
+	/**
+	 * Servers are started before and stopped after each test method.
+	 */
+	PER_METHOD,
+
+	/**
+	 * Servers are started once per test class and kept running across its test methods.
+	 * Between two test methods stubs, requests and scenarios are reset.
+	 */
+	PER_CLASS,
+
+	/**
+	 * Servers created by the extension are leased from a JVM-wide pool of running servers that is shared
+	 * by all test classes with equivalent {@link com.github.tomakehurst.wiremock.core.Options}. Within a test
+	 * class this behaves like {@link #PER_CLASS}; afterwards the servers are reset and returned to the pool.
+	 * {@link Managed} servers are created by the test itself and hence treated like {@link #PER_CLASS}, as are servers
+	 * on fixed ports, which would collide with the servers leased to other test classes.
+	 */
+	POOLED
+}
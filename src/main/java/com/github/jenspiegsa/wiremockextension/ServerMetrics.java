@@ -0,0 +1,120 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.tomakehurst.wiremock.core.Admin;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.extension.PostServeAction;
+import com.github.tomakehurst.wiremock.http.LoggedResponse;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+
+/**
+ * Live metrics of the traffic served by a {@link ManagedWireMockServer} with metrics enabled by
+ * {@link #applyTo(Options)}, recorded without locking after each response was sent. Latencies are taken from
+ * WireMock's timing in milliseconds, including added delays unless they are served asynchronously by the
+ * {@link ManagedJettyHttpServer}. Streamed bodies are not counted as bytes sent.
+ *
+ * @author Jens Piegsa
+ */
+public final class ServerMetrics {
+
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder unmatchedRequests = new LongAdder();
+	private final LongAdder bytesReceived = new LongAdder();
+	private final LongAdder bytesSent = new LongAdder();
+	private final ConcurrentMap<UUID, LongAdder> stubHits = new ConcurrentHashMap<>();
+	private final LatencyHistogram latencies = new LatencyHistogram();
+	private volatile long startNanos = System.nanoTime();
+
+	ServerMetrics() {
+	}
+
+	/**
+	 * @return a copy of the metrics recorded since the server was created or the metrics were reset.
+	 */
+	public MetricsSnapshot snapshot() {
+
+		final Map<UUID, Long> hits = new HashMap<>();
+		stubHits.forEach((id, count) -> hits.put(id, count.sum()));
+		return new MetricsSnapshot(requests.sum(), unmatchedRequests.sum(), bytesReceived.sum(), bytesSent.sum(),
+				hits, latencies.copyCounts(), System.nanoTime() - startNanos);
+	}
+
+	public void reset() {
+		requests.reset();
+		unmatchedRequests.reset();
+		bytesReceived.reset();
+		bytesSent.reset();
+		stubHits.clear();
+		latencies.reset();
+		startNanos = System.nanoTime();
+	}
+
+	void record(final ServeEvent serveEvent) {
+
+		requests.increment();
+		if (!serveEvent.getWasMatched()) {
+			unmatchedRequests.increment();
+		}
+		final StubMapping stubMapping = serveEvent.getStubMapping();
+		if (stubMapping != null && stubMapping.getId() != null && serveEvent.getWasMatched()) {
+			stubHits.computeIfAbsent(stubMapping.getId(), id -> new LongAdder()).increment();
+		}
+		final byte[] requestBody = serveEvent.getRequest().getBody();
+		bytesReceived.add(requestBody == null ? 0 : requestBody.length);
+		final LoggedResponse response = serveEvent.getResponse();
+		final byte[] responseBody = response == null ? null : response.getBody();
+		bytesSent.add(responseBody == null ? 0 : responseBody.length);
+		if (serveEvent.getTiming() != null) {
+			latencies.record(serveEvent.getTiming().getTotalTime());
+		}
+	}
+
+	/**
+	 * Enables metrics for a {@link ManagedWireMockServer} created with the returned options, provided by
+	 * {@link ManagedWireMockServer#getMetrics()}. Servers created by the extension record metrics if enabled by
+	 * {@link WireMockSettings#metrics()}. Options passed again are returned as they are.
+	 *
+	 * @return the given options with an additional {@link PostServeAction} recording into new metrics, which are
+	 * shared by all servers created with these options.
+	 */
+	public static Options applyTo(final Options options) {
+		return of(options).isPresent()
+				? options : DelegatingOptions.withExtension(options, new ServerMetrics().new MetricsRecorder());
+	}
+
+	/**
+	 * @return the metrics recorded by a server created with the given options, if enabled by {@link #applyTo(Options)}.
+	 */
+	static Optional<ServerMetrics> of(final Options options) {
+		final PostServeAction recorder = options.extensionsOfType(PostServeAction.class).get(MetricsRecorder.NAME);
+		return recorder instanceof MetricsRecorder
+				? Optional.of(((MetricsRecorder) recorder).getMetrics()) : Optional.empty();
+	}
+
+	private final class MetricsRecorder extends PostServeAction {
+
+		static final String NAME = "wiremock-extension-metrics";
+
+		ServerMetrics getMetrics() {
+			return ServerMetrics.this;
+		}
+
+		@Override
+		public String getName() {
+			return NAME;
+		}
+
+		@Override
+		public void doGlobalAction(final ServeEvent serveEvent, final Admin admin) {
+			record(serveEvent);
+		}
+	}
+}
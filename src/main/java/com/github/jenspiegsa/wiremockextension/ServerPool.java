@@ -0,0 +1,146 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static java.util.Collections.singletonList;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.global.GlobalSettings;
+
+/**
+ * JVM-wide pool of running servers, leased to test classes by {@link OptionsFingerprint}.
+ * Returned servers are reset and kept idle until leased again or evicted when more than
+ * {@code maxIdleServers} servers are idle. Kept in the root {@link ExtensionContext.Store}, so all servers
+ * are stopped at the end of the test run.
+ *
+ * @author Jens Piegsa
+ */
+class ServerPool implements ExtensionContext.Store.CloseableResource {
+
+	/**
+	 * Configuration parameter limiting the number of idle servers kept by the pool.
+	 */
+	static final String MAX_IDLE_SERVERS_PROPERTY_NAME = "wiremock.extension.pool.maxIdleServers";
+
+	static final int DEFAULT_MAX_IDLE_SERVERS = 16;
+
+	private final int maxIdleServers;
+	private final UnaryOperator<Options> portAssignment;
+
+	/** Idle servers, least recently returned first. */
+	private final LinkedList<PooledServer> idleServers = new LinkedList<>();
+	private final Map<WireMockServer, OptionsFingerprint> leasedServers = new IdentityHashMap<>();
+
+	/**
+	 * @param portAssignment applied to the options of each server started, but not to its {@link OptionsFingerprint}
+	 */
+	ServerPool(final int maxIdleServers, final UnaryOperator<Options> portAssignment) {
+		this.maxIdleServers = maxIdleServers;
+		this.portAssignment = portAssignment;
+	}
+
+	/**
+	 * @return {@code true} unless the given options bind a fixed port, which is taken by the server leased to one
+	 * test class, so no equivalent server could be started for another test class meanwhile.
+	 */
+	static boolean canPool(final Options options) {
+		return options.portNumber() == Options.DYNAMIC_PORT && options.httpsSettings().port() <= 0;
+	}
+
+	/**
+	 * @return a running server for the given options, either taken from the idle servers or newly started.
+	 */
+	WireMockServer lease(final Options options) {
+
+		final OptionsFingerprint fingerprint = OptionsFingerprint.of(options);
+		synchronized (this) {
+			final Iterator<PooledServer> candidates = idleServers.descendingIterator();
+			while (candidates.hasNext()) {
+				final PooledServer candidate = candidates.next();
+				if (candidate.fingerprint.equals(fingerprint)) {
+					candidates.remove();
+					leasedServers.put(candidate.server, fingerprint);
+					return candidate.server;
+				}
+			}
+		}
+
+		// started outside the lock, so leases of other configurations are not blocked meanwhile
+		final WireMockServer server = new ManagedWireMockServer(portAssignment.apply(options));
+		server.start();
+		synchronized (this) {
+			leasedServers.put(server, fingerprint);
+		}
+		return server;
+	}
+
+	ServerGroup leaseGroup(final Options options) {
+		return new Lease(lease(options));
+	}
+
+	synchronized void release(final WireMockServer server) {
+
+		final OptionsFingerprint fingerprint = leasedServers.remove(server);
+		if (fingerprint == null) {
+			return;
+		}
+		if (!server.isRunning()) {
+			return;
+		}
+		server.resetAll();
+		UnmatchedRequestTracker.find(server).ifPresent(UnmatchedRequestTracker::reset);
+		((ManagedWireMockServer) server).getMetrics().ifPresent(ServerMetrics::reset);
+		server.updateGlobalSettings(new GlobalSettings());
+		idleServers.addLast(new PooledServer(fingerprint, server));
+
+		while (idleServers.size() > maxIdleServers) {
+			idleServers.removeFirst().server.stop();
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		final List<WireMockServer> servers = new ArrayList<>(leasedServers.keySet());
+		idleServers.forEach(pooledServer -> servers.add(pooledServer.server));
+		idleServers.clear();
+		leasedServers.clear();
+		servers.stream()
+				.filter(WireMockServer::isRunning)
+				.forEach(WireMockServer::stop);
+	}
+
+	private static final class PooledServer {
+
+		private final OptionsFingerprint fingerprint;
+		private final WireMockServer server;
+
+		private PooledServer(final OptionsFingerprint fingerprint, final WireMockServer server) {
+			this.fingerprint = fingerprint;
+			this.server = server;
+		}
+	}
+
+	/**
+	 * A leased server, returned to the pool when the owning {@link ExtensionContext} is closed.
+	 */
+	private final class Lease extends ServerGroup {
+
+		private Lease(final WireMockServer server) {
+			super(singletonList(server), ServerLifecycle.POOLED);
+		}
+
+		@Override
+		public void close() {
+			getServers().forEach(ServerPool.this::release);
+		}
+	}
+}
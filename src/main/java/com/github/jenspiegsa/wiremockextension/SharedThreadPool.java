@@ -0,0 +1,113 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.http.ThreadPoolFactory;
+
+/**
+ * A bounded thread pool shared by the Jetty servers of all {@link ManagedWireMockServer}s configured by
+ * {@link #applyTo(Options, int)}, instead of a pool per server. Threads are started on demand and terminated when
+ * idle, so their number grows with the load rather than with the number of servers. Each server still listens on a
+ * port of its own, but accepts connections by a single selector thread. The pool is never stopped, its threads are
+ * daemons.
+ *
+ * @author Jens Piegsa
+ */
+final class SharedThreadPool implements ThreadPool {
+
+	static final String MAX_THREADS_PROPERTY_NAME = "wiremock.extension.sharedThreadPool.maxThreads";
+	static final int DEFAULT_MAX_THREADS = 200;
+
+	private static final int MIN_THREADS = 2;
+	private static final int IDLE_TIMEOUT_MILLIS = 10_000;
+
+	private static SharedThreadPool instance;
+
+	private final QueuedThreadPool delegate;
+	private final ScheduledExecutorService scheduler;
+
+	private SharedThreadPool(final int maxThreads) {
+		delegate = new QueuedThreadPool(maxThreads, Math.min(MIN_THREADS, maxThreads), IDLE_TIMEOUT_MILLIS);
+		delegate.setName("wiremock-shared");
+		delegate.setDaemon(true);
+		final AtomicInteger threadCount = new AtomicInteger();
+		scheduler = Executors.newScheduledThreadPool(ManagedJettyHttpServer.DEFAULT_THREADS, runnable -> {
+			final Thread thread = new Thread(runnable, "wiremock-shared-delays-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * @param maxThreads maximum number of threads of the pool, only applied by its first use
+	 * @return options creating servers on the shared thread pool, by a {@link ManagedJettyHttpServer} accepting
+	 * connections without threads of their own.
+	 */
+	static Options applyTo(final Options options, final int maxThreads) {
+		final ThreadPoolFactory threadPoolFactory = serverOptions -> getInstance(maxThreads);
+		return ManagedJettyHttpServer.install(new DelegatingOptions(options) {
+			@Override
+			public ThreadPoolFactory threadPoolFactory() {
+				return threadPoolFactory;
+			}
+		});
+	}
+
+	static synchronized SharedThreadPool getInstance(final int maxThreads) {
+		if (instance == null) {
+			final SharedThreadPool threadPool = new SharedThreadPool(maxThreads);
+			try {
+				threadPool.delegate.start();
+			} catch (final Exception e) {
+				throw new IllegalStateException("Cannot start shared thread pool", e);
+			}
+			instance = threadPool;
+		}
+		return instance;
+	}
+
+	/**
+	 * @return the scheduler serving non-blocking delays of all servers on this pool, which is never shut down.
+	 */
+	ScheduledExecutorService getScheduler() {
+		return scheduler;
+	}
+
+	int getMaxThreads() {
+		return delegate.getMaxThreads();
+	}
+
+	@Override
+	public void execute(final Runnable command) {
+		delegate.execute(command);
+	}
+
+	/**
+	 * Returns immediately, since the pool outlives the servers joining it when they are stopped.
+	 */
+	@Override
+	public void join() {
+		// the pool is never stopped
+	}
+
+	@Override
+	public int getThreads() {
+		return delegate.getThreads();
+	}
+
+	@Override
+	public int getIdleThreads() {
+		return delegate.getIdleThreads();
+	}
+
+	@Override
+	public boolean isLowOnThreads() {
+		return delegate.isLowOnThreads();
+	}
+}
@@ -0,0 +1,26 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.junit.jupiter.api.parallel.ResourceLock;
+
+/**
+ * Marks test classes or methods using the static WireMock DSL, e.g. {@code WireMock.givenThat(...)}.
+ * The static DSL is configured for these tests even if {@link WireMockSettings#configureStaticDsl()} is
+ * {@code false}. As such tests share the static default client and typically the default port, they
+ * acquire the resource lock {@value WireMockExtension#STATIC_DSL_RESOURCE} under parallel execution.
+ *
+ * @author Jens Piegsa
+ */
+@Documented
+@Target({TYPE, METHOD})
+@Retention(RUNTIME)
+@ResourceLock(WireMockExtension.STATIC_DSL_RESOURCE)
+public @interface StaticDsl {
+}
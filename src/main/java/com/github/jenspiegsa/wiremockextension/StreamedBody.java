@@ -0,0 +1,173 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.eclipse.jetty.server.HttpOutput;
+
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.core.Options;
+
+/**
+ * Large response bodies streamed by a {@link ManagedWireMockServer} without reading them into memory, either from
+ * a file or generated, if enabled by {@link #applyTo(Options)}. Unlike bodies of {@code withBodyFile(...)}, they are
+ * neither held per request nor retained by the request journal. Single byte ranges requested by a {@code Range}
+ * header are answered by partial content.
+ *
+ * <pre>
+ * ManagedWireMockServer server = with(StreamedBody.applyTo(wireMockConfig()));
+ * server.stubFor(get("/export").willReturn(StreamedBody.file(Paths.get("export.zip"))
+ *         .withHeader("Content-Type", "application/zip")));
+ * </pre>
+ *
+ * The body is declared by the response header {@value #HEADER}, which is not sent to the client, so such stubs can
+ * be defined in JSON as well.
+ *
+ * @author Jens Piegsa
+ */
+public abstract class StreamedBody {
+
+	public static final String HEADER = "X-WireMock-Streamed-Body";
+
+	private static final String FILE_PREFIX = "file:";
+	private static final String GENERATED_PREFIX = "generated:";
+
+	private StreamedBody() {
+	}
+
+	/**
+	 * Enables streamed bodies for a {@link ManagedWireMockServer} created with the returned options. Other servers
+	 * answer such stubs by an empty body. Not applicable to options of a custom {@code httpServerFactory}.
+	 *
+	 * @return the given options serving streamed bodies.
+	 */
+	public static Options applyTo(final Options options) {
+		return ManagedJettyHttpServer.install(options);
+	}
+
+	/**
+	 * @param file the file to stream, relative paths are resolved against the {@code __files} directory of the server
+	 * @return a response streaming the given file.
+	 */
+	public static ResponseDefinitionBuilder file(final Path file) {
+		return aResponse().withStatus(200).withHeader(HEADER, FILE_PREFIX + file);
+	}
+
+	/**
+	 * @param length number of bytes, where the byte at each position {@code p} is {@code (byte) p}
+	 * @return a response streaming a generated body of the given length.
+	 */
+	public static ResponseDefinitionBuilder generated(final long length) {
+		if (length < 0) {
+			throw new IllegalArgumentException("length must not be negative, but was: " + length);
+		}
+		return aResponse().withStatus(200).withHeader(HEADER, GENERATED_PREFIX + length);
+	}
+
+	/**
+	 * @param value value of the {@value #HEADER} header
+	 * @param filesDirectory directory relative file paths are resolved against
+	 * @throws IllegalArgumentException if the value is not a valid body declaration
+	 */
+	static StreamedBody parse(final String value, final Path filesDirectory) {
+		if (value.startsWith(FILE_PREFIX)) {
+			return new FileBody(filesDirectory.resolve(value.substring(FILE_PREFIX.length())));
+		}
+		if (value.startsWith(GENERATED_PREFIX)) {
+			try {
+				return new GeneratedBody(Long.parseLong(value.substring(GENERATED_PREFIX.length())));
+			} catch (final NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid length of generated body: " + value, e);
+			}
+		}
+		throw new IllegalArgumentException("Invalid streamed body: " + value);
+	}
+
+	abstract long length() throws IOException;
+
+	/**
+	 * Writes {@code count} bytes of the body starting at {@code position} to the given output, which may be
+	 * completed afterwards.
+	 */
+	abstract void writeTo(OutputStream out, long position, long count) throws IOException;
+
+	private static final class FileBody extends StreamedBody {
+
+		private final Path file;
+
+		FileBody(final Path file) {
+			this.file = file;
+		}
+
+		@Override
+		long length() throws IOException {
+			return Files.size(file);
+		}
+
+		@Override
+		void writeTo(final OutputStream out, final long position, final long count) throws IOException {
+
+			if (count == 0) {
+				return;
+			}
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				if (out instanceof HttpOutput && count <= Integer.MAX_VALUE) {
+					// Jetty writes the mapped file to the socket without copying it to the heap
+					((HttpOutput) out).sendContent(channel.map(FileChannel.MapMode.READ_ONLY, position, count));
+					return;
+				}
+				final WritableByteChannel target = Channels.newChannel(out);
+				long written = 0;
+				while (written < count) {
+					final long transferred = channel.transferTo(position + written, count - written, target);
+					if (transferred == 0) {
+						// the file was truncated since its length was taken
+						throw new IOException("File " + file + " ended after " + (position + written) + " bytes");
+					}
+					written += transferred;
+				}
+			}
+		}
+	}
+
+	private static final class GeneratedBody extends StreamedBody {
+
+		private static final byte[] PATTERN = new byte[64 * 1024];
+
+		static {
+			for (int i = 0; i < PATTERN.length; i++) {
+				PATTERN[i] = (byte) i;
+			}
+		}
+
+		private final long length;
+
+		GeneratedBody(final long length) {
+			this.length = length;
+		}
+
+		@Override
+		long length() {
+			return length;
+		}
+
+		@Override
+		void writeTo(final OutputStream out, final long position, final long count) throws IOException {
+			long written = 0;
+			while (written < count) {
+				final int offset = (int) ((position + written) % PATTERN.length);
+				final int chunk = (int) Math.min(PATTERN.length - offset, count - written);
+				out.write(PATTERN, offset, chunk);
+				written += chunk;
+			}
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder.jsonResponse;
+import static com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder.responseDefinition;
+import static java.util.Collections.singletonMap;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.tomakehurst.wiremock.admin.Router;
+import com.github.tomakehurst.wiremock.common.Json;
+import com.github.tomakehurst.wiremock.extension.AdminApiExtension;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+
+/**
+ * Admin API extension registering a batch of stubs by a single request to {@value #PATH}, whose body is an object
+ * holding them as {@code mappings} like mapping files do. Servers the extension connects to
+ * {@link WireMockSettings#remote() remotely} are to be started with this extension, e.g.
+ * {@code --extensions com.github.jenspiegsa.wiremockextension.StubImportExtension}, otherwise stubs are registered
+ * one by one.
+ *
+ * @author Jens Piegsa
+ */
+public class StubImportExtension implements AdminApiExtension {
+
+	public static final String PATH = "/__admin/mappings/import";
+
+	@Override
+	public void contributeAdminApiRoutes(final Router router) {
+		router.add(RequestMethod.POST, PATH.substring("/__admin".length()), (admin, request, pathParams) -> {
+			final JsonNode mappings;
+			try {
+				mappings = Json.node(request.getBodyAsString()).path("mappings");
+				if (!mappings.isArray()) {
+					return invalid("stub mappings expected as array 'mappings'");
+				}
+				for (final JsonNode mapping : mappings) {
+					admin.addStubMapping(Json.getObjectMapper().treeToValue(mapping, StubMapping.class));
+				}
+			} catch (final IOException | RuntimeException e) {
+				return invalid(e.getMessage());
+			}
+			return jsonResponse(singletonMap("imported", mappings.size()), 200);
+		});
+	}
+
+	private static ResponseDefinition invalid(final String message) {
+		return responseDefinition().withStatus(422).withBody("Invalid stub mappings: " + message).build();
+	}
+
+	@Override
+	public String getName() {
+		return "stub-import";
+	}
+}
@@ -0,0 +1,16 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import java.util.List;
+
+import com.github.tomakehurst.wiremock.core.Admin;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+
+/**
+ * An {@link Admin} registering a batch of stubs at once, e.g. by a single request to a remote server.
+ *
+ * @author Jens Piegsa
+ */
+interface StubImporter {
+
+	void importStubMappings(List<StubMapping> stubMappings);
+}
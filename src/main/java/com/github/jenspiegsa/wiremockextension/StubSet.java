@@ -0,0 +1,157 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.extension.ExtensionConfigurationException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.tomakehurst.wiremock.common.ClasspathFileSource;
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.common.Json;
+import com.github.tomakehurst.wiremock.common.SingleRootFileSource;
+import com.github.tomakehurst.wiremock.common.TextFile;
+import com.github.tomakehurst.wiremock.core.Admin;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+
+/**
+ * Immutable set of stub mappings parsed from a location declared by {@link WireMockStubs}.
+ * The parsed request patterns and responses are shared by all servers the set is applied to, only the
+ * mutable {@link StubMapping} holding them is copied per server.
+ *
+ * @author Jens Piegsa
+ */
+final class StubSet {
+
+	static final String CLASSPATH_PREFIX = "classpath:";
+
+	private final String location;
+	private final List<StubMapping> stubMappings;
+
+	private StubSet(final String location, final List<StubMapping> stubMappings) {
+		this.location = location;
+		this.stubMappings = unmodifiableList(stubMappings);
+	}
+
+	/**
+	 * @param location see {@link WireMockStubs#value()}
+	 * @throws ExtensionConfigurationException if the location does not exist or contains invalid mappings
+	 */
+	static StubSet load(final String location) {
+
+		final List<StubMapping> stubMappings = new ArrayList<>();
+		for (final TextFile file : findMappingFiles(location)) {
+			final String json;
+			try {
+				json = file.readContentsAsString();
+			} catch (final RuntimeException e) {
+				throw new ExtensionConfigurationException("Stub mappings not readable: " + file.getPath(), e);
+			}
+			try {
+				final JsonNode node = Json.node(json);
+				if (node.has("mappings")) {
+					for (final JsonNode mappingNode : node.get("mappings")) {
+						stubMappings.add(Json.getObjectMapper().treeToValue(mappingNode, StubMapping.class));
+					}
+				} else {
+					stubMappings.add(Json.getObjectMapper().treeToValue(node, StubMapping.class));
+				}
+			} catch (final JsonProcessingException | RuntimeException e) {
+				throw new ExtensionConfigurationException("Invalid stub mapping in " + file.getPath(), e);
+			}
+		}
+		return new StubSet(location, stubMappings);
+	}
+
+	String getLocation() {
+		return location;
+	}
+
+	List<StubMapping> getStubMappings() {
+		return stubMappings;
+	}
+
+	/**
+	 * Registers all stub mappings of this set at the given server or partition, in-process or by a single import request.
+	 */
+	void applyTo(final Admin admin) {
+		if (admin instanceof StubImporter) {
+			((StubImporter) admin).importStubMappings(stubMappings.stream().map(StubSet::copyOf).collect(toList()));
+			return;
+		}
+		for (final StubMapping stubMapping : stubMappings) {
+			admin.addStubMapping(copyOf(stubMapping));
+		}
+	}
+
+	/**
+	 * @return a copy of the given stub mapping, as servers assign their insertion index to the mapping itself.
+	 */
+	private static StubMapping copyOf(final StubMapping stubMapping) {
+
+		final StubMapping copy = new StubMapping(stubMapping.getRequest(), stubMapping.getResponse());
+		copy.setId(stubMapping.getId());
+		copy.setName(stubMapping.getName());
+		copy.setPriority(stubMapping.getPriority());
+		copy.setScenarioName(stubMapping.getScenarioName());
+		copy.setRequiredScenarioState(stubMapping.getRequiredScenarioState());
+		copy.setNewScenarioState(stubMapping.getNewScenarioState());
+		copy.setPostServeActions(stubMapping.getPostServeActions());
+		copy.setMetadata(stubMapping.getMetadata());
+		copy.setDirty(false);
+		return copy;
+	}
+
+	private static List<TextFile> findMappingFiles(final String location) {
+
+		final boolean classpath = location.startsWith(CLASSPATH_PREFIX);
+		String path = classpath ? location.substring(CLASSPATH_PREFIX.length()) : location;
+		if (classpath && path.startsWith("/")) {
+			path = path.substring(1);
+		}
+		final List<TextFile> files = new ArrayList<>();
+		if (path.endsWith(".json")) {
+			final int separator = path.lastIndexOf('/');
+			final FileSource directory = fileSource(classpath, separator < 0 ? "" : path.substring(0, separator));
+			files.add(directory.getTextFileNamed(path.substring(separator + 1)));
+		} else {
+			final FileSource directory = fileSource(classpath, path);
+			if (!directory.exists()) {
+				throw new ExtensionConfigurationException("Stub mappings not found: " + location);
+			}
+			directory.listFilesRecursively().stream()
+					.filter(file -> file.getPath().endsWith(".json"))
+					.sorted(Comparator.comparing(TextFile::getPath))
+					.forEach(files::add);
+		}
+		return files;
+	}
+
+	private static FileSource fileSource(final boolean classpath, final String path) {
+		try {
+			return classpath ? new ClasspathFileSource(path) : new SingleRootFileSource(path.isEmpty() ? "." : path);
+		} catch (final RuntimeException e) {
+			throw new ExtensionConfigurationException("Stub mappings not accessible: " + path, e);
+		}
+	}
+
+	/**
+	 * Stub sets by location, parsed on first use. Kept in the root {@link org.junit.jupiter.api.extension.ExtensionContext.Store},
+	 * so each location is parsed once per test run.
+	 */
+	static final class Cache {
+
+		private final Map<String, StubSet> stubSets = new ConcurrentHashMap<>();
+
+		StubSet get(final String location) {
+			return stubSets.computeIfAbsent(location, StubSet::load);
+		}
+	}
+}
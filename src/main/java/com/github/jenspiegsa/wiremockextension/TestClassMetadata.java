@@ -0,0 +1,158 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.stream.Collectors.toList;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.junit.platform.commons.util.AnnotationUtils;
+import org.junit.platform.commons.util.ReflectionUtils;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.core.Options;
+
+/**
+ * Annotated fields and effective settings of a test class, resolved once and shared by all of its
+ * test instances and invocations.
+ *
+ * @author Jens Piegsa
+ */
+final class TestClassMetadata {
+
+	private final List<Class<?>> testClasses;
+	private final List<Field> managedServerFields;
+	private final List<Field> optionsFields;
+	private final List<Field> injectedServerFields;
+	private final List<Field> injectedClientFields;
+	private final Optional<WireMockSettings> settings;
+	private final boolean staticDsl;
+	private final List<String> stubLocations;
+
+	private TestClassMetadata(final ExtensionContext classContext) {
+
+		final Class<?> testClass = classContext.getRequiredTestClass();
+		testClasses = unmodifiableList(collectTestClasses(classContext));
+		managedServerFields = findAccessibleFields(testClass, Managed.class, WireMockServer.class);
+		optionsFields = findAccessibleFields(testClass, ConfigureWireMock.class, Options.class);
+		injectedServerFields = findAccessibleFields(testClass, InjectServer.class, WireMockServer.class);
+		injectedClientFields = findAccessibleFields(testClass, InjectClient.class, WireMock.class);
+		settings = findAnnotation(classContext, WireMockSettings.class);
+		staticDsl = findAnnotation(classContext, StaticDsl.class).isPresent();
+		stubLocations = unmodifiableList(collectStubLocations(testClasses));
+	}
+
+	/**
+	 * @param classContext context of a test class
+	 */
+	static TestClassMetadata of(final ExtensionContext classContext) {
+		return new TestClassMetadata(classContext);
+	}
+
+	/**
+	 * @return the key of the metadata of the given test class context, i.e. the test class followed by its enclosing
+	 * test classes, since a {@link org.junit.jupiter.api.Nested} class inherited by several test classes is enclosed
+	 * by each of them.
+	 */
+	static List<Class<?>> keyOf(final ExtensionContext classContext) {
+		return collectTestClasses(classContext);
+	}
+
+	/**
+	 * @return the test class followed by its enclosing test classes, innermost first.
+	 */
+	List<Class<?>> getTestClasses() {
+		return testClasses;
+	}
+
+	List<Field> getManagedServerFields() {
+		return managedServerFields;
+	}
+
+	List<Field> getOptionsFields() {
+		return optionsFields;
+	}
+
+	List<Field> getInjectedServerFields() {
+		return injectedServerFields;
+	}
+
+	List<Field> getInjectedClientFields() {
+		return injectedClientFields;
+	}
+
+	/**
+	 * @return the settings of the test class or of its closest enclosing test class.
+	 */
+	Optional<WireMockSettings> getSettings() {
+		return settings;
+	}
+
+	/**
+	 * @return {@code true} if the test class or an enclosing test class is annotated with {@link StaticDsl}.
+	 */
+	boolean isStaticDsl() {
+		return staticDsl;
+	}
+
+	/**
+	 * @return the locations declared by {@link WireMockStubs} on the test class and its enclosing test classes,
+	 * outermost first.
+	 */
+	List<String> getStubLocations() {
+		return stubLocations;
+	}
+
+	private static List<String> collectStubLocations(final List<Class<?>> testClasses) {
+
+		final List<String> locations = new ArrayList<>();
+		for (int i = testClasses.size() - 1; i >= 0; i--) {
+			AnnotationSupport.findAnnotation(testClasses.get(i), WireMockStubs.class)
+					.ifPresent(stubs -> Collections.addAll(locations, stubs.value()));
+		}
+		return locations.stream().distinct().collect(toList());
+	}
+
+	private static List<Field> findAccessibleFields(final Class<?> testClass,
+	                                                final Class<? extends Annotation> annotationType,
+	                                                final Class<?> fieldType) {
+
+		return AnnotationUtils.findAnnotatedFields(testClass, annotationType, field -> fieldType.isAssignableFrom(field.getType()))
+				.stream()
+				.map(ReflectionUtils::makeAccessible)
+				.collect(toList());
+	}
+
+	private static <A extends Annotation> Optional<A> findAnnotation(final ExtensionContext context,
+	                                                                 final Class<A> annotationType) {
+
+		Optional<ExtensionContext> currentContext = Optional.of(context);
+		Optional<A> annotation = Optional.empty();
+
+		while (currentContext.isPresent() && !annotation.isPresent()) {
+			annotation = AnnotationSupport.findAnnotation(currentContext.get().getElement(), annotationType);
+			currentContext = currentContext.get().getParent();
+		}
+		return annotation;
+	}
+
+	private static List<Class<?>> collectTestClasses(final ExtensionContext classContext) {
+
+		final List<Class<?>> testClasses = new ArrayList<>();
+		Optional<ExtensionContext> currentContext = Optional.of(classContext);
+		while (currentContext.isPresent() && currentContext.get() != classContext.getRoot()) {
+			currentContext.get().getTestClass()
+					.filter(testClass -> !testClasses.contains(testClass))
+					.ifPresent(testClasses::add);
+			currentContext = currentContext.get().getParent();
+		}
+		return testClasses;
+	}
+}
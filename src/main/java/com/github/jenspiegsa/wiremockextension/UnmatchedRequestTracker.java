@@ -0,0 +1,124 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestListener;
+import com.github.tomakehurst.wiremock.http.Response;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+
+/**
+ * Counts the unmatched requests of a server as they are served, so the check after each test does not need to
+ * scan the request journal when all requests were matched. The first unmatched requests are retained as well.
+ * Unmatched requests of each {@link Partition} are counted separately.
+ *
+ * @author Jens Piegsa
+ */
+final class UnmatchedRequestTracker implements RequestListener {
+
+	/** Number of unmatched requests retained since the last reset. */
+	static final int MAX_RETAINED_REQUESTS = 100;
+
+	/** Servers do not override {@code equals}, hence the map is keyed by identity. */
+	private static final Map<WireMockServer, UnmatchedRequestTracker> trackers =
+			Collections.synchronizedMap(new WeakHashMap<>());
+
+	private final AtomicInteger count = new AtomicInteger();
+	private final Queue<LoggedRequest> retainedRequests = new ConcurrentLinkedQueue<>();
+	private final Map<String, AtomicInteger> partitionCounts = new ConcurrentHashMap<>();
+
+	private UnmatchedRequestTracker() {
+	}
+
+	/**
+	 * @return the tracker of the given server, registered as a request listener on first use.
+	 */
+	static UnmatchedRequestTracker of(final WireMockServer server) {
+		return trackers.computeIfAbsent(server, key -> {
+			final UnmatchedRequestTracker tracker = new UnmatchedRequestTracker();
+			key.addMockServiceRequestListener(tracker);
+			return tracker;
+		});
+	}
+
+	/**
+	 * @return the tracker of the given server, if already registered.
+	 */
+	static Optional<UnmatchedRequestTracker> find(final WireMockServer server) {
+		return Optional.ofNullable(trackers.get(server));
+	}
+
+	@Override
+	public void requestReceived(final Request request, final Response response) {
+		if (response.wasConfigured()) {
+			return;
+		}
+		final String partitionId = request.getHeader(Partition.HEADER);
+		if (partitionId != null) {
+			partitionCounts.computeIfAbsent(partitionId, key -> new AtomicInteger()).incrementAndGet();
+		}
+		if (count.incrementAndGet() <= MAX_RETAINED_REQUESTS) {
+			retainedRequests.add(LoggedRequest.createFrom(request));
+		}
+	}
+
+	/**
+	 * @return the number of unmatched requests since the last reset. Requests may have been removed from the
+	 * request journal meanwhile, so a positive count is to be confirmed by the journal, if enabled.
+	 */
+	int getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @return the number of unmatched requests of the given partition since its last reset.
+	 */
+	int getCount(final Partition partition) {
+		final AtomicInteger partitionCount = partitionCounts.get(partition.getId());
+		return partitionCount == null ? 0 : partitionCount.get();
+	}
+
+	/**
+	 * @return up to {@link #MAX_RETAINED_REQUESTS} unmatched requests since the last reset.
+	 */
+	List<LoggedRequest> getRetainedRequests() {
+		return new ArrayList<>(retainedRequests);
+	}
+
+	/**
+	 * @return the retained unmatched requests of the given partition.
+	 */
+	List<LoggedRequest> getRetainedRequests(final Partition partition) {
+		return retainedRequests.stream().filter(partition::contains).collect(toList());
+	}
+
+	void reset() {
+		retainedRequests.clear();
+		partitionCounts.clear();
+		count.set(0);
+	}
+
+	/**
+	 * Resets the count and retained requests of the given partition only. Since the server is still used by other
+	 * partitions, retained requests of other partitions remain.
+	 */
+	void reset(final Partition partition) {
+		final AtomicInteger partitionCount = partitionCounts.remove(partition.getId());
+		if (partitionCount != null) {
+			count.addAndGet(-partitionCount.get());
+		}
+		retainedRequests.removeIf(partition::contains);
+	}
+}
@@ -0,0 +1,116 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static java.lang.Math.min;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import com.github.tomakehurst.wiremock.client.VerificationException;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import com.github.tomakehurst.wiremock.verification.NearMiss;
+
+/**
+ * Reports unmatched requests along with their closest stub mappings. The near misses are computed from a
+ * snapshot of the stub mappings taken when the exception is created, so a lazy exception is not affected by
+ * resetting the server afterwards.
+ *
+ * @author Jens Piegsa
+ */
+final class UnmatchedRequestsException extends VerificationException {
+
+	/**
+	 * Configuration parameter limiting the number of unmatched requests scored against all stub mappings.
+	 */
+	static final String MAX_NEAR_MISS_REQUESTS_PROPERTY_NAME = "wiremock.extension.nearMisses.maxRequests";
+
+	static final int DEFAULT_MAX_NEAR_MISS_REQUESTS = 10;
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient List<LoggedRequest> unmatchedRequests;
+	private final int unmatchedRequestCount;
+	private final transient List<StubMapping> stubMappings;
+	private final int maxNearMissRequests;
+	private String message;
+
+	private UnmatchedRequestsException(final List<LoggedRequest> unmatchedRequests,
+	                                   final int unmatchedRequestCount,
+	                                   final List<StubMapping> stubMappings,
+	                                   final int maxNearMissRequests) {
+		super(unmatchedRequestCount + " requests were unmatched by any stub mapping.");
+		this.unmatchedRequests = unmatchedRequests;
+		this.unmatchedRequestCount = unmatchedRequestCount;
+		this.stubMappings = stubMappings;
+		this.maxNearMissRequests = maxNearMissRequests;
+	}
+
+	/**
+	 * @param unmatchedRequests the unmatched requests available for the report
+	 * @param unmatchedRequestCount the number of unmatched requests including those no longer available
+	 * @param lazy {@code true} to defer the computation of near misses until the message is read
+	 */
+	static VerificationException create(final List<LoggedRequest> unmatchedRequests,
+	                                    final int unmatchedRequestCount,
+	                                    final List<StubMapping> stubMappings,
+	                                    final int maxNearMissRequests,
+	                                    final boolean lazy) {
+
+		final List<StubMapping> snapshot = new ArrayList<>(stubMappings);
+		return lazy
+		       ? new UnmatchedRequestsException(unmatchedRequests, unmatchedRequestCount, snapshot, maxNearMissRequests)
+		       : report(unmatchedRequests, unmatchedRequestCount, snapshot, maxNearMissRequests);
+	}
+
+	@Override
+	public synchronized String getMessage() {
+		if (message == null) {
+			message = report(unmatchedRequests, unmatchedRequestCount, stubMappings, maxNearMissRequests).getMessage();
+		}
+		return message;
+	}
+
+	private static VerificationException report(final List<LoggedRequest> unmatchedRequests,
+	                                            final int unmatchedRequestCount,
+	                                            final List<StubMapping> stubMappings,
+	                                            final int maxNearMissRequests) {
+
+		final List<NearMiss> nearMisses = findNearMisses(unmatchedRequests, stubMappings, maxNearMissRequests);
+		final VerificationException exception = nearMisses.isEmpty()
+				? VerificationException.forUnmatchedRequests(unmatchedRequests)
+				: VerificationException.forUnmatchedNearMisses(nearMisses);
+		final StringBuilder message = new StringBuilder(exception.getMessage());
+		final int unscoredRequests = unmatchedRequests.size() - min(maxNearMissRequests, unmatchedRequests.size());
+		if (unscoredRequests > 0 && !stubMappings.isEmpty()) {
+			message.append('\n').append(unscoredRequests)
+					.append(" further unmatched requests were not scored against the stub mappings.");
+		}
+		final int unavailableRequests = unmatchedRequestCount - unmatchedRequests.size();
+		if (unavailableRequests > 0) {
+			message.append('\n').append(unavailableRequests)
+					.append(" further unmatched requests were not retained.");
+		}
+		return message.length() == exception.getMessage().length() ? exception : new VerificationException(message.toString());
+	}
+
+	/**
+	 * @return the closest stub mapping for each of the first {@code maxNearMissRequests} requests.
+	 */
+	private static List<NearMiss> findNearMisses(final List<LoggedRequest> unmatchedRequests,
+	                                             final List<StubMapping> stubMappings,
+	                                             final int maxNearMissRequests) {
+
+		final List<NearMiss> nearMisses = new ArrayList<>();
+		for (final LoggedRequest request : unmatchedRequests.subList(0, min(maxNearMissRequests, unmatchedRequests.size()))) {
+			findNearMiss(request, stubMappings).ifPresent(nearMisses::add);
+		}
+		return nearMisses;
+	}
+
+	private static Optional<NearMiss> findNearMiss(final LoggedRequest request, final List<StubMapping> stubMappings) {
+		return stubMappings.stream()
+				.map(stubMapping -> new NearMiss(request, stubMapping, stubMapping.getRequest().match(request)))
+				.min(NearMiss::compareTo);
+	}
+}
@@ -0,0 +1,173 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.jenspiegsa.wiremockextension.ManagedWireMockServer.with;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.matchingJsonPath;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import com.github.tomakehurst.wiremock.client.VerificationException;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.common.Json;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+
+/**
+ * Boots a throwaway server once per JVM and pushes stub registrations, matched and unmatched requests and
+ * verifications through it, so the first test does not pay for class loading and cold matching code of Jetty,
+ * Jackson and WireMock. Opt-in by the configuration parameter {@value #ENABLED_PROPERTY_NAME}.
+ *
+ * @author Jens Piegsa
+ */
+final class WarmUp {
+
+	/**
+	 * Configuration parameter enabling the warm-up before the first test class using the extension.
+	 */
+	static final String ENABLED_PROPERTY_NAME = "wiremock.extension.warmUp.enabled";
+
+	/**
+	 * Configuration parameter running the warm-up on a background thread instead of waiting for it.
+	 */
+	static final String BACKGROUND_PROPERTY_NAME = "wiremock.extension.warmUp.background";
+
+	private static final int ITERATIONS = 20;
+
+	private static WarmUp instance;
+
+	private final CountDownLatch done = new CountDownLatch(1);
+
+	private WarmUp() {
+	}
+
+	/**
+	 * Starts the warm-up, unless already done in this JVM.
+	 *
+	 * @param background {@code true} to run it on a daemon thread, otherwise it is finished on return
+	 */
+	static synchronized WarmUp startOnce(final boolean background) {
+		if (instance == null) {
+			instance = new WarmUp();
+			if (background) {
+				final Thread thread = new Thread(instance::run, "wiremock-extension-warm-up");
+				thread.setDaemon(true);
+				thread.start();
+			} else {
+				instance.run();
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * @return the warm-up of this JVM, if started.
+	 */
+	static synchronized Optional<WarmUp> find() {
+		return Optional.ofNullable(instance);
+	}
+
+	/**
+	 * Waits for the warm-up to finish.
+	 */
+	void await() throws InterruptedException {
+		done.await();
+	}
+
+	boolean isDone() {
+		return done.getCount() == 0;
+	}
+
+	private void run() {
+		try {
+			exercise();
+		} catch (final IOException | RuntimeException e) {
+			// a failed warm-up only leaves the first test slower
+		} finally {
+			done.countDown();
+		}
+	}
+
+	static void exercise() throws IOException {
+
+		final ManagedWireMockServer server = with(wireMockConfig().dynamicPort());
+		UnmatchedRequestTracker.of(server);
+		server.start();
+		try {
+			final WireMock client = new WireMock("localhost", server.port());
+			for (int i = 0; i < ITERATIONS; i++) {
+				server.stubFor(get(urlEqualTo("/warm-up/" + i)).willReturn(ok("body")));
+				client.register(post(urlPathMatching("/warm-up/[a-z]+/" + i))
+						.withHeader("Content-Type", containing("json"))
+						.withRequestBody(matchingJsonPath("$.id", equalTo(String.valueOf(i))))
+						.willReturn(okJson("{\"id\":" + i + "}")));
+				server.addStubMapping(Json.read("{\"request\":{\"method\":\"PUT\",\"urlPath\":\"/warm-up/" + i + "\","
+						+ "\"bodyPatterns\":[{\"equalToJson\":\"{}\"}]},\"response\":{\"status\":204}}", StubMapping.class));
+
+				request(server, "GET", "/warm-up/" + i, null);
+				request(server, "POST", "/warm-up/orders/" + i, "{\"id\":\"" + i + "\"}");
+				request(server, "PUT", "/warm-up/" + i, "{}");
+				request(server, "GET", "/warm-up/unknown/" + i, null);
+			}
+			server.stubFor(get(urlPathEqualTo("/warm-up/delayed")).willReturn(aResponse().withFixedDelay(1)));
+			request(server, "GET", "/warm-up/delayed", null);
+			server.stubFor(post(urlPathEqualTo("/warm-up/json")).withRequestBody(equalToJson("{\"a\":[1,2]}", true, true))
+					.willReturn(ok()));
+			request(server, "POST", "/warm-up/json", "{\"a\":[2,1]}");
+
+			BatchVerification.of(server)
+					.expect(ITERATIONS, getRequestedFor(urlPathMatching("/warm-up/[0-9]+")))
+					.expect(ITERATIONS, postRequestedFor(urlPathMatching("/warm-up/orders/.*")))
+					.verify();
+			client.verifyThat(1, getRequestedFor(urlEqualTo("/warm-up/0")));
+			server.findNearMissesForAllUnmatchedRequests();
+			try {
+				WireMockExtension.checkForUnmatchedRequests(server, true, UnmatchedRequestsException.DEFAULT_MAX_NEAR_MISS_REQUESTS, false);
+			} catch (final VerificationException e) {
+				// renders the near misses
+				e.getMessage();
+			}
+			server.resetAll();
+		} finally {
+			server.stop();
+		}
+	}
+
+	private static void request(final ManagedWireMockServer server, final String method, final String path, final String body) throws IOException {
+
+		final HttpURLConnection connection = (HttpURLConnection) new URL(server.url(path)).openConnection();
+		connection.setRequestMethod(method);
+		if (body != null) {
+			connection.setDoOutput(true);
+			connection.setRequestProperty("Content-Type", "application/json");
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(body.getBytes(UTF_8));
+			}
+		}
+		try (InputStream in = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+			if (in != null) {
+				while (in.read() != -1) {
+					// drain
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Resolves a {@link String} or {@link java.net.URI} parameter to the base URL of the server of the current test,
+ * e.g. {@code http://localhost:8080}.
+ *
+ * @author Jens Piegsa
+ */
+@Documented
+@Target(PARAMETER)
+@Retention(RUNTIME)
+public @interface WireMockBaseUrl {
+}
@@ -1,41 +1,58 @@
 package com.github.jenspiegsa.wiremockextension;
 
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
-import static org.junit.platform.commons.util.ReflectionUtils.makeAccessible;
+import static org.junit.platform.commons.support.AnnotationSupport.findAnnotation;
+import static org.junit.platform.commons.support.AnnotationSupport.isAnnotated;
 
-import java.lang.annotation.Annotation;
+import java.io.IOException;
+import java.lang.reflect.Executable;
 import java.lang.reflect.Field;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.ExtensionConfigurationException;
 import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolutionException;
+import org.junit.jupiter.api.extension.ParameterResolver;
 import org.junit.jupiter.api.extension.TestInstancePostProcessor;
-import org.junit.platform.commons.support.AnnotationSupport;
-import org.junit.platform.commons.util.AnnotationUtils;
-import org.junit.platform.commons.util.ReflectionUtils;
 
+import com.github.jenspiegsa.wiremockextension.ExtensionEvents.Span;
 import com.github.tomakehurst.wiremock.WireMockServer;
-import com.github.tomakehurst.wiremock.client.VerificationException;
 import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.core.Admin;
 import com.github.tomakehurst.wiremock.core.Options;
 import com.github.tomakehurst.wiremock.verification.LoggedRequest;
-import com.github.tomakehurst.wiremock.verification.NearMiss;
 
 /**
  * @author Jens Piegsa
  */
-public class WireMockExtension implements BeforeEachCallback, AfterEachCallback, TestInstancePostProcessor {
+public class WireMockExtension implements BeforeAllCallback, BeforeEachCallback, AfterEachCallback, TestInstancePostProcessor,
+		ParameterResolver {
 
-	private boolean generalFailOnUnmatchedRequests;
+	/**
+	 * Name of the {@link org.junit.jupiter.api.parallel.ResourceLock} acquired by tests annotated with {@link StaticDsl}.
+	 */
+	public static final String STATIC_DSL_RESOURCE = "com.github.jenspiegsa.wiremockextension.StaticDsl";
+
+	private final boolean generalFailOnUnmatchedRequests;
 
 	/**
 	 * {@link ExtensionContext.Namespace} in which WireMockServers are stored,
@@ -43,6 +60,13 @@ public class WireMockExtension implements BeforeEachCallback, AfterEachCallback,
 	 */
 	private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(WireMockExtension.class);
 
+	/**
+	 * {@link ExtensionContext.Namespace} of the root store in which {@link TestClassMetadata} is cached,
+	 * keyed by test class.
+	 */
+	private static final ExtensionContext.Namespace METADATA_NAMESPACE =
+			ExtensionContext.Namespace.create(WireMockExtension.class, TestClassMetadata.class);
+
 	// This constructor is invoked by JUnit via reflection
 	@SuppressWarnings("unused")
 	private WireMockExtension() {
@@ -53,144 +77,718 @@ public class WireMockExtension implements BeforeEachCallback, AfterEachCallback,
 		generalFailOnUnmatchedRequests = failOnUnmatchedRequests;
 	}
 
+	/**
+	 * Warms up the JVM before the first test class using the extension, if enabled.
+	 */
+	@Override
+	public void beforeAll(final ExtensionContext context) throws InterruptedException {
+
+		if (!context.getConfigurationParameter(WarmUp.ENABLED_PROPERTY_NAME).map(Boolean::parseBoolean).orElse(false)) {
+			return;
+		}
+		final boolean background = context.getConfigurationParameter(WarmUp.BACKGROUND_PROPERTY_NAME).map(Boolean::parseBoolean).orElse(false);
+		final WarmUp warmUp = context.getRoot().getStore(NAMESPACE)
+				.getOrComputeIfAbsent(WarmUp.class, key -> WarmUp.startOnce(background), WarmUp.class);
+		if (!background) {
+			warmUp.await();
+		}
+	}
+
 	@Override
 	public void postProcessTestInstance(final Object testInstance, final ExtensionContext context) throws Exception {
 
-		final List<WireMockServer> managedServers = retrieveAnnotatedFields(context, Managed.class, WireMockServer.class).stream()
-				.map(field -> ReflectionUtils.readFieldValue(field, testInstance))
-				.map(Optional::get)
-				.map(WireMockServer.class::cast)
-				.map(Objects::requireNonNull)
-				.collect(toList());
+		final Span span = ExtensionEvents.get().begin(ExtensionEvents.POST_PROCESS_TEST_INSTANCE, context.getUniqueId());
+		try {
+			injectServers(testInstance, context);
+		} finally {
+			span.on(Optional.ofNullable(context.getStore(NAMESPACE).get(testInstance.getClass(), ServerGroup.class))
+					.map(ServerGroup::getServers)
+					.map(servers -> servers.get(servers.size() - 1))
+					.orElse(null)).end();
+		}
+	}
 
-		if (managedServers.isEmpty()) {
-			Options options = null;
-			for (final Field field : retrieveAnnotatedFields(context, ConfigureWireMock.class, Options.class)) {
-				if (options == null) {
-					options = (Options) makeAccessible(field).get(testInstance);
-				} else {
-					throw new ExtensionConfigurationException("@ConfigureWireMock only valid once per class.");
-				}
+	private void injectServers(final Object testInstance, final ExtensionContext context) throws IllegalAccessException {
+
+		final TestClassMetadata metadata = retrieveMetadata(context);
+		if (isRemote(context, metadata)) {
+			if (!metadata.getInjectedServerFields().isEmpty()) {
+				throw new ExtensionConfigurationException("@InjectServer not supported when connected to a remote server.");
 			}
-			if (options == null) {
-				options = wireMockConfig();
+			return;
+		}
+		final Optional<ServerGroup> reusableServers = findReusableServers(context, testInstance.getClass());
+		if (reusableServers.isPresent()) {
+			injectReusableServers(testInstance, metadata, reusableServers.get().getServers());
+			return;
+		}
+
+		final ServerLifecycle lifecycle = retrieveLifecycle(metadata);
+
+		final List<WireMockServer> managedServers = new ArrayList<>();
+		for (final Field field : metadata.getManagedServerFields()) {
+			managedServers.add(Objects.requireNonNull((WireMockServer) field.get(testInstance)));
+		}
+
+		if (managedServers.isEmpty()) {
+			final List<Field> optionsFields = metadata.getOptionsFields();
+			if (optionsFields.size() > 1) {
+				throw new ExtensionConfigurationException("@ConfigureWireMock only valid once per class.");
 			}
+			final Options options = optionsFields.isEmpty() ? null : (Options) optionsFields.get(0).get(testInstance);
 
-			final List<Field> injectedServerFields = retrieveAnnotatedFields(context, InjectServer.class, WireMockServer.class);
-			if (!injectedServerFields.isEmpty()) {
-				final WireMockServer server = new WireMockServer(options);
+			final List<Field> injectedServerFields = metadata.getInjectedServerFields();
+			// configured options also apply to servers solely obtained by parameter resolution
+			if (!injectedServerFields.isEmpty() || options != null) {
+				final ServerGroup serverGroup = createServerGroup(context, metadata, options == null ? defaultOptions(context) : options);
+				final WireMockServer server = serverGroup.getServers().get(0);
 				for (final Field field : injectedServerFields) {
-					makeAccessible(field).set(testInstance, server);
+					field.set(testInstance, server);
 				}
-				context.getStore(NAMESPACE).put(testInstance.getClass(), singletonList(server));
+				context.getStore(NAMESPACE).put(testInstance.getClass(), serverGroup);
 			}
 		} else {
-			context.getStore(NAMESPACE).put(testInstance.getClass(), managedServers);
+			// servers created by the test itself cannot be pooled
+			final ServerLifecycle managedLifecycle = lifecycle == ServerLifecycle.POOLED ? ServerLifecycle.PER_CLASS : lifecycle;
+			context.getStore(NAMESPACE).put(testInstance.getClass(), new ServerGroup(managedServers, managedLifecycle));
 		}
 	}
 
 	@Override
-	public void beforeEach(final ExtensionContext context) {
+	public void beforeEach(final ExtensionContext context) throws Exception {
 
-		final Optional<WireMockSettings> wireMockSettings = retrieveAnnotation(context, WireMockSettings.class);
-		generalFailOnUnmatchedRequests = wireMockSettings
-				.map(WireMockSettings::failOnUnmatchedRequests)
-				.orElse(generalFailOnUnmatchedRequests);
+		final Span span = ExtensionEvents.get().begin(ExtensionEvents.BEFORE_EACH, context.getUniqueId());
+		try {
+			prepareServers(context);
+		} finally {
+			span.on(context.getStore(NAMESPACE).get(WireMockServer.class, WireMockServer.class)).end();
+		}
+	}
+
+	private void prepareServers(final ExtensionContext context) throws IllegalAccessException {
 
-		final List<WireMockServer> wireMockServers = collectServers(context);
+		final TestClassMetadata metadata = retrieveMetadata(context);
+		if (isRemote(context, metadata)) {
+			connectRemote(context, metadata);
+			return;
+		}
+		final List<ServerGroup> serverGroups = collectServerGroups(context, metadata);
+		// groups of a test instance shared by several tests were closed by the previous test
+		serverGroups.forEach(ServerGroup::markOpen);
+		List<WireMockServer> wireMockServers = serverGroups.stream()
+				.map(ServerGroup::getServers)
+				.flatMap(Collection::stream)
+				.collect(toList());
 		if (wireMockServers.isEmpty()) {
 			// Simple case
-			final WireMockServer server = new WireMockServer();
-			context.getStore(NAMESPACE).put(context.getRequiredTestClass(), singletonList(server));
-			startServer(server);
+			final ServerLifecycle lifecycle = retrieveLifecycle(metadata);
+			final ExtensionContext owner = lifecycle == ServerLifecycle.PER_METHOD ? context : retrieveClassContext(context);
+			final ServerGroup serverGroup = createServerGroup(context, metadata, defaultOptions(context));
+			owner.getStore(NAMESPACE).put(context.getRequiredTestClass(), serverGroup);
+			wireMockServers = serverGroup.getServers();
+		}
+		wireMockServers.forEach(UnmatchedRequestTracker::of);
+		retrieveServerExecutor(context).startAll(wireMockServers.stream()
+				.filter(server -> !isLazyStart(server))
+				.collect(toList()), context.getUniqueId());
+
+		final WireMockServer defaultServer = wireMockServers.get(wireMockServers.size() - 1);
+		final boolean partitioned = metadata.getSettings().map(WireMockSettings::partitioned).orElse(false);
+		final Admin admin;
+		if (partitioned) {
+			final PartitionedAdmin partitionedAdmin = new PartitionedAdmin(defaultServer, Partition.create());
+			context.getStore(NAMESPACE).put(PartitionedAdmin.class, partitionedAdmin);
+			admin = partitionedAdmin;
 		} else {
-			wireMockServers.forEach(WireMockExtension::startServer);
+			admin = defaultServer;
+		}
+		final boolean classStubsInBaseline = takeBaselines(context, metadata, defaultServer, partitioned);
+		applyStubSets(context, metadata, admin, classStubsInBaseline);
+		final WireMock client = new WireMock(admin);
+		context.getStore(NAMESPACE).put(WireMockServer.class, defaultServer);
+		context.getStore(NAMESPACE).put(WireMock.class, client);
+		injectClient(context, metadata, client);
+		if (retrieveStaticDslUsage(context, metadata)) {
+			if (partitioned || isLazyStart(defaultServer)) {
+				// the partition is only known to its client, which also does not need the port
+				WireMock.configureFor(client);
+			} else {
+				WireMock.configureFor("localhost", defaultServer.port());
+			}
 		}
 	}
 
 	@Override
 	public void afterEach(final ExtensionContext context) {
-		final List<WireMockServer> wireMockServers = collectServers(context);
-		// Stopping all servers first
-		wireMockServers.forEach(WireMockExtension::stopServer);
-		wireMockServers.forEach(this::checkForUnmatchedRequests);
+
+		// servers not kept for further tests are stopped meanwhile
+		final Span span = ExtensionEvents.get().begin(ExtensionEvents.AFTER_EACH, context.getUniqueId())
+				.on(context.getStore(NAMESPACE).get(WireMockServer.class, WireMockServer.class));
+		try {
+			checkAndResetServers(context);
+		} finally {
+			span.end();
+		}
+	}
+
+	private void checkAndResetServers(final ExtensionContext context) {
+
+		final TestClassMetadata metadata = retrieveMetadata(context);
+		if (isRemote(context, metadata)) {
+			disconnectRemote(context, metadata);
+			return;
+		}
+		final List<ServerGroup> serverGroups = collectServerGroups(context, metadata);
+		if (metadata.getSettings().map(WireMockSettings::publishMetrics).orElse(false)) {
+			publishMetrics(context, serverGroups);
+		}
+		// Stopping all servers not kept for further tests first
+		retrieveServerExecutor(context).stopAll(serverGroups.stream()
+				.filter(group -> !group.isReusable())
+				.filter(ServerGroup::markClosed)
+				.flatMap(group -> group.getServers().stream())
+				.collect(toList()), context.getUniqueId());
+		final boolean failOnUnmatchedRequests = metadata.getSettings()
+				.map(WireMockSettings::failOnUnmatchedRequests)
+				.orElse(generalFailOnUnmatchedRequests);
+		final boolean lazyNearMisses = metadata.getSettings()
+				.map(WireMockSettings::lazyNearMisses)
+				.orElse(false);
+		final int maxNearMissRequests = retrieveMaxNearMissRequests(context);
+		final PartitionedAdmin partitionedAdmin = context.getStore(NAMESPACE).get(PartitionedAdmin.class, PartitionedAdmin.class);
+		final WireMockServer defaultServer = context.getStore(NAMESPACE).get(WireMockServer.class, WireMockServer.class);
+		try {
+			serverGroups.stream()
+					.flatMap(group -> group.getServers().stream())
+					.forEach(server -> {
+						final Span verification = ExtensionEvents.get().begin(ExtensionEvents.VERIFICATION, context.getUniqueId());
+						try {
+							if (partitionedAdmin != null && server == defaultServer) {
+								checkForUnmatchedRequests(server, partitionedAdmin, failOnUnmatchedRequests, maxNearMissRequests, lazyNearMisses);
+							} else {
+								checkForUnmatchedRequests(server, failOnUnmatchedRequests, maxNearMissRequests, lazyNearMisses);
+							}
+						} finally {
+							verification.on(server).end();
+						}
+					});
+		} finally {
+			serverGroups.stream()
+					.filter(ServerGroup::isReusable)
+					.flatMap(group -> group.getServers().stream())
+					.forEach(server -> {
+						if (partitionedAdmin != null && server == defaultServer) {
+							resetPartition(server, partitionedAdmin);
+						} else {
+							resetServer(server);
+						}
+					});
+		}
+	}
+
+	@Override
+	public boolean supportsParameter(final ParameterContext parameterContext, final ExtensionContext extensionContext) {
+
+		if (!isTestOrLifecycleMethod(parameterContext, extensionContext)) {
+			// e.g. constructors and @BeforeAll methods, which are left to other resolvers
+			return false;
+		}
+		final Class<?> type = parameterContext.getParameter().getType();
+		if (parameterContext.isAnnotated(WireMockBaseUrl.class)) {
+			return type == String.class || type == URI.class;
+		}
+		return type == WireMockServer.class || type == WireMock.class || type == Partition.class;
+	}
+
+	/**
+	 * @return {@code true} if the parameter is declared by the test method of the given context or by one of its
+	 * {@code @BeforeEach} and {@code @AfterEach} methods, which are run while servers are available.
+	 */
+	private static boolean isTestOrLifecycleMethod(final ParameterContext parameterContext,
+	                                               final ExtensionContext extensionContext) {
+		final Executable executable = parameterContext.getDeclaringExecutable();
+		return extensionContext.getTestMethod()
+				.filter(testMethod -> executable.equals(testMethod)
+						|| isAnnotated(executable, BeforeEach.class) || isAnnotated(executable, AfterEach.class))
+				.isPresent();
+	}
+
+	@Override
+	public Object resolveParameter(final ParameterContext parameterContext, final ExtensionContext extensionContext) {
+
+		final Class<?> type = parameterContext.getParameter().getType();
+		final ExtensionContext.Store store = extensionContext.getStore(NAMESPACE);
+		if (type == Partition.class) {
+			return Optional.ofNullable(store.get(PartitionedAdmin.class, PartitionedAdmin.class))
+					.map(PartitionedAdmin::getPartition)
+					.orElseThrow(() -> new ParameterResolutionException("No partition available for parameter ["
+							+ parameterContext.getParameter() + "], servers are not partitioned."));
+		}
+		if (isRemote(extensionContext, retrieveMetadata(extensionContext))) {
+			if (parameterContext.isAnnotated(WireMockBaseUrl.class)) {
+				final String baseUrl = retrieveRemoteAdmin(extensionContext).baseUrl();
+				return type == URI.class ? URI.create(baseUrl) : baseUrl;
+			}
+			if (type == WireMock.class) {
+				return Optional.ofNullable(store.get(WireMock.class, WireMock.class))
+						.orElseThrow(() -> new ParameterResolutionException("No client available for parameter ["
+								+ parameterContext.getParameter() + "], clients are only resolved for test methods and "
+								+ "their @BeforeEach and @AfterEach methods."));
+			}
+			throw new ParameterResolutionException("No server available for parameter [" + parameterContext.getParameter()
+					+ "], servers are not started in remote mode.");
+		}
+		final WireMockServer server = Optional.ofNullable(store.get(WireMockServer.class, WireMockServer.class))
+				.orElseThrow(() -> new ParameterResolutionException("No server available for parameter ["
+						+ parameterContext.getParameter() + "], servers are only resolved for test methods and their "
+						+ "@BeforeEach and @AfterEach methods."));
+
+		if (parameterContext.isAnnotated(WireMockBaseUrl.class)) {
+			return type == URI.class ? URI.create(server.baseUrl()) : server.baseUrl();
+		}
+		return type == WireMock.class ? store.get(WireMock.class, WireMock.class) : server;
+	}
+
+	/**
+	 * Checks the server for unmatched requests, which is cheap as long as all requests were matched.
+	 *
+	 * @param maxNearMissRequests maximum number of unmatched requests scored against all stub mappings
+	 * @param lazyNearMisses {@code true} to defer the computation of near misses until the failure is reported
+	 */
+	static void checkForUnmatchedRequests(final WireMockServer server,
+	                                      final boolean failOnUnmatchedRequests,
+	                                      final int maxNearMissRequests,
+	                                      final boolean lazyNearMisses) {
+
+		if (!mustCheck(server, failOnUnmatchedRequests)) {
+			return;
+		}
+		final Optional<UnmatchedRequestTracker> tracker = UnmatchedRequestTracker.find(server);
+		if (tracker.isPresent() && tracker.get().getCount() == 0) {
+			// the happy path does not touch the request journal
+			return;
+		}
+		// a disabled or bounded journal may lack unmatched requests, unlike the tracker
+		final Options options = server.getOptions();
+		final boolean completeJournal = !options.requestJournalDisabled() && !options.maxRequestJournalEntries().isPresent();
+		final List<LoggedRequest> unmatchedRequests = completeJournal || !tracker.isPresent()
+				? server.findUnmatchedRequests().getRequests()
+				: tracker.get().getRetainedRequests();
+		if (!unmatchedRequests.isEmpty()) {
+			final int unmatchedRequestCount = completeJournal
+					? unmatchedRequests.size()
+					: Math.max(tracker.get().getCount(), unmatchedRequests.size());
+			throw UnmatchedRequestsException.create(unmatchedRequests, unmatchedRequestCount,
+					server.listAllStubMappings().getMappings(), maxNearMissRequests, lazyNearMisses);
+		}
+	}
+
+	/**
+	 * Checks the partition of the server for unmatched requests, ignoring requests of other partitions.
+	 */
+	private static void checkForUnmatchedRequests(final WireMockServer server,
+	                                              final PartitionedAdmin partitionedAdmin,
+	                                              final boolean failOnUnmatchedRequests,
+	                                              final int maxNearMissRequests,
+	                                              final boolean lazyNearMisses) {
+
+		if (!mustCheck(server, failOnUnmatchedRequests)) {
+			return;
+		}
+		final Partition partition = partitionedAdmin.getPartition();
+		final Optional<UnmatchedRequestTracker> tracker = UnmatchedRequestTracker.find(server);
+		if (tracker.isPresent() && tracker.get().getCount(partition) == 0) {
+			return;
+		}
+		final Options options = server.getOptions();
+		final boolean completeJournal = !options.requestJournalDisabled() && !options.maxRequestJournalEntries().isPresent();
+		final List<LoggedRequest> unmatchedRequests = completeJournal || !tracker.isPresent()
+				? partitionedAdmin.findUnmatchedRequests().getRequests()
+				: tracker.get().getRetainedRequests(partition);
+		if (!unmatchedRequests.isEmpty()) {
+			final int unmatchedRequestCount = completeJournal
+					? unmatchedRequests.size()
+					: Math.max(tracker.get().getCount(partition), unmatchedRequests.size());
+			throw UnmatchedRequestsException.create(unmatchedRequests, unmatchedRequestCount,
+					partitionedAdmin.listAllStubMappings().getMappings(), maxNearMissRequests, lazyNearMisses);
+		}
+	}
+
+	/**
+	 * Gives the test a partition of the remote server, registering its stub sets by a single request.
+	 */
+	private static void connectRemote(final ExtensionContext context, final TestClassMetadata metadata) throws IllegalAccessException {
+
+		final PartitionedAdmin partitionedAdmin = new PartitionedAdmin(retrieveRemoteAdmin(context), Partition.create());
+		final WireMock client = new WireMock(partitionedAdmin);
+		context.getStore(NAMESPACE).put(PartitionedAdmin.class, partitionedAdmin);
+		context.getStore(NAMESPACE).put(WireMock.class, client);
+		applyStubSets(context, metadata, partitionedAdmin, false);
+		injectClient(context, metadata, client);
+		if (retrieveStaticDslUsage(context, metadata)) {
+			WireMock.configureFor(client);
+		}
+	}
+
+	/**
+	 * Checks the partition of the test for unmatched requests by a single query and removes its stubs. Its requests
+	 * remain in the journal of the server, but are not attributed to further partitions.
+	 */
+	private void disconnectRemote(final ExtensionContext context, final TestClassMetadata metadata) {
+
+		final PartitionedAdmin partitionedAdmin = context.getStore(NAMESPACE).get(PartitionedAdmin.class, PartitionedAdmin.class);
+		if (partitionedAdmin == null) {
+			return;
+		}
+		final boolean failOnUnmatchedRequests = metadata.getSettings()
+				.map(WireMockSettings::failOnUnmatchedRequests)
+				.orElse(generalFailOnUnmatchedRequests);
+		final Span verification = ExtensionEvents.get().begin(ExtensionEvents.VERIFICATION, context.getUniqueId());
+		try {
+			if (failOnUnmatchedRequests) {
+				final List<LoggedRequest> unmatchedRequests = partitionedAdmin.findUnmatchedRequests().getRequests();
+				if (!unmatchedRequests.isEmpty()) {
+					throw UnmatchedRequestsException.create(unmatchedRequests, unmatchedRequests.size(),
+							partitionedAdmin.listAllStubMappings().getMappings(), retrieveMaxNearMissRequests(context),
+							metadata.getSettings().map(WireMockSettings::lazyNearMisses).orElse(false));
+				}
+			}
+		} finally {
+			verification.end();
+			partitionedAdmin.resetMappings();
+		}
+	}
+
+	private static boolean isRemote(final ExtensionContext context, final TestClassMetadata metadata) {
+		// servers managed by the test itself are always used
+		return metadata.getManagedServerFields().isEmpty()
+				&& (metadata.getSettings().map(WireMockSettings::remote).orElse(false)
+						|| context.getConfigurationParameter(RemoteAdmin.ENABLED_PROPERTY_NAME).map(Boolean::parseBoolean).orElse(false));
+	}
+
+	private static RemoteAdmin retrieveRemoteAdmin(final ExtensionContext context) {
+
+		final String url = context.getConfigurationParameter(RemoteAdmin.URL_PROPERTY_NAME).orElse(RemoteAdmin.DEFAULT_URL);
+		return context.getRoot().getStore(NAMESPACE)
+				.getOrComputeIfAbsent(RemoteAdmin.URL_PROPERTY_NAME + "=" + url, key -> RemoteAdmin.connect(url), RemoteAdmin.class);
 	}
 
-	private void checkForUnmatchedRequests(final WireMockServer server) {
-		
-		final boolean mustCheck = Optional.of(server)
+	private static boolean mustCheck(final WireMockServer server, final boolean failOnUnmatchedRequests) {
+		return Optional.of(server)
 			.filter(ManagedWireMockServer.class::isInstance)
 			.map(ManagedWireMockServer.class::cast)
 			.map(ManagedWireMockServer::failOnUnmatchedRequests)
-			.orElse(generalFailOnUnmatchedRequests);
-
-		if (mustCheck) {
-			final List<LoggedRequest> unmatchedRequests = server.findAllUnmatchedRequests();
-			if (!unmatchedRequests.isEmpty()) {
-				final List<NearMiss> nearMisses = server.findNearMissesForAllUnmatchedRequests();
-				throw nearMisses.isEmpty()
-					  ? VerificationException.forUnmatchedRequests(unmatchedRequests)
-					  : VerificationException.forUnmatchedNearMisses(nearMisses);
+			.orElse(failOnUnmatchedRequests);
+	}
+
+	private static boolean isLazyStart(final WireMockServer server) {
+		return server instanceof ManagedWireMockServer && ((ManagedWireMockServer) server).isLazyStart();
+	}
+
+	/**
+	 * Rolls back the changes of the test to the baseline of the server, if taken, or resets it completely.
+	 */
+	private static void resetServer(final WireMockServer server) {
+		final Optional<BaselineStubMappings> baseline = BaselineStubMappings.find(server);
+		if (baseline.isPresent()) {
+			baseline.get().rollback();
+			server.resetRequests();
+		} else {
+			server.resetAll();
+		}
+		UnmatchedRequestTracker.find(server).ifPresent(UnmatchedRequestTracker::reset);
+		if (server instanceof ManagedWireMockServer) {
+			((ManagedWireMockServer) server).getMetrics().ifPresent(ServerMetrics::reset);
+		}
+	}
+
+	/**
+	 * Resets the partition only, since the server is still used by other tests. Metrics are kept for the same reason.
+	 */
+	private static void resetPartition(final WireMockServer server, final PartitionedAdmin partitionedAdmin) {
+		partitionedAdmin.resetAll();
+		UnmatchedRequestTracker.find(server).ifPresent(tracker -> tracker.reset(partitionedAdmin.getPartition()));
+	}
+
+	/**
+	 * Publishes the metrics of the test as report entries, one per {@link ManagedWireMockServer} recording metrics,
+	 * keyed by its port.
+	 */
+	private static void publishMetrics(final ExtensionContext context, final List<ServerGroup> serverGroups) {
+		serverGroups.stream()
+				.flatMap(group -> group.getServers().stream())
+				.filter(ManagedWireMockServer.class::isInstance)
+				.map(ManagedWireMockServer.class::cast)
+				.filter(WireMockServer::isRunning)
+				.forEach(server -> server.getMetrics().ifPresent(metrics ->
+						context.publishReportEntry("wiremock.metrics." + server.port(), metrics.snapshot().toString())));
+	}
+
+	/**
+	 * @return the metadata of the current test class within its enclosing test classes, resolved once per test run.
+	 */
+	private static TestClassMetadata retrieveMetadata(final ExtensionContext context) {
+		final ExtensionContext classContext = retrieveClassContext(context);
+		return context.getRoot().getStore(METADATA_NAMESPACE).getOrComputeIfAbsent(TestClassMetadata.keyOf(classContext),
+				testClasses -> TestClassMetadata.of(classContext), TestClassMetadata.class);
+	}
+
+	private static ServerLifecycle retrieveLifecycle(final TestClassMetadata metadata) {
+		return metadata.getSettings()
+				.map(WireMockSettings::lifecycle)
+				.orElse(ServerLifecycle.PER_METHOD);
+	}
+
+	private static ServerGroup createServerGroup(final ExtensionContext context,
+	                                             final TestClassMetadata metadata,
+	                                             final Options options) {
+
+		final Options serverOptions = metadata.getSettings()
+				.map(settings -> {
+					final Options journalOptions = settings.journal().applyTo(options, settings.maxJournalEntries());
+					final Options delayOptions = settings.nonBlockingDelays()
+							? ManagedJettyHttpServer.enableAsynchronousResponses(journalOptions) : journalOptions;
+					final Options metricsOptions = settings.metrics() || settings.publishMetrics()
+							? ServerMetrics.applyTo(delayOptions) : delayOptions;
+					return settings.sharedThreadPool()
+							? SharedThreadPool.applyTo(metricsOptions, retrieveMaxSharedThreads(context)) : metricsOptions;
+				})
+				.orElse(options);
+		final ServerLifecycle lifecycle = retrieveLifecycle(metadata);
+		if (lifecycle == ServerLifecycle.POOLED && !ServerPool.canPool(serverOptions)) {
+			context.publishReportEntry("wiremock.pool", "Servers on fixed ports are not pooled, since they would "
+					+ "collide with servers leased to other test classes, hence kept per class instead. Configure "
+					+ "dynamic ports to pool them.");
+		}
+		final boolean indexedMatching = metadata.getSettings().map(WireMockSettings::indexedMatching).orElse(false);
+		if (lifecycle == ServerLifecycle.POOLED && ServerPool.canPool(serverOptions)) {
+			final ServerGroup serverGroup = retrieveServerPool(context).leaseGroup(serverOptions);
+			if (indexedMatching) {
+				// the index does not change matching results, so it may remain when the server is leased again
+				serverGroup.getServers().stream()
+						.filter(ManagedWireMockServer.class::isInstance)
+						.forEach(server -> ((ManagedWireMockServer) server).indexedMatching());
 			}
+			return serverGroup;
+		}
+		final boolean lazyStart = metadata.getSettings().map(WireMockSettings::lazyStart).orElse(false);
+		final Options portOptions = retrievePortAllocator(context).map(allocator -> allocator.applyTo(serverOptions)).orElse(serverOptions);
+		final ManagedWireMockServer server = new ManagedWireMockServer(portOptions).lazyStart(lazyStart);
+		if (indexedMatching) {
+			server.indexedMatching();
+		}
+		if (metadata.getSettings().map(WireMockSettings::journal).orElse(JournalMode.DEFAULT) == JournalMode.FILE) {
+			server.fileJournal(createJournalFile(context));
 		}
+		return new ServerGroup(singletonList(server), lifecycle == ServerLifecycle.POOLED ? ServerLifecycle.PER_CLASS : lifecycle);
 	}
 
-	private static <A extends Annotation> Optional<A> retrieveAnnotation(final ExtensionContext context,
-	                                                                     final Class<A> annotationType) {
+	/**
+	 * Takes the baseline of reusable servers when first used by the test class, which includes the stubs registered
+	 * by class-level setup and the class-level {@link WireMockStubs} of the default server.
+	 *
+	 * @return {@code true} if the class-level stub sets of the default server are part of its baseline.
+	 */
+	private static boolean takeBaselines(final ExtensionContext context,
+	                                     final TestClassMetadata metadata,
+	                                     final WireMockServer defaultServer,
+	                                     final boolean partitioned) {
 
-		Optional<ExtensionContext> currentContext = Optional.of(context);
-		Optional<A> annotation = Optional.empty();
+		boolean classStubsInBaseline = false;
+		for (final ServerGroup group : collectServerGroups(context, metadata)) {
+			if (!group.isReusable()) {
+				continue;
+			}
+			final boolean baselineToTake = group.markBaseline();
+			for (final WireMockServer server : group.getServers()) {
+				// stubs of partitions must not survive their test
+				final boolean classStubs = server == defaultServer && !partitioned;
+				if (baselineToTake) {
+					BaselineStubMappings.install(server).ifPresent(baseline -> {
+						if (classStubs) {
+							applyStubSets(context, metadata.getStubLocations(), server);
+						}
+						baseline.markBaseline();
+					});
+				}
+				classStubsInBaseline |= classStubs && BaselineStubMappings.find(server).isPresent();
+			}
+		}
+		return classStubsInBaseline;
+	}
+
+	private static void applyStubSets(final ExtensionContext context,
+	                                  final TestClassMetadata metadata,
+	                                  final Admin admin,
+	                                  final boolean classStubsInBaseline) {
+
+		final List<String> classLocations = metadata.getStubLocations();
+		final List<String> locations = new ArrayList<>(classStubsInBaseline ? emptyList() : classLocations);
+		context.getTestMethod()
+				.flatMap(method -> findAnnotation(method, WireMockStubs.class))
+				.ifPresent(stubs -> Stream.of(stubs.value())
+						.filter(location -> !classLocations.contains(location) && !locations.contains(location))
+						.forEach(locations::add));
+		applyStubSets(context, locations, admin);
+	}
+
+	private static void applyStubSets(final ExtensionContext context, final List<String> locations, final Admin admin) {
 
-		while (currentContext.isPresent() && !annotation.isPresent()) {
-			annotation = AnnotationSupport.findAnnotation(currentContext.get().getElement(), annotationType);
-			currentContext = currentContext.get().getParent();
+		if (locations.isEmpty()) {
+			return;
 		}
-		return annotation;
+		final StubSet.Cache cache = context.getRoot().getStore(NAMESPACE)
+				.getOrComputeIfAbsent(StubSet.Cache.class, key -> new StubSet.Cache(), StubSet.Cache.class);
+		locations.forEach(location -> cache.get(location).applyTo(admin));
+	}
+
+	private static ServerPool retrieveServerPool(final ExtensionContext context) {
+
+		final int maxIdleServers = context.getConfigurationParameter(ServerPool.MAX_IDLE_SERVERS_PROPERTY_NAME)
+				.map(value -> parseConfigurationParameter(ServerPool.MAX_IDLE_SERVERS_PROPERTY_NAME, value))
+				.orElse(ServerPool.DEFAULT_MAX_IDLE_SERVERS);
+		final UnaryOperator<Options> portAssignment = retrievePortAllocator(context)
+				.<UnaryOperator<Options>>map(allocator -> allocator::applyTo)
+				.orElse(UnaryOperator.identity());
+		return context.getRoot().getStore(NAMESPACE)
+				.getOrComputeIfAbsent(ServerPool.class, key -> new ServerPool(maxIdleServers, portAssignment), ServerPool.class);
+	}
+
+	/**
+	 * @return the options of servers not configured by the test, on the default port unless ports are allocated.
+	 */
+	private static Options defaultOptions(final ExtensionContext context) {
+		return retrievePortAllocator(context).isPresent() ? wireMockConfig().dynamicPort() : wireMockConfig();
 	}
 
-	private static List<Field> retrieveAnnotatedFields(final ExtensionContext context,
-	                                                   final Class<? extends Annotation> annotationType,
-	                                                   final Class<?> fieldType) {
+	private static Optional<PortAllocator> retrievePortAllocator(final ExtensionContext context) {
 
-		return context.getElement()
-				.filter(Class.class::isInstance)
-				.map(Class.class::cast)
-				.map(testInstanceClass ->
-						AnnotationUtils.findAnnotatedFields(testInstanceClass, annotationType, field -> fieldType.isAssignableFrom(field.getType()))
-				)
-				.orElseGet(Collections::emptyList);
+		if (!context.getConfigurationParameter(PortAllocator.ENABLED_PROPERTY_NAME).map(Boolean::parseBoolean).orElse(false)) {
+			return Optional.empty();
+		}
+		final Path lockFile = Paths.get(context.getConfigurationParameter(PortAllocator.LOCK_FILE_PROPERTY_NAME)
+				.orElse(PortAllocator.DEFAULT_LOCK_FILE));
+		final int blockSize = context.getConfigurationParameter(PortAllocator.BLOCK_SIZE_PROPERTY_NAME)
+				.map(value -> parseConfigurationParameter(PortAllocator.BLOCK_SIZE_PROPERTY_NAME, value))
+				.orElse(PortAllocator.DEFAULT_BLOCK_SIZE);
+		return Optional.of(context.getRoot().getStore(NAMESPACE).getOrComputeIfAbsent(
+				PortAllocator.LOCK_FILE_PROPERTY_NAME + "=" + lockFile.toAbsolutePath(),
+				key -> new PortAllocator(lockFile, blockSize), PortAllocator.class));
 	}
 
-	private static void startServer(final WireMockServer server) {
-		if (!server.isRunning()) {
-			server.start();
-			WireMock.configureFor("localhost", server.port());
+	/**
+	 * @return a new file in the journal directory, named after the test class.
+	 */
+	private static Path createJournalFile(final ExtensionContext context) {
+
+		final Path directory = Paths.get(context.getConfigurationParameter(FileRequestJournal.DIRECTORY_PROPERTY_NAME)
+				.orElse(FileRequestJournal.DEFAULT_DIRECTORY));
+		try {
+			Files.createDirectories(directory);
+			return Files.createTempFile(directory, context.getRequiredTestClass().getSimpleName() + "-", ".journal");
+		} catch (final IOException e) {
+			throw new ExtensionConfigurationException("Cannot create request journal in " + directory.toAbsolutePath(), e);
 		}
 	}
 
-	private static void stopServer(final WireMockServer server) {
-		server.stop();
+	private static ServerExecutor retrieveServerExecutor(final ExtensionContext context) {
+
+		final int parallelism = context.getConfigurationParameter(ServerExecutor.PARALLELISM_PROPERTY_NAME)
+				.map(value -> parseConfigurationParameter(ServerExecutor.PARALLELISM_PROPERTY_NAME, value))
+				.orElse(ServerExecutor.DEFAULT_PARALLELISM);
+		if (parallelism < 1) {
+			throw new ExtensionConfigurationException("Configuration parameter " + ServerExecutor.PARALLELISM_PROPERTY_NAME
+					+ " must be positive, but was: " + parallelism);
+		}
+		return context.getRoot().getStore(NAMESPACE)
+				.getOrComputeIfAbsent(ServerExecutor.class, key -> new ServerExecutor(parallelism), ServerExecutor.class);
 	}
 
-	private static List<WireMockServer> collectServers(final ExtensionContext context) {
+	private static int retrieveMaxSharedThreads(final ExtensionContext context) {
 
-		return collectTestClasses(context)
-				.map(testClass -> context.getStore(NAMESPACE).get(testClass))
-				.filter(Objects::nonNull)
-				.map(List.class::cast)
-				.flatMap(Collection::stream)
-				.map(WireMockServer.class::cast)
-				.collect(toList());
+		final int maxThreads = context.getConfigurationParameter(SharedThreadPool.MAX_THREADS_PROPERTY_NAME)
+				.map(value -> parseConfigurationParameter(SharedThreadPool.MAX_THREADS_PROPERTY_NAME, value))
+				.orElse(SharedThreadPool.DEFAULT_MAX_THREADS);
+		if (maxThreads < 1) {
+			throw new ExtensionConfigurationException("Configuration parameter " + SharedThreadPool.MAX_THREADS_PROPERTY_NAME
+					+ " must be positive, but was: " + maxThreads);
+		}
+		return maxThreads;
 	}
 
-	private static Stream<Class<?>> collectTestClasses(final ExtensionContext context) {
+	private static int retrieveMaxNearMissRequests(final ExtensionContext context) {
+		return context.getConfigurationParameter(UnmatchedRequestsException.MAX_NEAR_MISS_REQUESTS_PROPERTY_NAME)
+				.map(value -> parseConfigurationParameter(UnmatchedRequestsException.MAX_NEAR_MISS_REQUESTS_PROPERTY_NAME, value))
+				.orElse(UnmatchedRequestsException.DEFAULT_MAX_NEAR_MISS_REQUESTS);
+	}
 
-		return Stream.concat(
-				Stream.of(context.getRequiredTestClass()),
-				context.getParent()
-						.filter(parentContext -> parentContext != context.getRoot())
-						.map(WireMockExtension::collectTestClasses)
-						.orElseGet(Stream::empty)
-		).distinct();
+	private static int parseConfigurationParameter(final String key, final String value) {
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (final NumberFormatException e) {
+			throw new ExtensionConfigurationException("Configuration parameter " + key + " must be an integer, but was: " + value, e);
+		}
+	}
+
+	private static boolean retrieveStaticDslUsage(final ExtensionContext context, final TestClassMetadata metadata) {
+		return metadata.isStaticDsl()
+				|| context.getTestMethod().filter(method -> isAnnotated(method, StaticDsl.class)).isPresent()
+				|| metadata.getSettings()
+						.map(WireMockSettings::configureStaticDsl)
+						.orElse(true);
+	}
+
+	private static ExtensionContext retrieveClassContext(final ExtensionContext context) {
+
+		ExtensionContext currentContext = context;
+		while (currentContext.getTestMethod().isPresent()) {
+			currentContext = currentContext.getParent().orElseThrow(IllegalStateException::new);
+		}
+		return currentContext;
+	}
+
+	private static Optional<ServerGroup> findReusableServers(final ExtensionContext context, final Class<?> testClass) {
+		return Optional.ofNullable(context.getStore(NAMESPACE).get(testClass, ServerGroup.class))
+				.filter(ServerGroup::isReusable);
+	}
+
+	private static void injectReusableServers(final Object testInstance,
+	                                          final TestClassMetadata metadata,
+	                                          final List<WireMockServer> servers) throws IllegalAccessException {
+
+		final List<Field> managedServerFields = metadata.getManagedServerFields();
+		if (managedServerFields.isEmpty()) {
+			for (final Field field : metadata.getInjectedServerFields()) {
+				field.set(testInstance, servers.get(0));
+			}
+		} else {
+			// fields are found in a stable order, so the n-th field receives the n-th server
+			for (int i = 0; i < managedServerFields.size(); i++) {
+				managedServerFields.get(i).set(testInstance, servers.get(i));
+			}
+		}
+	}
+
+	private static void injectClient(final ExtensionContext context,
+	                                 final TestClassMetadata metadata,
+	                                 final WireMock client) throws IllegalAccessException {
+
+		final Object testInstance = context.getRequiredTestInstance();
+		for (final Field field : metadata.getInjectedClientFields()) {
+			field.set(testInstance, client);
+		}
+	}
+
+	private static List<ServerGroup> collectServerGroups(final ExtensionContext context, final TestClassMetadata metadata) {
+
+		final ExtensionContext.Store store = context.getStore(NAMESPACE);
+		final List<ServerGroup> serverGroups = new ArrayList<>();
+		for (final Class<?> testClass : metadata.getTestClasses()) {
+			final ServerGroup serverGroup = store.get(testClass, ServerGroup.class);
+			if (serverGroup != null) {
+				serverGroups.add(serverGroup);
+			}
+		}
+		return serverGroups;
 	}
 }
@@ -17,4 +17,90 @@ public @interface WireMockSettings {
 
 	boolean failOnUnmatchedRequests() default true;
 
+	ServerLifecycle lifecycle() default ServerLifecycle.PER_METHOD;
+
+	/**
+	 * @return {@code false} to keep the static WireMock DSL untouched, except for tests annotated with {@link StaticDsl}.
+	 * Tests should then use the client injected by {@link InjectClient} instead.
+	 */
+	boolean configureStaticDsl() default true;
+
+	/**
+	 * @return {@code true} to compute the closest stub mappings of unmatched requests only when the failure is
+	 * reported, e.g. by the IDE or build tool, instead of right after the test.
+	 */
+	boolean lazyNearMisses() default false;
+
+	/**
+	 * @return the request journal mode of servers created by the extension, i.e. not applied to {@link Managed} servers.
+	 * Use {@link JournalMode#applyTo(com.github.tomakehurst.wiremock.core.Options, int)} for those.
+	 */
+	JournalMode journal() default JournalMode.DEFAULT;
+
+	/**
+	 * @return the maximum number of requests retained by a {@link JournalMode#BOUNDED} journal.
+	 */
+	int maxJournalEntries() default 1000;
+
+	/**
+	 * @return {@code true} to record the {@link ServerMetrics} of servers created by the extension, i.e. not of
+	 * {@link Managed} servers. Use {@link ServerMetrics#applyTo(com.github.tomakehurst.wiremock.core.Options)} for those.
+	 */
+	boolean metrics() default false;
+
+	/**
+	 * @return {@code true} to publish the {@link ServerMetrics} of each {@link ManagedWireMockServer} recording them as
+	 * report entry after each test, which enables {@link #metrics()}. Servers kept across tests are reset afterwards,
+	 * so each entry covers a single test.
+	 */
+	boolean publishMetrics() default false;
+
+	/**
+	 * @return {@code true} to start servers created by the extension only when a test requests their port, e.g. via
+	 * {@code port()}, {@code baseUrl()} or {@link WireMockBaseUrl}. Servers of tests that only register or verify stubs,
+	 * or do not use them at all, are never started. Not applicable to {@link ServerLifecycle#POOLED} servers.
+	 */
+	boolean lazyStart() default false;
+
+	/**
+	 * @return {@code true} to index the stub mappings of servers created by the extension by HTTP method and exact
+	 * URL or path, which speeds up matching of servers with thousands of stubs.
+	 * @see ManagedWireMockServer#indexedMatching()
+	 */
+	boolean indexedMatching() default false;
+
+	/**
+	 * @return {@code true} to serve fixed delays and chunked dribble delays of servers created by the extension
+	 * asynchronously, so delayed requests do not block container threads. The number of threads serving delayed
+	 * responses is taken from {@code asynchronousResponseThreads} of the options, if configured.
+	 */
+	boolean nonBlockingDelays() default false;
+
+	/**
+	 * @return {@code true} to run the Jetty servers created by the extension on a single bounded thread pool shared
+	 * by all test classes, so the number of threads grows with the load instead of the number of servers. Its maximum
+	 * size is taken from the configuration parameter {@code wiremock.extension.sharedThreadPool.maxThreads}
+	 * (default: 200) when first used.
+	 */
+	boolean sharedThreadPool() default false;
+
+	/**
+	 * @return {@code true} to give each test a {@link Partition} of the default server, so concurrent tests can share
+	 * a server kept for the class or pooled. The injected {@link com.github.tomakehurst.wiremock.client.WireMock}
+	 * client and the static DSL register stubs requiring the {@value Partition#HEADER} header of the partition,
+	 * which requests of the test must send. Verifications, the check for unmatched requests and resets after each
+	 * test only regard the partition.
+	 */
+	boolean partitioned() default false;
+
+	/**
+	 * @return {@code true} to connect to an already running server instead of starting servers, also enabled for all
+	 * test classes by the configuration parameter {@code wiremock.extension.remote.enabled}. The server is located by
+	 * the configuration parameter or system property {@code wiremock.extension.remote.url}
+	 * (default: {@code http://localhost:8080}). Each test receives a {@link #partitioned() partition} of the server,
+	 * its stubs are removed after the test. Options configured are ignored, servers cannot be injected.
+	 * @see StubImportExtension
+	 */
+	boolean remote() default false;
+
 }
@@ -0,0 +1,30 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Declares stub mappings registered at the default server of each test of the annotated class or method.
+ * Each location is parsed once per test run and shared by all tests referencing it.
+ *
+ * @author Jens Piegsa
+ */
+@Documented
+@Inherited
+@Target({TYPE, METHOD})
+@Retention(RUNTIME)
+public @interface WireMockStubs {
+
+	/**
+	 * @return locations of JSON mapping files or of directories containing them, either on the class path
+	 * prefixed by {@value StubSet#CLASSPATH_PREFIX} or in the file system. A file contains a single stub mapping or
+	 * an array of them named {@code mappings}.
+	 */
+	String[] value();
+}
@@ -0,0 +1,127 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.jenspiegsa.wiremockextension.ManagedWireMockServer.with;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.serverError;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+
+/**
+ * @author Jens Piegsa
+ */
+@DisplayName("Baseline stub mappings")
+class BaselineStubMappingsTest {
+
+	private ManagedWireMockServer server;
+	private StubMapping baselineStub;
+	private BaselineStubMappings baseline;
+
+	@BeforeEach
+	void createServer() {
+		server = with(wireMockConfig().dynamicPort());
+		baselineStub = server.stubFor(get("/baseline").willReturn(ok()));
+		server.stubFor(get("/order").inScenario("order").whenScenarioStateIs(STARTED).willReturn(ok()).willSetStateTo("ordered"));
+		baseline = BaselineStubMappings.install(server).orElseThrow(IllegalStateException::new);
+		baseline.markBaseline();
+	}
+
+	@Test
+	@DisplayName("should install once.")
+	void shouldInstallOnce() {
+		then(BaselineStubMappings.install(server)).containsSame(baseline);
+		then(BaselineStubMappings.find(server)).containsSame(baseline);
+		then(BaselineStubMappings.find(with(wireMockConfig().dynamicPort()))).isEmpty();
+	}
+
+	@Test
+	@DisplayName("should remove added stubs and restore removed and edited stubs.")
+	void shouldRollBackStubs() {
+
+		// given
+		server.stubFor(get("/added").willReturn(ok()));
+		server.editStub(get("/baseline").withId(baselineStub.getId()).willReturn(serverError()));
+
+		// when
+		baseline.rollback();
+
+		then(server.getStubMappings()).hasSize(2);
+		then(server.getSingleStubMapping(baselineStub.getId()).getResponse().getStatus()).isEqualTo(200);
+		then(server.getStubMappings()).noneMatch(stubMapping -> "/added".equals(stubMapping.getRequest().getUrl()));
+
+		// when
+		server.removeStub(baselineStub);
+		baseline.rollback();
+
+		then(server.getSingleStubMapping(baselineStub.getId())).isSameAs(baselineStub);
+	}
+
+	@Test
+	@DisplayName("should keep the precedence of removed stubs.")
+	void shouldKeepPrecedenceOfRemovedStubs() throws IOException {
+
+		// given
+		final StubMapping earlierStub = server.stubFor(get("/overlapping").willReturn(serverError()));
+		server.stubFor(get("/overlapping").willReturn(ok()));
+		baseline.markBaseline();
+		server.removeStub(earlierStub);
+
+		// when
+		baseline.rollback();
+
+		then(server.getStubMappings()).hasSize(4).contains(earlierStub);
+		then(server.inProcess().openConnection(server.inProcess().url("/overlapping")).getResponseCode()).isEqualTo(200);
+	}
+
+	@Test
+	@DisplayName("should reset scenarios changed by served stubs.")
+	void shouldResetChangedScenarios() throws IOException {
+
+		// given
+		then(server.inProcess().openConnection(server.inProcess().url("/order")).getResponseCode()).isEqualTo(200);
+		then(server.getAllScenarios().getScenarios().get(0).getState()).isEqualTo("ordered");
+
+		// when
+		baseline.rollback();
+
+		then(server.getAllScenarios().getScenarios().get(0).getState()).isEqualTo(STARTED);
+	}
+
+	@Test
+	@DisplayName("should restore baseline after complete reset.")
+	void shouldRestoreBaselineAfterReset() {
+
+		// given
+		server.resetAll();
+		server.stubFor(get("/added").willReturn(ok()));
+
+		// when
+		baseline.rollback();
+
+		then(server.getStubMappings()).hasSize(2).contains(baselineStub);
+	}
+
+	@Test
+	@DisplayName("should keep tracking when indexed matching is enabled afterwards.")
+	void shouldTrackIndexedMatching() {
+
+		// given
+		server.indexedMatching();
+		server.stubFor(get("/added").willReturn(ok()));
+
+		// when
+		baseline.rollback();
+
+		then(BaselineStubMappings.find(server)).containsSame(baseline);
+		then(server.getStubMappings()).hasSize(2);
+	}
+}
@@ -0,0 +1,137 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.jenspiegsa.wiremockextension.ManagedWireMockServer.with;
+import static com.github.tomakehurst.wiremock.client.WireMock.any;
+import static com.github.tomakehurst.wiremock.client.WireMock.anyRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.anyUrl;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.lessThan;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.requestMadeFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.VerificationException;
+import com.github.tomakehurst.wiremock.matching.MatchResult;
+import com.github.tomakehurst.wiremock.verification.RequestJournalDisabledException;
+
+/**
+ * @author Jens Piegsa
+ */
+@DisplayName("Batch verification")
+@ExtendWith(WireMockExtension.class)
+class BatchVerificationTest {
+
+	@Nested
+	@DisplayName("of injected server")
+	class InjectedServer {
+
+		@InjectServer WireMockServer server;
+
+		@BeforeEach
+		void sendRequests() throws IOException {
+			server.stubFor(any(anyUrl()).willReturn(ok()));
+			request(server, "GET", "/orders?page=1");
+			request(server, "GET", "/orders?page=2");
+			request(server, "POST", "/orders");
+		}
+
+		@Test
+		@DisplayName("should pass when all expectations are met.")
+		void shouldPassWhenAllExpectationsMet() {
+			BatchVerification.of(server)
+					.expect(getRequestedFor(urlEqualTo("/orders?page=1")))
+					.expect(2, getRequestedFor(urlPathEqualTo("/orders")))
+					.expect(1, postRequestedFor(urlEqualTo("/orders")))
+					.expect(3, anyRequestedFor(urlMatching("/orders.*")))
+					.expect(lessThan(2), requestMadeFor(request -> MatchResult.of("POST".equals(request.getMethod().getName()))))
+					.expect(0, getRequestedFor(urlEqualTo("/customers")))
+					.verify();
+		}
+
+		@Test
+		@DisplayName("should report all failed expectations together.")
+		void shouldReportAllFailures() {
+
+			// when
+			final Throwable thrown = catchThrowable(() -> BatchVerification.of(server)
+					.expect(getRequestedFor(urlEqualTo("/orders?page=1")))
+					.expect(getRequestedFor(urlEqualTo("/customers")))
+					.expect(1, getRequestedFor(urlPathEqualTo("/orders")))
+					.verify());
+
+			then(thrown)
+					.isInstanceOf(VerificationException.class)
+					.hasMessageStartingWith("2 of 3 request verifications failed")
+					.hasMessageContaining("/customers")
+					.hasMessageContaining("Expected exactly 1 requests")
+					.hasMessageContaining("but received 2");
+		}
+	}
+
+	@Nested
+	@DisplayName("of managed server")
+	class ManagedServer {
+
+		@Managed WireMockServer server = with(wireMockConfig().dynamicPort());
+
+		@Test
+		@DisplayName("should count requests of the server.")
+		void shouldCountRequests() throws IOException {
+
+			// given
+			server.stubFor(any(anyUrl()).willReturn(ok()));
+			request(server, "GET", "/orders");
+			request(server, "GET", "/orders");
+
+			// when
+			final BatchVerification verification = BatchVerification.of(server).expect(2, getRequestedFor(urlEqualTo("/orders")));
+
+			verification.verify();
+			verification.verify();
+		}
+	}
+
+	@Nested
+	@DisplayName("of server without request journal")
+	class DisabledRequestJournal {
+
+		@Managed WireMockServer server = with(wireMockConfig().dynamicPort().disableRequestJournal());
+
+		@Test
+		@DisplayName("should fail instead of counting no requests.")
+		void shouldFailWithoutRequestJournal() throws IOException {
+
+			// given
+			server.stubFor(any(anyUrl()).willReturn(ok()));
+			request(server, "GET", "/orders");
+
+			then(catchThrowable(() -> BatchVerification.of(server).expect(0, getRequestedFor(urlEqualTo("/orders"))).verify()))
+					.isInstanceOf(RequestJournalDisabledException.class);
+			then(catchThrowable(() -> BatchVerification.of(server).expect(lessThan(1), requestMadeFor(request -> MatchResult.exactMatch())).verify()))
+					.isInstanceOf(RequestJournalDisabledException.class);
+		}
+	}
+
+	private static void request(final WireMockServer server, final String method, final String path) throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection) new URL(server.baseUrl() + path).openConnection();
+		connection.setRequestMethod(method);
+		then(connection.getResponseCode()).isEqualTo(200);
+	}
+}
@@ -0,0 +1,220 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.jenspiegsa.wiremockextension.ManagedWireMockServer.with;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+import static org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder.request;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.platform.launcher.Launcher;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.core.Options;
+
+/**
+ * Measures the extension overhead per test invocation, excluding server start-up by means of
+ * {@link ServerLifecycle#PER_CLASS} and {@link ServerLifecycle#POOLED}.
+ * {@link #withoutExtension()} is the baseline of the JUnit engine itself. The {@code perMethod} variants measure
+ * the same cases with the default {@link ServerLifecycle#PER_METHOD}, including a server start per test.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtensionOverheadBenchmark {
+
+	private static final int TESTS_PER_CLASS = 100;
+
+	private Launcher launcher;
+	private LauncherDiscoveryRequest withExtensionRequest;
+	private LauncherDiscoveryRequest withoutExtensionRequest;
+	private LauncherDiscoveryRequest simpleRequest;
+	private LauncherDiscoveryRequest injectServerRequest;
+	private LauncherDiscoveryRequest managedServersRequest;
+	private LauncherDiscoveryRequest simplePerMethodRequest;
+	private LauncherDiscoveryRequest injectServerPerMethodRequest;
+	private LauncherDiscoveryRequest managedServersPerMethodRequest;
+
+	@Setup
+	public void setup() {
+		launcher = LauncherFactory.create();
+		withExtensionRequest = request().selectors(selectClass(WithExtensionTestCase.class)).build();
+		withoutExtensionRequest = request().selectors(selectClass(WithoutExtensionTestCase.class)).build();
+		simpleRequest = request().selectors(selectClass(SimpleTestCase.class)).build();
+		injectServerRequest = request().selectors(selectClass(InjectServerTestCase.class)).build();
+		managedServersRequest = request().selectors(selectClass(ManagedServersTestCase.class)).build();
+		simplePerMethodRequest = request().selectors(selectClass(SimplePerMethodTestCase.class)).build();
+		injectServerPerMethodRequest = request().selectors(selectClass(InjectServerPerMethodTestCase.class)).build();
+		managedServersPerMethodRequest = request().selectors(selectClass(ManagedServersPerMethodTestCase.class)).build();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TESTS_PER_CLASS)
+	public TestExecutionSummary withExtension() {
+		return execute(withExtensionRequest);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TESTS_PER_CLASS)
+	public TestExecutionSummary withoutExtension() {
+		return execute(withoutExtensionRequest);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TESTS_PER_CLASS)
+	public TestExecutionSummary simple() {
+		return execute(simpleRequest);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TESTS_PER_CLASS)
+	public TestExecutionSummary injectServer() {
+		return execute(injectServerRequest);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TESTS_PER_CLASS)
+	public TestExecutionSummary managedServers() {
+		return execute(managedServersRequest);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TESTS_PER_CLASS)
+	public TestExecutionSummary simplePerMethod() {
+		return execute(simplePerMethodRequest);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TESTS_PER_CLASS)
+	public TestExecutionSummary injectServerPerMethod() {
+		return execute(injectServerPerMethodRequest);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TESTS_PER_CLASS)
+	public TestExecutionSummary managedServersPerMethod() {
+		return execute(managedServersPerMethodRequest);
+	}
+
+	private TestExecutionSummary execute(final LauncherDiscoveryRequest discoveryRequest) {
+		final SummaryGeneratingListener listener = new SummaryGeneratingListener();
+		launcher.execute(discoveryRequest, listener);
+		final TestExecutionSummary summary = listener.getSummary();
+		if (summary.getTestsSucceededCount() != TESTS_PER_CLASS) {
+			throw new IllegalStateException("benchmark test case failed: " + summary.getFailures());
+		}
+		return summary;
+	}
+
+	@WireMockSettings(lifecycle = ServerLifecycle.POOLED, configureStaticDsl = false)
+	static class WithExtensionTestCase {
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@Nested
+		class Inner {
+
+			@InjectClient WireMock client;
+
+			@RepeatedTest(TESTS_PER_CLASS)
+			void test(final WireMockServer resolvedServer) {
+			}
+		}
+	}
+
+	static class WithoutExtensionTestCase {
+
+		@Nested
+		class Inner {
+
+			@RepeatedTest(TESTS_PER_CLASS)
+			void test() {
+			}
+		}
+	}
+
+	@WireMockSettings(lifecycle = ServerLifecycle.PER_CLASS)
+	static class SimpleTestCase {
+
+		@RepeatedTest(TESTS_PER_CLASS)
+		void test() {
+		}
+	}
+
+	@WireMockSettings(lifecycle = ServerLifecycle.PER_CLASS)
+	static class InjectServerTestCase {
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@RepeatedTest(TESTS_PER_CLASS)
+		void test() {
+		}
+	}
+
+	@WireMockSettings(lifecycle = ServerLifecycle.PER_CLASS)
+	static class ManagedServersTestCase {
+
+		@Managed WireMockServer s1 = with(wireMockConfig().dynamicPort());
+		@Managed WireMockServer s2 = with(wireMockConfig().dynamicPort());
+		@Managed WireMockServer s3 = with(wireMockConfig().dynamicPort());
+
+		@RepeatedTest(TESTS_PER_CLASS)
+		void test() {
+		}
+	}
+
+	@ExtendWith(WireMockExtension.class)
+	static class SimplePerMethodTestCase {
+
+		@RepeatedTest(TESTS_PER_CLASS)
+		void test() {
+		}
+	}
+
+	@ExtendWith(WireMockExtension.class)
+	static class InjectServerPerMethodTestCase {
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@RepeatedTest(TESTS_PER_CLASS)
+		void test() {
+		}
+	}
+
+	@ExtendWith(WireMockExtension.class)
+	static class ManagedServersPerMethodTestCase {
+
+		@Managed WireMockServer s1 = with(wireMockConfig().dynamicPort());
+		@Managed WireMockServer s2 = with(wireMockConfig().dynamicPort());
+		@Managed WireMockServer s3 = with(wireMockConfig().dynamicPort());
+
+		@RepeatedTest(TESTS_PER_CLASS)
+		void test() {
+		}
+	}
+}
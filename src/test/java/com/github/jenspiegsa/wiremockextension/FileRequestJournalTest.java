@@ -0,0 +1,178 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.jenspiegsa.wiremockextension.ManagedWireMockServer.with;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.github.tomakehurst.wiremock.client.VerificationException;
+import com.github.tomakehurst.wiremock.common.Json;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+
+/**
+ * @author Jens Piegsa
+ */
+@DisplayName("File request journal")
+@ExtendWith(WireMockExtension.class)
+class FileRequestJournalTest {
+
+	@Managed ManagedWireMockServer server = with(wireMockConfig().dynamicPort()).failOnUnmatchedRequest(false);
+
+	Path directory;
+	FileRequestJournal journal;
+	StubMapping stub;
+
+	@BeforeEach
+	void installJournal() throws IOException {
+		directory = Files.createTempDirectory("wiremock-journal");
+		journal = server.fileJournal(directory.resolve("requests.journal")).getFileJournal().get();
+		stub = server.stubFor(get(urlPathEqualTo("/orders")).willReturn(ok("order")));
+	}
+
+	@AfterEach
+	void deleteJournal() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			for (final Path file : (Iterable<Path>) files::iterator) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(directory);
+	}
+
+	@Test
+	@DisplayName("should verify requests read from the file.")
+	void shouldVerifyRequests() throws IOException {
+
+		// when
+		request("GET", "/orders?page=1", null);
+		request("GET", "/orders?page=2", null);
+		request("POST", "/orders", "{\"id\":1}");
+
+		then(journal.size()).isEqualTo(3);
+		then(Files.size(journal.getFile())).isPositive();
+		server.verify(2, getRequestedFor(urlPathEqualTo("/orders")));
+		server.verify(postRequestedFor(urlEqualTo("/orders")));
+		then(server.findAll(postRequestedFor(urlEqualTo("/orders"))).get(0).getBodyAsString()).isEqualTo("{\"id\":1}");
+		BatchVerification.of(server).expect(1, getRequestedFor(urlEqualTo("/orders?page=1"))).verify();
+		then(catchThrowable(() -> server.verify(getRequestedFor(urlEqualTo("/customers")))))
+				.isInstanceOf(VerificationException.class);
+	}
+
+	@Test
+	@DisplayName("should list serve events most recent first.")
+	void shouldListServeEvents() throws IOException {
+
+		// when
+		request("GET", "/orders?page=1", null);
+		request("GET", "/orders?page=2", null);
+
+		final List<ServeEvent> serveEvents = server.getAllServeEvents();
+		then(serveEvents).hasSize(2);
+		then(serveEvents.get(0).getRequest().getUrl()).isEqualTo("/orders?page=2");
+		then(serveEvents.get(0).getWasMatched()).isTrue();
+		then(serveEvents.get(0).getStubMapping().getId()).isEqualTo(stub.getId());
+		then(serveEvents.get(0).getResponse().getStatus()).isEqualTo(200);
+		then(journal.getServeEvent(serveEvents.get(1).getId()).get().getRequest().getUrl()).isEqualTo("/orders?page=1");
+	}
+
+	@Test
+	@DisplayName("should find unmatched requests by the index.")
+	void shouldFindUnmatchedRequests() throws IOException {
+
+		// when
+		request("GET", "/orders", null);
+		request("GET", "/customers", null);
+
+		then(server.findAllUnmatchedRequests()).extracting(request -> request.getUrl()).containsExactly("/customers");
+		then(server.findUnmatchedRequests().getRequests()).hasSize(1);
+		then(server.findNearMissesForAllUnmatchedRequests()).isNotEmpty();
+		then(journal.countRequestsServedBy(stub.getId())).isEqualTo(1);
+		then(journal.getServeEventsServedBy(stub.getId())).extracting(serveEvent -> serveEvent.getRequest().getUrl())
+				.containsExactly("/orders");
+	}
+
+	@Test
+	@DisplayName("should find serve events by the time recorded.")
+	void shouldFindServeEventsByTime() throws IOException {
+
+		// given
+		final Date start = new Date();
+
+		// when
+		request("GET", "/orders", null);
+
+		then(journal.getServeEventsBetween(start, new Date(System.currentTimeMillis() + 1))).hasSize(1);
+		then(journal.getServeEventsBetween(new Date(0), start)).isEmpty();
+	}
+
+	@Test
+	@DisplayName("should hide requests from verification on reset, but export them.")
+	void shouldExportRequestsAfterReset() throws IOException {
+
+		// given
+		request("GET", "/orders?page=1", null);
+		server.resetRequests();
+		request("GET", "/orders?page=2", null);
+		final Path export = directory.resolve("requests.json");
+
+		// when
+		journal.export(export);
+
+		server.verify(1, getRequestedFor(urlPathEqualTo("/orders")));
+		final List<String> lines = Files.readAllLines(export, UTF_8);
+		then(lines).hasSize(2);
+		then(Json.read(lines.get(0), ServeEvent.class).getRequest().getUrl()).isEqualTo("/orders?page=1");
+		then(Json.read(lines.get(1), ServeEvent.class).getRequest().getUrl()).isEqualTo("/orders?page=2");
+	}
+
+	@Test
+	@DisplayName("should continue the file after the server was restarted.")
+	void shouldContinueAfterRestart() throws IOException {
+
+		// given
+		request("GET", "/orders?page=1", null);
+		server.stop();
+		server.start();
+
+		// when
+		request("GET", "/orders?page=2", null);
+
+		server.verify(2, getRequestedFor(urlPathEqualTo("/orders")));
+	}
+
+	private void request(final String method, final String path, final String body) throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection) new URL(server.baseUrl() + path).openConnection();
+		connection.setRequestMethod(method);
+		if (body != null) {
+			connection.setDoOutput(true);
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(body.getBytes(UTF_8));
+			}
+		}
+		connection.getResponseCode();
+	}
+}
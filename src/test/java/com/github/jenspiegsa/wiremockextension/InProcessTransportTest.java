@@ -0,0 +1,122 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.jenspiegsa.wiremockextension.ManagedWireMockServer.with;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.github.tomakehurst.wiremock.http.Fault.CONNECTION_RESET_BY_PEER;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Jens Piegsa
+ */
+@DisplayName("In-process transport")
+class InProcessTransportTest {
+
+	private ManagedWireMockServer server;
+	private InProcessTransport transport;
+
+	@BeforeEach
+	void createServer() {
+		server = with(ServerMetrics.applyTo(wireMockConfig().dynamicPort()));
+		transport = server.inProcess();
+	}
+
+	@Test
+	@DisplayName("should serve stubs without starting the server.")
+	void shouldServeStubsWithoutStarting() throws IOException {
+
+		// given
+		server.stubFor(get("/orders/1?expand=true").willReturn(aResponse().withHeader("Content-Type", "application/json").withBody("{}")));
+
+		// when
+		final HttpURLConnection connection = (HttpURLConnection) transport.url("/orders/1?expand=true").openConnection();
+
+		// then
+		then(connection.getResponseCode()).isEqualTo(200);
+		then(connection.getResponseMessage()).isEqualTo("OK");
+		then(connection.getHeaderField("content-type")).isEqualTo("application/json");
+		then(connection.getHeaderField(0)).isEqualTo("HTTP/1.1 200 OK");
+		then(read(connection.getInputStream())).isEqualTo("{}");
+		then(server.isRunning()).isFalse();
+		then(server.getMetrics().get().snapshot().getRequests()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("should send request headers, cookies and body.")
+	void shouldSendRequest() throws IOException {
+
+		// given
+		server.stubFor(post("/orders").withHeader("Content-Type", equalTo("text/plain")).withCookie("session", equalTo("42"))
+				.withRequestBody(equalTo("order")).willReturn(aResponse().withStatus(201)));
+
+		// when
+		final HttpURLConnection connection = transport.openConnection(new URL("http://localhost:8080/orders"));
+		connection.setRequestMethod("POST");
+		connection.setRequestProperty("Content-Type", "text/plain");
+		connection.setRequestProperty("Cookie", "theme=dark; session=42");
+		connection.setDoOutput(true);
+		try (OutputStream body = connection.getOutputStream()) {
+			body.write("order".getBytes(UTF_8));
+		}
+
+		// then
+		then(connection.getResponseCode()).isEqualTo(201);
+		server.verify(postRequestedFor(urlEqualTo("/orders")).withHeader("Host", equalTo("localhost:8080")));
+	}
+
+	@Test
+	@DisplayName("should answer unmatched requests with not found.")
+	void shouldAnswerUnmatchedRequestsWithNotFound() throws IOException {
+
+		// when
+		final HttpURLConnection connection = (HttpURLConnection) transport.url("/unknown").openConnection();
+
+		// then
+		then(connection.getResponseCode()).isEqualTo(404);
+		then(catchThrowable(connection::getInputStream)).isInstanceOf(FileNotFoundException.class);
+		then(server.findAllUnmatchedRequests()).hasSize(1);
+	}
+
+	@Test
+	@DisplayName("should raise faults as I/O exceptions.")
+	void shouldRaiseFaults() throws IOException {
+
+		// given
+		server.stubFor(get("/fault").willReturn(aResponse().withFault(CONNECTION_RESET_BY_PEER)));
+
+		// when
+		final HttpURLConnection connection = (HttpURLConnection) transport.url("fault").openConnection();
+
+		then(catchThrowable(connection::getResponseCode)).isInstanceOf(IOException.class);
+	}
+
+	private static String read(final InputStream body) throws IOException {
+		try (InputStream in = body) {
+			final ByteArrayOutputStream content = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[1024];
+			for (int length; (length = in.read(buffer)) != -1; ) {
+				content.write(buffer, 0, length);
+			}
+			return new String(content.toByteArray(), UTF_8);
+		}
+	}
+}
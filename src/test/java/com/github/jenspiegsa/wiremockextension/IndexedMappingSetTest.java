@@ -0,0 +1,152 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.jenspiegsa.wiremockextension.ManagedWireMockServer.with;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.any;
+import static com.github.tomakehurst.wiremock.client.WireMock.anyUrl;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.MappingBuilder;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+
+/**
+ * @author Jens Piegsa
+ */
+@DisplayName("Indexed stub matching")
+class IndexedMappingSetTest {
+
+	private WireMockServer linearServer;
+	private ManagedWireMockServer indexedServer;
+
+	@BeforeEach
+	void startServers() {
+		linearServer = with(wireMockConfig().dynamicPort());
+		indexedServer = with(wireMockConfig().dynamicPort()).indexedMatching();
+		linearServer.start();
+		indexedServer.start();
+		stubForBoth(get(urlEqualTo("/orders/1")), "url");
+		stubForBoth(get(urlEqualTo("/orders/1")).atPriority(1), "url with priority");
+		stubForBoth(get(urlEqualTo("/orders/2")), "url added first");
+		stubForBoth(get(urlEqualTo("/orders/2")), "url added last");
+		stubForBoth(get(urlEqualTo("/orders/2?expand=true")), "url with query");
+		stubForBoth(get(urlPathEqualTo("/orders/3")), "path");
+		stubForBoth(any(urlPathEqualTo("/orders/4")), "path of any method");
+		stubForBoth(post(urlEqualTo("/orders/4")), "url of post");
+		stubForBoth(get(urlMatching("/orders/[5-6]")), "regex");
+		stubForBoth(get(urlEqualTo("/orders/5")), "url added after regex");
+		stubForBoth(get(urlEqualTo("/orders/7")).withHeader("Accept", equalTo("text/plain")), "url with header");
+		stubForBoth(get(urlEqualTo("/orders/7")), "url without header");
+		stubForBoth(get(anyUrl()).atPriority(10), "fallback");
+	}
+
+	@AfterEach
+	void stopServers() {
+		linearServer.stop();
+		indexedServer.stop();
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+			"GET, /orders/1", "GET, /orders/2", "GET, /orders/2?expand=true", "GET, /orders/3",
+			"GET, /orders/3?expand=true", "GET, /orders/4", "POST, /orders/4", "DELETE, /orders/4?id=4",
+			"GET, /orders/5", "GET, /orders/6", "GET, /orders/7", "GET, /unknown", "PUT, /orders/1"})
+	@DisplayName("should match the same stub as linear matching.")
+	void shouldMatchSameStubAsLinearMatching(final String method, final String url) throws IOException {
+		then(request(indexedServer, method, url)).isEqualTo(request(linearServer, method, url));
+	}
+
+	@Test
+	@DisplayName("should match the same stub after stubs were removed or edited.")
+	void shouldMatchSameStubAfterChanges() throws IOException {
+
+		// given
+		final StubMapping removed = indexedServer.getStubMappings().stream()
+				.filter(stubMapping -> "url with priority".equals(stubMapping.getName()))
+				.findFirst()
+				.orElseThrow(IllegalStateException::new);
+		final StubMapping edited = indexedServer.getStubMappings().stream()
+				.filter(stubMapping -> "path".equals(stubMapping.getName()))
+				.findFirst()
+				.orElseThrow(IllegalStateException::new);
+
+		// when
+		indexedServer.removeStubMapping(removed);
+		indexedServer.editStub(get(urlEqualTo("/orders/3/edited")).withId(edited.getId())
+				.willReturn(aResponse().withBody("edited")));
+
+		// then
+		then(request(indexedServer, "GET", "/orders/1")).isEqualTo("200 url");
+		then(request(indexedServer, "GET", "/orders/3")).isEqualTo("200 fallback");
+		then(request(indexedServer, "GET", "/orders/3/edited")).isEqualTo("200 edited");
+	}
+
+	@Test
+	@DisplayName("should match stubs in scenario states.")
+	void shouldMatchStubsInScenarioStates() throws IOException {
+
+		// given
+		indexedServer.stubFor(get(urlEqualTo("/state")).inScenario("s").whenScenarioStateIs(STARTED)
+				.willSetStateTo("next").willReturn(aResponse().withBody("started")));
+		indexedServer.stubFor(get(urlEqualTo("/state")).inScenario("s").whenScenarioStateIs("next")
+				.willReturn(aResponse().withBody("next")));
+
+		then(request(indexedServer, "GET", "/state")).isEqualTo("200 started");
+		then(request(indexedServer, "GET", "/state")).isEqualTo("200 next");
+	}
+
+	@Test
+	@DisplayName("should keep stubs registered before the index was enabled.")
+	void shouldKeepStubsRegisteredBefore() throws IOException {
+
+		// when
+		final ManagedWireMockServer server = ((ManagedWireMockServer) linearServer).indexedMatching();
+
+		// then
+		then(server.isIndexedMatching()).isTrue();
+		then(server.getStubMappings()).hasSameSizeAs(indexedServer.getStubMappings());
+		then(request(server, "GET", "/orders/2")).isEqualTo("200 url added last");
+	}
+
+	private void stubForBoth(final MappingBuilder mappingBuilder, final String name) {
+		linearServer.stubFor(mappingBuilder.withName(name).willReturn(aResponse().withBody(name)));
+		indexedServer.stubFor(mappingBuilder.withName(name).willReturn(aResponse().withBody(name)));
+	}
+
+	private static String request(final WireMockServer server, final String method, final String url) throws IOException {
+
+		final HttpURLConnection connection = (HttpURLConnection) new URL(server.url(url)).openConnection();
+		connection.setRequestMethod(method);
+		final int status = connection.getResponseCode();
+		try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+			final ByteArrayOutputStream content = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[1024];
+			for (int length; body != null && (length = body.read(buffer)) != -1; ) {
+				content.write(buffer, 0, length);
+			}
+			return status + " " + new String(content.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}
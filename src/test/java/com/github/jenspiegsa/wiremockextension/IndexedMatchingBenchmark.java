@@ -0,0 +1,100 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.jenspiegsa.wiremockextension.ManagedWireMockServer.with;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares request round trips with and without {@link ManagedWireMockServer#indexedMatching()} depending on the
+ * number of stubs, of which one in a hundred matches URLs by a regular expression. The requested stub was registered
+ * first and is hence the last candidate of linear matching.
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndexedMatchingBenchmark {
+
+	@Param({"100", "10000", "100000"})
+	public int stubs;
+
+	@Param({"false", "true"})
+	public boolean indexed;
+
+	private ManagedWireMockServer server;
+	private URL url;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		server = with(wireMockConfig().dynamicPort().disableRequestJournal());
+		if (indexed) {
+			server.indexedMatching();
+		}
+		server.start();
+		for (int i = 0; i < stubs; i++) {
+			if (i % 100 == 99) {
+				server.stubFor(get(urlMatching("/pattern/" + i + "/.*")).willReturn(ok("pattern " + i)));
+			} else {
+				server.stubFor(get("/resource/" + i).willReturn(ok("resource " + i)));
+			}
+		}
+		url = new URL(server.url("/resource/0"));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		server.stop();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public int roundTrip() throws IOException {
+		return request(url);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public int concurrentRoundTrip() throws IOException {
+		return request(url);
+	}
+
+	private static int request(final URL url) throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		final int status = connection.getResponseCode();
+		// draining the body keeps the connection alive for reuse
+		try (InputStream body = connection.getInputStream()) {
+			while (body.read() != -1) {
+				// drain
+			}
+		}
+		if (status != 200) {
+			throw new IllegalStateException("unexpected status: " + status);
+		}
+		return status;
+	}
+}
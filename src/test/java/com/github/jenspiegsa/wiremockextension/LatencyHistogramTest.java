@@ -0,0 +1,44 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static java.util.Collections.emptyMap;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * @author Jens Piegsa
+ */
+@DisplayName("Latency histogram")
+class LatencyHistogramTest {
+
+	@ParameterizedTest
+	@ValueSource(ints = {0, 1, 63, 64, 65, 100, 1000, 65_535, 1_000_000, Integer.MAX_VALUE})
+	@DisplayName("should count values in a bucket covering them with a relative error of at most 3%.")
+	void shouldCountValuesInCoveringBucket(final int value) {
+		final long highestValue = LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(value));
+		then(highestValue).isGreaterThanOrEqualTo(value);
+		then(highestValue - value).isLessThanOrEqualTo(value / 32);
+	}
+
+	@Test
+	@DisplayName("should compute percentiles.")
+	void shouldComputePercentiles() {
+
+		// given
+		final LatencyHistogram histogram = new LatencyHistogram();
+
+		// when
+		for (int value = 1; value <= 100; value++) {
+			histogram.record(value);
+		}
+		final MetricsSnapshot snapshot = new MetricsSnapshot(100, 0, 0, 0, emptyMap(), histogram.copyCounts(), 1);
+
+		// then
+		then(snapshot.getLatencyAtPercentile(50)).isEqualTo(50L);
+		then(snapshot.getLatencyAtPercentile(99)).isBetween(99L, 101L);
+		then(snapshot.getMaxLatency()).isBetween(100L, 101L);
+	}
+}
@@ -0,0 +1,207 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.jenspiegsa.wiremockextension.ManagedWireMockServer.with;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.jetty9.JettyHttpServerFactory;
+
+/**
+ * @author Jens Piegsa
+ */
+@DisplayName("Managed Jetty server")
+class ManagedJettyHttpServerTest {
+
+	private static final int CONTAINER_THREADS = 8;
+	private static final int DELAY = 500;
+
+	private ManagedWireMockServer server;
+
+	@BeforeEach
+	void startServer() {
+		server = with(wireMockConfig().dynamicPort()
+				.containerThreads(CONTAINER_THREADS)
+				.asynchronousResponseEnabled(true)
+				.asynchronousResponseThreads(1));
+		server.start();
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop();
+	}
+
+	@Test
+	@DisplayName("should serve more delayed requests concurrently than container threads.")
+	void shouldServeDelayedRequestsConcurrently() throws Exception {
+
+		// given
+		server.stubFor(get("/delayed").willReturn(aResponse().withFixedDelay(DELAY).withHeader("X-Test", "delayed").withBody("delayed")));
+		final int requests = CONTAINER_THREADS * 4;
+		final ExecutorService clients = Executors.newFixedThreadPool(requests);
+
+		// when
+		final long start = System.nanoTime();
+		final List<Future<String>> responses;
+		try {
+			final List<Callable<String>> calls = IntStream.range(0, requests)
+					.mapToObj(i -> (Callable<String>) () -> request("/delayed"))
+					.collect(toList());
+			responses = clients.invokeAll(calls);
+		} finally {
+			clients.shutdown();
+		}
+		final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		// then
+		for (final Future<String> response : responses) {
+			then(response.get()).isEqualTo("200 delayed delayed");
+		}
+		// blocking delays would take at least four rounds of container threads
+		then(elapsed).isGreaterThanOrEqualTo(DELAY).isLessThan(3L * DELAY);
+	}
+
+	@Test
+	@DisplayName("should not hold up delayed responses by a client not reading.")
+	void shouldNotBlockDelaysByStalledClient() throws IOException, InterruptedException {
+
+		// given
+		server.stubFor(get("/large").willReturn(aResponse().withFixedDelay(1).withBody(new byte[64 * 1024 * 1024])));
+		server.stubFor(get("/delayed").willReturn(aResponse().withFixedDelay(DELAY).withHeader("X-Test", "delayed").withBody("delayed")));
+		try (Socket stalledClient = new Socket()) {
+			stalledClient.setReceiveBufferSize(1024);
+			stalledClient.connect(new InetSocketAddress("localhost", server.port()));
+			stalledClient.getOutputStream().write("GET /large HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+			stalledClient.getOutputStream().flush();
+			// the large body is written once the request was journaled
+			for (int i = 0; i < 100 && server.findAll(getRequestedFor(urlEqualTo("/large"))).isEmpty(); i++) {
+				Thread.sleep(10);
+			}
+
+			// when
+			final String response = assertTimeoutPreemptively(Duration.ofMillis(4L * DELAY), () -> request("/delayed"));
+
+			// then
+			then(response).isEqualTo("200 delayed delayed");
+		}
+	}
+
+	@Test
+	@DisplayName("should dribble chunks of the body.")
+	void shouldDribbleChunks() throws IOException {
+
+		// given
+		server.stubFor(get("/dribble").willReturn(aResponse().withHeader("X-Test", "dribble")
+				.withBody("abcdefghij").withChunkedDribbleDelay(5, DELAY)));
+
+		// when
+		final long start = System.nanoTime();
+		final String response = request("/dribble");
+		final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		// then
+		then(response).isEqualTo("200 dribble abcdefghij");
+		then(elapsed).isGreaterThanOrEqualTo(DELAY - DELAY / 5);
+	}
+
+	@Test
+	@DisplayName("should serve responses without delay directly.")
+	void shouldServeResponsesWithoutDelay() throws IOException {
+
+		// given
+		server.stubFor(get("/direct").willReturn(aResponse().withHeader("X-Test", "direct").withBody("direct")));
+
+		then(request("/direct")).isEqualTo("200 direct direct");
+		then(request("/unknown")).startsWith("404");
+	}
+
+	@Test
+	@DisplayName("should block for fixed delays if non-blocking delays are disabled.")
+	void shouldBlockForFixedDelaysIfDisabled() throws IOException {
+
+		// given
+		final ManagedWireMockServer blockingServer = with(StreamedBody.applyTo(wireMockConfig().dynamicPort()));
+		blockingServer.start();
+		try {
+			blockingServer.stubFor(get("/delayed").willReturn(aResponse().withFixedDelay(DELAY).withHeader("X-Test", "delayed").withBody("delayed")));
+			blockingServer.stubFor(get("/direct").willReturn(aResponse().withHeader("X-Test", "direct").withBody("direct")));
+			blockingServer.setGlobalFixedDelay(DELAY);
+
+			// when
+			final long start = System.nanoTime();
+			final String delayed = request(blockingServer, "/delayed");
+			final long delayedElapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			final String direct = request(blockingServer, "/direct");
+			final long totalElapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+			// then
+			then(delayed).isEqualTo("200 delayed delayed");
+			then(direct).isEqualTo("200 direct direct");
+			then(delayedElapsed).isGreaterThanOrEqualTo(DELAY);
+			// the global delay applies to stubs without delay of their own
+			then(totalElapsed).isGreaterThanOrEqualTo(2L * DELAY);
+		} finally {
+			blockingServer.stop();
+		}
+	}
+
+	@Test
+	@DisplayName("should only be installed if required.")
+	void shouldOnlyBeInstalledIfRequired() {
+
+		// given
+		final Options installed = ManagedJettyHttpServer.install(wireMockConfig());
+
+		then(ManagedJettyHttpServer.applyTo(wireMockConfig()).httpServerFactory()).isInstanceOf(JettyHttpServerFactory.class);
+		then(ManagedJettyHttpServer.applyTo(wireMockConfig().asynchronousResponseEnabled(true)).httpServerFactory())
+				.isSameAs(installed.httpServerFactory());
+		then(ManagedJettyHttpServer.install(installed)).isSameAs(installed);
+	}
+
+	private String request(final String path) throws IOException {
+		return request(server, path);
+	}
+
+	private static String request(final ManagedWireMockServer server, final String path) throws IOException {
+
+		final HttpURLConnection connection = (HttpURLConnection) new URL(server.url(path)).openConnection();
+		final int status = connection.getResponseCode();
+		try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+			final ByteArrayOutputStream content = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[1024];
+			for (int length; body != null && (length = body.read(buffer)) != -1; ) {
+				content.write(buffer, 0, length);
+			}
+			return status + " " + connection.getHeaderField("X-Test") + " " + new String(content.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.jenspiegsa.wiremockextension.ManagedWireMockServer.with;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.requestMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.matching.MatchResult;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+
+/**
+ * @author Jens Piegsa
+ */
+@DisplayName("Partitioned admin")
+class PartitionedAdminTest {
+
+	private ManagedWireMockServer server;
+	private PartitionedAdmin first;
+	private PartitionedAdmin second;
+
+	@BeforeEach
+	void createServer() {
+		server = with(wireMockConfig().dynamicPort());
+		first = new PartitionedAdmin(server, Partition.create());
+		second = new PartitionedAdmin(server, Partition.create());
+	}
+
+	@Test
+	@DisplayName("should only match requests of the partition.")
+	void shouldOnlyMatchRequestsOfPartition() throws IOException {
+
+		// given
+		new WireMock(first).register(get("/").willReturn(ok()));
+
+		// when
+		final int firstStatus = request(first.getPartition());
+		final int secondStatus = request(second.getPartition());
+
+		then(firstStatus).isEqualTo(200);
+		then(secondStatus).isEqualTo(404);
+		then(first.findUnmatchedRequests().getRequests()).isEmpty();
+		then(second.findUnmatchedRequests().getRequests()).hasSize(1);
+		then(new WireMock(first).find(getRequestedFor(urlEqualTo("/")))).hasSize(1);
+		then(second.listAllStubMappings().getMappings()).isEmpty();
+	}
+
+	@Test
+	@DisplayName("should reset stubs and requests of the partition only.")
+	void shouldResetPartitionOnly() throws IOException {
+
+		// given
+		new WireMock(first).register(get("/").willReturn(ok()));
+		new WireMock(second).register(get("/").willReturn(ok()));
+		request(first.getPartition());
+		request(second.getPartition());
+
+		// when
+		first.resetAll();
+
+		then(first.listAllStubMappings().getMappings()).isEmpty();
+		then(first.getServeEvents().getRequests()).isEmpty();
+		then(second.listAllStubMappings().getMappings()).hasSize(1);
+		then(second.getServeEvents().getRequests()).hasSize(1);
+	}
+
+	@Test
+	@DisplayName("should keep scenarios of partitions apart.")
+	void shouldKeepScenariosApart() throws IOException {
+
+		// given
+		for (final PartitionedAdmin admin : new PartitionedAdmin[] {first, second}) {
+			new WireMock(admin).register(get("/").inScenario("order").whenScenarioStateIs(STARTED)
+					.willReturn(ok()).willSetStateTo("ordered"));
+		}
+
+		// when
+		request(first.getPartition());
+		final String stateBeforeReset = first.getAllScenarios().getScenarios().get(0).getState();
+		first.resetScenarios();
+
+		then(stateBeforeReset).isEqualTo("ordered");
+		then(first.getAllScenarios().getScenarios()).hasSize(1);
+		then(first.getAllScenarios().getScenarios().get(0).getState()).isEqualTo(STARTED);
+		then(second.getAllScenarios().getScenarios().get(0).getState()).isEqualTo(STARTED);
+		then(server.getAllScenarios().getScenarios()).hasSize(2);
+	}
+
+	@Test
+	@DisplayName("should scope programmatic matchers to the partition.")
+	void shouldScopeProgrammaticMatchers() throws IOException {
+
+		// given
+		new WireMock(first).register(requestMatching(request -> MatchResult.exactMatch()).willReturn(ok()));
+
+		then(request(first.getPartition())).isEqualTo(200);
+		then(request(second.getPartition())).isEqualTo(404);
+	}
+
+	@Test
+	@DisplayName("should assign new id to stub whose id is taken by another partition.")
+	void shouldAssignNewIdToTakenStubId() {
+
+		// given
+		final StubMapping stub = get("/").willReturn(ok()).build();
+		final StubMapping sameStub = get("/").withId(stub.getId()).willReturn(ok()).build();
+		first.addStubMapping(stub);
+
+		// when
+		second.addStubMapping(sameStub);
+
+		then(sameStub.getId()).isNotEqualTo(stub.getId());
+		then(server.getStubMappings()).hasSize(2);
+	}
+
+	@Test
+	@DisplayName("should reject operations affecting the whole server.")
+	void shouldRejectServerWideOperations() {
+		then(catchThrowable(first::shutdownServer)).isInstanceOf(UnsupportedOperationException.class);
+		then(catchThrowable(first::saveMappings)).isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	private int request(final Partition partition) throws IOException {
+		final HttpURLConnection connection = server.inProcess().openConnection(server.inProcess().url("/"));
+		connection.setRequestProperty(Partition.HEADER, partition.getId());
+		return connection.getResponseCode();
+	}
+}
@@ -0,0 +1,160 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtensionConfigurationException;
+
+import com.github.tomakehurst.wiremock.core.Options;
+
+/**
+ * @author Jens Piegsa
+ */
+@DisplayName("Port allocator")
+class PortAllocatorTest {
+
+	private Path directory;
+	private Path lockFile;
+	private final List<PortAllocator> allocators = new ArrayList<>();
+
+	@BeforeEach
+	void createLockFile() throws IOException {
+		directory = Files.createTempDirectory("wiremock-extension");
+		lockFile = directory.resolve("build/ports.lock");
+	}
+
+	@AfterEach
+	void deleteLockFile() throws IOException {
+		for (final PortAllocator allocator : allocators) {
+			allocator.close();
+		}
+		Files.deleteIfExists(lockFile);
+		Files.deleteIfExists(lockFile.getParent());
+		Files.delete(directory);
+	}
+
+	@Test
+	@DisplayName("should reserve separate blocks for allocators sharing a lock file.")
+	void shouldReserveSeparateBlocks() {
+
+		// given
+		final PortAllocator fork1 = allocator(10);
+		final PortAllocator fork2 = allocator(10);
+
+		// when
+		final int port1 = fork1.allocate();
+		final int port2 = fork2.allocate();
+		final int port3 = fork1.allocate();
+
+		then(port1).isBetween(PortAllocator.FIRST_PORT, PortAllocator.FIRST_PORT + 9);
+		then(port2).isBetween(PortAllocator.FIRST_PORT + 10, PortAllocator.FIRST_PORT + 19);
+		then(port3).isBetween(port1 + 1, PortAllocator.FIRST_PORT + 9);
+		then(PortAllocator.isAllocated(port1)).isTrue();
+	}
+
+	@Test
+	@DisplayName("should not hand out blocks reserved by allocators not closed.")
+	void shouldNotShareReservedBlocks() throws IOException {
+
+		// given
+		final int blockSize = (PortAllocator.LAST_PORT - PortAllocator.FIRST_PORT + 1) / 2;
+		final PortAllocator fork1 = allocator(blockSize);
+		final PortAllocator fork2 = allocator(blockSize);
+		final PortAllocator fork3 = allocator(blockSize);
+		fork1.allocate();
+		fork2.allocate();
+
+		then(catchThrowable(fork3::allocate)).isInstanceOf(ExtensionConfigurationException.class);
+
+		// when
+		fork1.close();
+
+		then(fork3.allocate()).isBetween(PortAllocator.FIRST_PORT, PortAllocator.FIRST_PORT + blockSize - 1);
+	}
+
+	@Test
+	@DisplayName("should skip ports in use.")
+	void shouldSkipPortsInUse() throws IOException {
+
+		// given
+		try (ServerSocket socket = new ServerSocket()) {
+			socket.setReuseAddress(true);
+			try {
+				socket.bind(new InetSocketAddress(PortAllocator.FIRST_PORT));
+			} catch (final IOException e) {
+				// already in use anyway
+			}
+
+			// when
+			final int port = allocator(2).allocate();
+
+			then(port).isGreaterThan(PortAllocator.FIRST_PORT);
+		}
+	}
+
+	@Test
+	@DisplayName("should only replace dynamic ports.")
+	void shouldOnlyReplaceDynamicPorts() {
+
+		// given
+		final PortAllocator allocator = allocator(10);
+
+		then(allocator.applyTo(wireMockConfig().port(12345)).portNumber()).isEqualTo(12345);
+		then(allocator.applyTo(wireMockConfig()).portNumber()).isEqualTo(Options.DEFAULT_PORT);
+		then(allocator.applyTo(wireMockConfig().dynamicPort()).portNumber()).isBetween(PortAllocator.FIRST_PORT, PortAllocator.LAST_PORT);
+	}
+
+	@Test
+	@DisplayName("should keep the port bound until its server starts and allocated after it stops.")
+	void shouldKeepPortOfServer() {
+
+		// given
+		final ManagedWireMockServer server = ManagedWireMockServer.with(allocator(10).applyTo(wireMockConfig().dynamicPort()));
+		final int port = server.getOptions().portNumber();
+		then(isFree(port)).isFalse();
+
+		// when
+		server.start();
+		server.stop();
+		server.start();
+
+		then(server.port()).isEqualTo(port);
+		then(PortAllocator.isAllocated(port)).isTrue();
+		server.stop();
+	}
+
+	@Test
+	@DisplayName("should reject invalid block sizes.")
+	void shouldRejectInvalidBlockSize() {
+		then(catchThrowable(() -> new PortAllocator(lockFile, 0))).isInstanceOf(ExtensionConfigurationException.class);
+	}
+
+	private PortAllocator allocator(final int blockSize) {
+		final PortAllocator allocator = new PortAllocator(lockFile, blockSize);
+		allocators.add(allocator);
+		return allocator;
+	}
+
+	private static boolean isFree(final int port) {
+		try (ServerSocket socket = new ServerSocket()) {
+			socket.setReuseAddress(true);
+			socket.bind(new InetSocketAddress(port));
+			return true;
+		} catch (final IOException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtensionConfigurationException;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+
+/**
+ * @author Jens Piegsa
+ */
+@DisplayName("Remote admin")
+class RemoteAdminTest {
+
+	private WireMockServer server;
+
+	@AfterEach
+	void stopServer() {
+		server.stop();
+	}
+
+	@Test
+	@DisplayName("should import stubs by a single request.")
+	void shouldImportStubs() {
+
+		// given
+		server = new WireMockServer(wireMockConfig().dynamicPort().extensions(new StubImportExtension()));
+		server.start();
+		final RemoteAdmin admin = RemoteAdmin.connect(server.baseUrl() + "/");
+
+		// when
+		admin.importStubMappings(asList(stub("/a"), stub("/b")));
+
+		then(server.getStubMappings()).hasSize(2);
+		then(admin.baseUrl()).isEqualTo(server.baseUrl());
+	}
+
+	@Test
+	@DisplayName("should add stubs one by one if the server does not support imports.")
+	void shouldFallBackToSingleStubs() {
+
+		// given
+		server = new WireMockServer(wireMockConfig().dynamicPort());
+		server.start();
+		final RemoteAdmin admin = RemoteAdmin.connect(server.baseUrl());
+
+		// when
+		admin.importStubMappings(asList(stub("/a"), stub("/b")));
+		admin.importStubMappings(asList(stub("/c")));
+
+		then(server.getStubMappings()).hasSize(3);
+	}
+
+	@Test
+	@DisplayName("should reject urls other than http(s).")
+	void shouldRejectInvalidUrls() {
+
+		server = new WireMockServer(wireMockConfig().dynamicPort());
+		then(catchThrowable(() -> RemoteAdmin.connect("localhost:8080"))).isInstanceOf(ExtensionConfigurationException.class);
+		then(catchThrowable(() -> RemoteAdmin.connect("ftp://localhost"))).isInstanceOf(ExtensionConfigurationException.class);
+	}
+
+	private static StubMapping stub(final String url) {
+		return get(url).willReturn(ok()).build();
+	}
+}
@@ -9,6 +9,8 @@ import javax.ws.rs.client.ResponseProcessingException;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
 
 /**
  * @author Jens Piegsa
@@ -21,7 +23,15 @@ public class SampleClient {
 	final WebTarget target;
 
 	public SampleClient(final String uri) {
-		client = ClientBuilder.newClient();
+		this(uri, ClientBuilder.newClient());
+	}
+
+	public SampleClient(final String uri, final ClientHttpEngine engine) {
+		this(uri, new ResteasyClientBuilder().httpEngine(engine).build());
+	}
+
+	private SampleClient(final String uri, final Client client) {
+		this.client = client;
 		target = client.target(UriBuilder.fromUri(uri).build());
 		log.info(() -> "Sample client targeting uri: " + uri);
 	}
@@ -0,0 +1,97 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+import static org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder.request;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.platform.launcher.Launcher;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.Options;
+
+/**
+ * Measures the extension overhead per test method for each {@link ServerLifecycle}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServerLifecycleBenchmark {
+
+	private static final int TESTS_PER_CLASS = 20;
+
+	private Launcher launcher;
+	private LauncherDiscoveryRequest perMethodRequest;
+	private LauncherDiscoveryRequest perClassRequest;
+
+	@Setup
+	public void setup() {
+		launcher = LauncherFactory.create();
+		perMethodRequest = request().selectors(selectClass(PerMethodTestCase.class)).build();
+		perClassRequest = request().selectors(selectClass(PerClassTestCase.class)).build();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TESTS_PER_CLASS)
+	public TestExecutionSummary perMethod() {
+		return execute(perMethodRequest);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TESTS_PER_CLASS)
+	public TestExecutionSummary perClass() {
+		return execute(perClassRequest);
+	}
+
+	private TestExecutionSummary execute(final LauncherDiscoveryRequest discoveryRequest) {
+		final SummaryGeneratingListener listener = new SummaryGeneratingListener();
+		launcher.execute(discoveryRequest, listener);
+		final TestExecutionSummary summary = listener.getSummary();
+		if (summary.getTestsSucceededCount() != TESTS_PER_CLASS) {
+			throw new IllegalStateException("benchmark test case failed: " + summary.getFailures());
+		}
+		return summary;
+	}
+
+	@WireMockSettings(lifecycle = ServerLifecycle.PER_METHOD)
+	static class PerMethodTestCase {
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@RepeatedTest(TESTS_PER_CLASS)
+		void test() {
+		}
+	}
+
+	@WireMockSettings(lifecycle = ServerLifecycle.PER_CLASS)
+	static class PerClassTestCase {
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@RepeatedTest(TESTS_PER_CLASS)
+		void test() {
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+/**
+ * Measures the latency of creating, starting and stopping a server, i.e. the cost of
+ * {@link ServerLifecycle#PER_METHOD} per server and test.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServerStartupBenchmark {
+
+	@Benchmark
+	public WireMockServer startAndStop() {
+		final WireMockServer server = new WireMockServer(wireMockConfig().dynamicPort());
+		server.start();
+		server.stop();
+		return server;
+	}
+}
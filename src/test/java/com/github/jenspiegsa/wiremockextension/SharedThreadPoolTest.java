@@ -0,0 +1,87 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.jenspiegsa.wiremockextension.ManagedWireMockServer.with;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Jens Piegsa
+ */
+@DisplayName("Shared thread pool")
+class SharedThreadPoolTest {
+
+	private static final int SERVERS = 8;
+
+	@Test
+	@DisplayName("should serve multiple servers on their own ports without threads per server.")
+	void shouldServeMultipleServers() throws IOException {
+
+		// given
+		final List<ManagedWireMockServer> servers = IntStream.range(0, SERVERS)
+				.mapToObj(i -> with(SharedThreadPool.applyTo(wireMockConfig().dynamicPort(), SharedThreadPool.DEFAULT_MAX_THREADS)))
+				.collect(toList());
+		final SharedThreadPool threadPool = SharedThreadPool.getInstance(SharedThreadPool.DEFAULT_MAX_THREADS);
+
+		try {
+			// when
+			servers.forEach(ManagedWireMockServer::start);
+			for (final ManagedWireMockServer server : servers) {
+				server.stubFor(get("/").willReturn(ok("server " + server.port())));
+			}
+
+			// then
+			then(servers.stream().map(ManagedWireMockServer::port).distinct()).hasSize(SERVERS);
+			for (final ManagedWireMockServer server : servers) {
+				then(request(server)).isEqualTo(200);
+			}
+			// one selector per server, while a pool per server starts at least 8 threads
+			then(threadPool.getThreads()).isLessThan(SERVERS * 4);
+		} finally {
+			servers.forEach(ManagedWireMockServer::stop);
+		}
+	}
+
+	@Test
+	@DisplayName("should keep serving after servers on the pool were stopped.")
+	void shouldKeepServingAfterStop() throws IOException {
+
+		// given
+		final ManagedWireMockServer stopped = with(SharedThreadPool.applyTo(wireMockConfig().dynamicPort(), SharedThreadPool.DEFAULT_MAX_THREADS));
+		stopped.start();
+		stopped.stop();
+		final ManagedWireMockServer server = with(SharedThreadPool.applyTo(wireMockConfig().dynamicPort(), SharedThreadPool.DEFAULT_MAX_THREADS));
+
+		// when
+		server.start();
+		try {
+			server.stubFor(get("/").willReturn(ok()));
+
+			// then
+			then(request(server)).isEqualTo(200);
+			then(stopped.isRunning()).isFalse();
+		} finally {
+			server.stop();
+		}
+	}
+
+	private static int request(final ManagedWireMockServer server) throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection) new URL(server.url("/")).openConnection();
+		try {
+			return connection.getResponseCode();
+		} finally {
+			connection.disconnect();
+		}
+	}
+}
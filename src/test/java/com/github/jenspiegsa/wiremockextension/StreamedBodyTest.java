@@ -0,0 +1,195 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.jenspiegsa.wiremockextension.ManagedWireMockServer.with;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.head;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * @author Jens Piegsa
+ */
+@DisplayName("Streamed bodies")
+class StreamedBodyTest {
+
+	private static final String CONTENT = "0123456789abcdefghij";
+
+	private Path filesRoot;
+	private Path file;
+	private ManagedWireMockServer server;
+
+	@BeforeEach
+	void startServer() throws IOException {
+		filesRoot = Files.createTempDirectory("streamed-body");
+		file = Files.write(Files.createDirectories(filesRoot.resolve("__files")).resolve("content.txt"), CONTENT.getBytes(UTF_8));
+		server = with(ServerMetrics.applyTo(StreamedBody.applyTo(wireMockConfig().dynamicPort()
+				.usingFilesUnderDirectory(filesRoot.toString()))));
+		server.start();
+	}
+
+	@AfterEach
+	void stopServer() throws IOException {
+		server.stop();
+		try (Stream<Path> paths = Files.walk(filesRoot)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Test
+	@DisplayName("should stream files by absolute and relative paths.")
+	void shouldStreamFiles() throws IOException {
+
+		// given
+		server.stubFor(get("/absolute").willReturn(StreamedBody.file(file.toAbsolutePath()).withHeader("Content-Type", "text/plain")));
+		server.stubFor(get("/relative").willReturn(StreamedBody.file(Paths.get("content.txt"))));
+
+		// when
+		final HttpURLConnection connection = open("/absolute", null);
+
+		// then
+		then(connection.getResponseCode()).isEqualTo(200);
+		then(connection.getHeaderField("Content-Type")).isEqualTo("text/plain");
+		then(connection.getHeaderField("Accept-Ranges")).isEqualTo("bytes");
+		then(connection.getHeaderField(StreamedBody.HEADER)).isNull();
+		then(new String(read(connection), UTF_8)).isEqualTo(CONTENT);
+		then(new String(read(open("/relative", null)), UTF_8)).isEqualTo(CONTENT);
+	}
+
+	@Test
+	@DisplayName("should stream generated bodies.")
+	void shouldStreamGeneratedBodies() throws IOException {
+
+		// given
+		final int length = 1 << 20;
+		server.stubFor(get("/generated").willReturn(StreamedBody.generated(length)));
+
+		// when
+		final byte[] body = read(open("/generated", null));
+
+		// then
+		then(body).hasSize(length);
+		for (int position = 0; position < length; position += 4099) {
+			then(body[position]).isEqualTo((byte) position);
+		}
+		then(server.getMetrics().get().snapshot().getBytesSent()).isZero();
+	}
+
+	@Test
+	@DisplayName("should answer byte ranges with partial content.")
+	void shouldAnswerRanges() throws IOException {
+
+		// given
+		server.stubFor(get("/file").willReturn(StreamedBody.file(Paths.get("content.txt"))));
+		server.stubFor(get("/generated").willReturn(StreamedBody.generated(1000)));
+
+		// when
+		final HttpURLConnection partial = open("/file", "bytes=10-14");
+		final HttpURLConnection suffix = open("/file", "bytes=-5");
+		final HttpURLConnection generated = open("/generated", "bytes=300-");
+		final HttpURLConnection unsatisfiable = open("/file", "bytes=20-");
+
+		// then
+		then(partial.getResponseCode()).isEqualTo(206);
+		then(partial.getHeaderField("Content-Range")).isEqualTo("bytes 10-14/20");
+		then(new String(read(partial), UTF_8)).isEqualTo("abcde");
+		then(new String(read(suffix), UTF_8)).isEqualTo("fghij");
+		final byte[] generatedBody = read(generated);
+		then(generatedBody).hasSize(700);
+		then(generatedBody[0]).isEqualTo((byte) 300);
+		then(unsatisfiable.getResponseCode()).isEqualTo(416);
+		then(unsatisfiable.getHeaderField("Content-Range")).isEqualTo("bytes */20");
+	}
+
+	@Test
+	@DisplayName("should send only headers for HEAD requests.")
+	void shouldSendOnlyHeadersForHead() throws IOException {
+
+		// given
+		server.stubFor(head(urlEqualTo("/file"))
+				.willReturn(StreamedBody.file(Paths.get("content.txt"))));
+
+		// when
+		final HttpURLConnection connection = (HttpURLConnection) new URL(server.url("/file")).openConnection();
+		connection.setRequestMethod("HEAD");
+
+		// then
+		then(connection.getResponseCode()).isEqualTo(200);
+		then(connection.getHeaderField("Content-Length")).isEqualTo("20");
+	}
+
+	@Test
+	@DisplayName("should answer missing files with a server error.")
+	void shouldAnswerMissingFilesWithServerError() throws IOException {
+
+		// given
+		server.stubFor(get("/missing").willReturn(StreamedBody.file(Paths.get("missing.txt"))));
+
+		then(open("/missing", null).getResponseCode()).isEqualTo(500);
+	}
+
+	@Test
+	@DisplayName("should fail if the file ends before the body was written.")
+	void shouldFailForTruncatedFiles() {
+
+		// given
+		final StreamedBody body = StreamedBody.parse("file:content.txt", file.getParent());
+
+		// when
+		final Throwable thrown = catchThrowable(() -> body.writeTo(new ByteArrayOutputStream(), 5, CONTENT.length()));
+
+		then(thrown).isInstanceOf(IOException.class).hasMessageContaining("content.txt");
+	}
+
+	@ParameterizedTest
+	@CsvSource({
+			"bytes=0-0, 0-0", "bytes=5-, 5-19", "bytes=5-100, 5-19", "bytes=-30, 0-19", "bytes=20-, unsatisfiable",
+			"bytes=-0, unsatisfiable", "'bytes=0-1,3-4', whole", "bytes=5-4, whole", "items=0-1, whole", "bytes=x-1, whole"})
+	@DisplayName("should parse single byte ranges.")
+	void shouldParseSingleByteRanges(final String header, final String expected) {
+
+		final long[] range = ManagedJettyHttpServer.requestedRange(header, CONTENT.length());
+
+		final String actual = range == null ? "whole" : range.length == 0 ? "unsatisfiable" : range[0] + "-" + range[1];
+		then(actual).isEqualTo(expected);
+	}
+
+	private HttpURLConnection open(final String path, final String range) throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection) new URL(server.url(path)).openConnection();
+		if (range != null) {
+			connection.setRequestProperty("Range", range);
+		}
+		return connection;
+	}
+
+	private static byte[] read(final HttpURLConnection connection) throws IOException {
+		try (InputStream body = connection.getInputStream()) {
+			final ByteArrayOutputStream content = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[8192];
+			for (int length; (length = body.read(buffer)) != -1; ) {
+				content.write(buffer, 0, length);
+			}
+			return content.toByteArray();
+		}
+	}
+}
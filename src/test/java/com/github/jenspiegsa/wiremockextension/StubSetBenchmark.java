@@ -0,0 +1,102 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.jenspiegsa.wiremockextension.ManagedWireMockServer.with;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+
+/**
+ * Compares parsing a {@link WireMockStubs} location with registering its stubs per test, either from the cached
+ * {@link StubSet} or by parsing and registering each stub through a client as done by {@code givenThat(...)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StubSetBenchmark {
+
+	@Param({"50", "500"})
+	public int stubs;
+
+	private Path directory;
+	private List<String> mappingsJson;
+	private StubSet stubSet;
+	private WireMockServer server;
+	private WireMock client;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("stubs");
+		mappingsJson = new ArrayList<>();
+		for (int i = 0; i < stubs; i++) {
+			final String json = "{\"request\": {\"method\": \"GET\", \"url\": \"/resource/" + i + "\"},"
+					+ " \"response\": {\"status\": 200, \"body\": \"resource " + i + "\"}}";
+			Files.write(directory.resolve("resource-" + i + ".json"), json.getBytes(StandardCharsets.UTF_8));
+			mappingsJson.add(json);
+		}
+		stubSet = StubSet.load(directory.toString());
+		server = with(wireMockConfig().dynamicPort());
+		server.start();
+		client = new WireMock("localhost", server.port());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		server.stop();
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@TearDown(Level.Invocation)
+	public void reset() {
+		server.resetMappings();
+	}
+
+	@Benchmark
+	public StubSet parse() {
+		return StubSet.load(directory.toString());
+	}
+
+	@Benchmark
+	public WireMockServer applyCached() {
+		stubSet.applyTo(server);
+		return server;
+	}
+
+	@Benchmark
+	public WireMock registerEach() {
+		for (final String json : mappingsJson) {
+			client.register(StubMapping.buildFrom(json));
+		}
+		return client;
+	}
+}
@@ -0,0 +1,90 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.VerificationException;
+
+/**
+ * Measures the check for unmatched requests performed after each test, depending on the size of the
+ * request journal and the number of unmatched requests in it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnmatchedRequestsBenchmark {
+
+	@Param({"100", "10000"})
+	public int journalSize;
+
+	@Param({"0", "10"})
+	public int unmatchedRequests;
+
+	private WireMockServer server;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		server = new WireMockServer(wireMockConfig().dynamicPort());
+		UnmatchedRequestTracker.of(server);
+		server.start();
+		for (int i = 0; i < 10; i++) {
+			server.stubFor(get("/resource/" + i).willReturn(ok()));
+		}
+		for (int i = 0; i < journalSize; i++) {
+			final boolean unmatched = i < unmatchedRequests;
+			request(new URL(server.url((unmatched ? "/unknown/" : "/resource/") + i % 10)));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		server.stop();
+	}
+
+	@Benchmark
+	public Object checkForUnmatchedRequests() {
+		try {
+			WireMockExtension.checkForUnmatchedRequests(server, true,
+					UnmatchedRequestsException.DEFAULT_MAX_NEAR_MISS_REQUESTS, false);
+			return server;
+		} catch (final VerificationException e) {
+			return e;
+		}
+	}
+
+	private static void request(final URL url) throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		try (InputStream body = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+			if (body != null) {
+				while (body.read() != -1) {
+					// drain
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.any;
+import static com.github.tomakehurst.wiremock.client.WireMock.anyUrl;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+
+/**
+ * Measures verifying 20 or 100 request patterns at the end of a test, one {@code verify} call per pattern versus a
+ * single {@link BatchVerification}, depending on the size of the request journal.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VerificationBenchmark {
+
+	@Param({"1000", "10000"})
+	public int journalSize;
+
+	@Param({"20", "100"})
+	public int patterns;
+
+	private WireMockServer server;
+	private WireMock client;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		server = new WireMockServer(wireMockConfig().dynamicPort());
+		server.start();
+		client = new WireMock(server);
+		server.stubFor(any(anyUrl()).willReturn(ok()));
+		for (int i = 0; i < journalSize; i++) {
+			request(new URL(server.url("/resource/" + i % patterns)));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		server.stop();
+	}
+
+	@Benchmark
+	public Object verifyOneByOne() {
+		for (int i = 0; i < patterns; i++) {
+			client.verifyThat(journalSize / patterns, getRequestedFor(urlEqualTo("/resource/" + i)));
+		}
+		return client;
+	}
+
+	@Benchmark
+	public Object verifyBatch() {
+		final BatchVerification verification = BatchVerification.of(server);
+		for (int i = 0; i < patterns; i++) {
+			verification.expect(journalSize / patterns, getRequestedFor(urlEqualTo("/resource/" + i)));
+		}
+		verification.verify();
+		return verification;
+	}
+
+	private static void request(final URL url) throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		try (InputStream body = connection.getInputStream()) {
+			while (body.read() != -1) {
+				// drain
+			}
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package com.github.jenspiegsa.wiremockextension;
+
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Jens Piegsa
+ */
+@DisplayName("Warm-up")
+class WarmUpTest {
+
+	@Test
+	@DisplayName("should exercise a throwaway server without failures.")
+	void shouldExerciseServer() {
+
+		// when
+		final Throwable thrown = catchThrowable(WarmUp::exercise);
+
+		then(thrown).isNull();
+	}
+}
@@ -2,28 +2,68 @@ package com.github.jenspiegsa.wiremockextension;
 
 import static com.github.jenspiegsa.wiremockextension.ManagedWireMockServer.with;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.givenThat;
 import static com.github.tomakehurst.wiremock.client.WireMock.notFound;
 import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.googlecode.catchexception.CatchException.catchException;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.newSetFromMap;
+import static java.util.Collections.singletonMap;
 import static java.util.Collections.unmodifiableList;
+import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.BDDAssertions.then;
-import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
 import static org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder.request;
 
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.VerificationException;
+import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.jetty9.JettyHttpServerFactory;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.UUID;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.jboss.resteasy.client.jaxrs.engines.URLConnectionEngine;
+import org.jboss.resteasy.client.jaxrs.internal.ClientInvocation;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.RepeatedTest;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.extension.ExtensionConfigurationException;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolutionException;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
 import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.reporting.ReportEntry;
+import org.junit.platform.engine.discovery.DiscoverySelectors;
 import org.junit.platform.launcher.Launcher;
 import org.junit.platform.launcher.TestIdentifier;
 import org.junit.platform.launcher.core.LauncherFactory;
@@ -39,6 +79,13 @@ class WireMockExtensionTest {
 
 	private static final Logger log = Logger.getLogger(WireMockExtensionTest.class.getSimpleName());
 
+	private static final Set<WireMockServer> perClassServers = newSetFromMap(new IdentityHashMap<>());
+	private static final Set<WireMockServer> pooledServers = newSetFromMap(new IdentityHashMap<>());
+	private static final Set<WireMockServer> perClassInstanceServers = newSetFromMap(new IdentityHashMap<>());
+	private static final Map<Class<?>, Boolean> inheritedNestedServersRunning = new HashMap<>();
+	private static int occupiedPort;
+	private static int fixedPort;
+
 	@Nested
 	class DefaultConfiguration {
 
@@ -159,6 +206,38 @@ class WireMockExtensionTest {
 					.hasMessageContaining("Closest");
 		}
 
+		@Test
+		@DisplayName("should compute near misses lazily from the stub mappings at the end of the test.")
+		void shouldComputeNearMissesLazily() {
+
+			// when
+			final TestResults results = launchTests(LazyNearMissesTestCase.class);
+
+			then(results.getSummary().getTestsFailedCount())
+					.describedAs("test execution expected to fail")
+					.isEqualTo(1L);
+			then(results.getThrowables()).hasSize(1);
+			then(results.getThrowables().get(0))
+					.isInstanceOf(UnmatchedRequestsException.class)
+					.hasMessageContaining("Closest");
+		}
+
+		@Test
+		@DisplayName("should score no more unmatched requests than configured.")
+		void shouldLimitNearMissRequests() {
+
+			// when
+			final TestResults results = launchTests(
+					singletonMap(UnmatchedRequestsException.MAX_NEAR_MISS_REQUESTS_PROPERTY_NAME, "0"),
+					FailOnNearMissedRequestsTestCase.class);
+
+			then(results.getThrowables()).hasSize(1);
+			then(results.getThrowables().get(0))
+					.isInstanceOf(VerificationException.class)
+					.hasMessageContaining("not scored");
+			then(results.getThrowables().get(0).getMessage()).doesNotContain("Closest");
+		}
+
 		@Test
 		@DisplayName("should tolerate unmatched request when failOnUnmatchedRequest is false.")
 		void shouldTolerateUnmatchedRequestIfConfiguredSo() {
@@ -174,13 +253,6 @@ class WireMockExtensionTest {
 					.isEqualTo(0L);
 			then(results.getThrowables()).isEmpty();
 		}
-
-		private TestResults launchTests(final Class<?> testClass) {
-			final Launcher launcher = LauncherFactory.create();
-			final TestResults results = new TestResults();
-			launcher.execute(request().selectors(selectClass(testClass)).build(), results);
-			return results;
-		}
 	}
 
 	@Nested
@@ -203,91 +275,1268 @@ class WireMockExtensionTest {
 		}
 	}
 
-	static class InvalidMultipleOptionsTestCase extends TestBase {
-		@ConfigureWireMock Options o1 = wireMockConfig().dynamicPort();
-		@ConfigureWireMock Options o2 = wireMockConfig().dynamicPort();
+	@Nested
+	@DisplayName("Journal modes")
+	class JournalModes {
+
+		@Nested
+		@WireMockSettings(failOnUnmatchedRequests = false, journal = JournalMode.BOUNDED, maxJournalEntries = 2)
+		class BoundedJournal {
+
+			@InjectServer WireMockServer serverMock;
+			@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+			@Test
+			@DisplayName("should retain most recent requests only.")
+			void shouldRetainMostRecentRequestsOnly() {
+				serverMock.stubFor(get("/").willReturn(ok()));
+				for (int i = 0; i < 3; i++) {
+					new SampleClient(serverMock.url("/")).isOk();
+				}
+				then(serverMock.getAllServeEvents()).hasSize(2);
+			}
+		}
+
+		@Test
+		@DisplayName("should report unmatched requests evicted from a bounded journal.")
+		void shouldReportUnmatchedRequestsOfBoundedJournal() {
+
+			// when
+			final TestResults results = launchTests(BoundedJournalTestCase.class);
+
+			then(results.getThrowables()).hasSize(1);
+			then(results.getThrowables().get(0))
+					.isInstanceOf(VerificationException.class)
+					.hasMessageContaining("unmatched");
+		}
+
+		@Test
+		@DisplayName("should report unmatched requests without journal.")
+		void shouldReportUnmatchedRequestsWithoutJournal() {
+
+			// when
+			final TestResults results = launchTests(CountersOnlyTestCase.class);
+
+			then(results.getThrowables()).hasSize(1);
+			then(results.getThrowables().get(0))
+					.isInstanceOf(VerificationException.class)
+					.hasMessageContaining("unmatched");
+		}
+
+		@Test
+		@DisplayName("should not report unmatched requests reset by the test.")
+		void shouldNotReportResetUnmatchedRequests() {
+
+			// when
+			final TestResults results = launchTests(emptyMap(), ResetBoundedJournalTestCase.class, ResetCountersOnlyTestCase.class);
+
+			then(results.getThrowables()).isEmpty();
+			then(results.getSummary().getTestsSucceededCount()).isEqualTo(4);
+		}
 	}
 
-	@WireMockSettings(failOnUnmatchedRequests = true)
-	static class FailOnUnmatchedRequestsTestCase extends TestBase {
+	@Nested
+	@DisplayName("Metrics")
+	@WireMockSettings(failOnUnmatchedRequests = false, metrics = true)
+	class Metrics {
 
-		@InjectServer WireMockServer server;
+		@InjectServer WireMockServer serverMock;
 		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
 
 		@Test
-		@SuppressWarnings("JUnitTestMethodWithNoAssertions")
-		void shouldFailWhenUnmatchedRequestOccurs() {
-			new SampleClient("http://localhost:" + server.port() + "/").isOk();
+		@DisplayName("should record served requests.")
+		void shouldRecordServedRequests() throws InterruptedException {
+
+			// given
+			final StubMapping stubMapping = serverMock.stubFor(get("/a").willReturn(ok("body")));
+			final ServerMetrics metrics = ((ManagedWireMockServer) serverMock).getMetrics().get();
+
+			// when
+			for (int i = 0; i < 3; i++) {
+				new SampleClient(serverMock.url("/a")).isOk();
+			}
+			new SampleClient(serverMock.url("/b")).isOk();
+
+			// then
+			final MetricsSnapshot snapshot = awaitRequests(metrics, 4);
+			then(snapshot.getUnmatchedRequests()).isEqualTo(1L);
+			then(snapshot.getStubHits()).containsEntry(stubMapping.getId(), 3L);
+			then(snapshot.getBytesSent()).isGreaterThanOrEqualTo(3L * "body".length());
+			then(snapshot.getLatencyAtPercentile(50)).isLessThanOrEqualTo(snapshot.getMaxLatency());
+		}
+
+		@Test
+		@DisplayName("should record metrics only if enabled.")
+		void shouldRecordMetricsIfEnabled() {
+
+			// given
+			final Options metricsOptions = ServerMetrics.applyTo(wireMockConfig());
+
+			then(new ManagedWireMockServer(wireMockConfig()).getMetrics()).isEmpty();
+			then(new ManagedWireMockServer(metricsOptions).getMetrics()).isPresent();
+			then(ServerMetrics.applyTo(metricsOptions)).isSameAs(metricsOptions);
+		}
+
+		@Test
+		@DisplayName("should publish metrics as report entry if configured so.")
+		void shouldPublishMetrics() {
+
+			// when
+			final TestResults results = launchTests(PublishMetricsTestCase.class);
+
+			then(results.getReportEntries()).hasSize(1);
+			then(results.getReportEntries().get(0).getKeyValuePairs().values())
+					.anySatisfy(value -> assertThat(value).contains("requests="));
+		}
+
+		private MetricsSnapshot awaitRequests(final ServerMetrics metrics, final long requests) throws InterruptedException {
+			// metrics are recorded after the response was sent
+			MetricsSnapshot snapshot = metrics.snapshot();
+			for (int i = 0; i < 100 && snapshot.getRequests() < requests; i++) {
+				Thread.sleep(10);
+				snapshot = metrics.snapshot();
+			}
+			then(snapshot.getRequests()).isEqualTo(requests);
+			return snapshot;
 		}
 	}
 
-	@WireMockSettings(failOnUnmatchedRequests = true)
-	static class FailOnNearMissedRequestsTestCase extends TestBase {
+	@Nested
+	@DisplayName("Parallel start-up")
+	class ParallelStartup {
 
-		@InjectServer WireMockServer server;
+		@Test
+		@DisplayName("should aggregate start-up failures of multiple servers.")
+		void shouldAggregateStartupFailures() throws IOException {
+
+			// given
+			try (ServerSocket socket = new ServerSocket(0)) {
+				occupiedPort = socket.getLocalPort();
+
+				// when
+				final TestResults results = launchTests(OccupiedPortsTestCase.class);
+
+				// then
+				then(results.getSummary().getTestsFailedCount()).isEqualTo(1L);
+				then(results.getThrowables()).hasSize(1);
+				then(results.getThrowables().get(0).getSuppressed()).hasSize(1);
+			}
+		}
+	}
+
+	@Nested
+	@DisplayName("Per class lifecycle")
+	@WireMockSettings(failOnUnmatchedRequests = false, lifecycle = ServerLifecycle.PER_CLASS)
+	class PerClassLifecycle {
+
+		@InjectServer WireMockServer serverMock;
 		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
 
 		@Test
-		@SuppressWarnings("JUnitTestMethodWithNoAssertions")
-		void shouldFailWhenNearMissedRequestOccurs() {
-			givenThat(get("/a").willReturn(ok()));
-			new SampleClient("http://localhost:" + server.port() + "/").isOk();
+		@DisplayName("should reuse running server.")
+		void shouldReuseRunningServer() {
+			assertThat(serverMock.isRunning()).describedAs("server expected to be running.").isTrue();
+			perClassServers.add(serverMock);
+			assertThat(perClassServers).hasSize(1);
+		}
+
+		@Test
+		@DisplayName("should reset stubs between tests.")
+		void shouldResetStubsBetweenTests() {
+			perClassServers.add(serverMock);
+			assertThat(perClassServers).hasSize(1);
+			assertThat(serverMock.getStubMappings()).isEmpty();
+			serverMock.stubFor(get("/").willReturn(ok()));
+			then(new SampleClient("http://localhost:" + serverMock.port() + "/").isOk()).isTrue();
+		}
+
+		@Test
+		@DisplayName("should reset requests between tests.")
+		void shouldResetRequestsBetweenTests() {
+			assertThat(serverMock.getAllServeEvents()).isEmpty();
+			new SampleClient("http://localhost:" + serverMock.port() + "/").isOk();
+		}
+
+		@Test
+		@DisplayName("should raise VerificationException per test.")
+		void shouldRaiseExceptionPerTest() {
+
+			// given
+			final Class<?> testClass = FailOnUnmatchedRequestsPerClassTestCase.class;
+
+			// when
+			final TestResults results = launchTests(testClass);
+
+			then(results.getSummary().getTestsFailedCount())
+					.describedAs("only the test with an unmatched request is expected to fail")
+					.isEqualTo(1L);
+			then(results.getThrowables()).hasSize(1);
+			then(results.getThrowables().get(0))
+					.isInstanceOf(VerificationException.class)
+					.hasMessageContaining("unmatched");
 		}
 	}
 
-	@WireMockSettings(failOnUnmatchedRequests = false)
-	static class TolerateUnmatchedRequestsTestCase extends TestBase {
+	@Nested
+	@DisplayName("Pooled lifecycle")
+	class PooledLifecycle {
 
-		@InjectServer WireMockServer server;
+		@Test
+		@DisplayName("should share server between test classes.")
+		void shouldShareServerBetweenTestClasses() {
+
+			// given
+			pooledServers.clear();
+
+			// when
+			final TestResults results = launchTests(emptyMap(), PooledTestCase.class, OtherPooledTestCase.class);
+
+			then(results.getSummary().getTestsSucceededCount()).isEqualTo(2L);
+			then(pooledServers).hasSize(1);
+			then(pooledServers).noneMatch(WireMockServer::isRunning);
+		}
+
+		@Test
+		@DisplayName("should stop idle servers exceeding the maximum pool size.")
+		void shouldStopIdleServersExceedingMaximumPoolSize() {
+
+			// given
+			pooledServers.clear();
+
+			// when
+			final TestResults results = launchTests(singletonMap(ServerPool.MAX_IDLE_SERVERS_PROPERTY_NAME, "0"),
+					PooledTestCase.class, OtherPooledTestCase.class);
+
+			then(results.getSummary().getTestsSucceededCount()).isEqualTo(2L);
+			then(pooledServers).hasSize(2);
+		}
+
+		@Test
+		@DisplayName("should keep servers on fixed ports per class.")
+		void shouldKeepServersOnFixedPortsPerClass() throws IOException {
+
+			// given
+			pooledServers.clear();
+			try (ServerSocket socket = new ServerSocket(0)) {
+				fixedPort = socket.getLocalPort();
+			}
+
+			// when
+			final TestResults results = launchTests(emptyMap(), FixedPortPooledTestCase.class, OtherFixedPortPooledTestCase.class);
+
+			then(results.getSummary().getTestsSucceededCount()).isEqualTo(2L);
+			then(pooledServers).hasSize(2);
+			then(results.getReportEntries())
+					.extracting(entry -> entry.getKeyValuePairs().get("wiremock.pool"))
+					.hasSize(2)
+					.allMatch(message -> message.contains("fixed ports"));
+		}
+	}
+
+	@Nested
+	@DisplayName("Test instance per class")
+	class TestInstancePerClass {
+
+		@Test
+		@DisplayName("should start the servers for each test and stop them afterwards.")
+		void shouldRestartServersForEachTest() {
+
+			// given
+			perClassInstanceServers.clear();
+
+			// when
+			final TestResults results = launchTests(PerClassInstanceTestCase.class);
+
+			then(results.getSummary().getTestsSucceededCount()).isEqualTo(5L);
+			then(perClassInstanceServers).hasSize(2);
+			then(perClassInstanceServers).noneMatch(WireMockServer::isRunning);
+		}
+	}
+
+	@Nested
+	@DisplayName("Inherited nested classes")
+	class InheritedNestedClasses {
+
+		@Test
+		@DisplayName("should apply the settings of each enclosing class.")
+		void shouldApplySettingsOfEachEnclosingClass() {
+
+			// given
+			inheritedNestedServersRunning.clear();
+
+			// when
+			final TestResults results = launchTests(emptyMap(), LazyInheritedNestedTestCase.class, EagerInheritedNestedTestCase.class);
+
+			then(results.getSummary().getTestsSucceededCount()).isEqualTo(2L);
+			then(inheritedNestedServersRunning)
+					.containsEntry(LazyInheritedNestedTestCase.class, false)
+					.containsEntry(EagerInheritedNestedTestCase.class, true);
+		}
+	}
+
+	@Nested
+	@DisplayName("Declarative stubs")
+	@WireMockStubs("classpath:/stubs/orders")
+	class DeclarativeStubs {
+
+		@InjectServer WireMockServer serverMock;
 		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
 
 		@Test
-		@SuppressWarnings("JUnitTestMethodWithNoAssertions")
-		void shouldIgnoreUnmatchedRequests() {
-			new SampleClient("http://localhost:" + server.port() + "/").isOk();
+		@DisplayName("should register stubs of all mapping files.")
+		void shouldRegisterStubsOfAllMappingFiles() {
+
+			then(serverMock.getStubMappings()).hasSize(3);
+			then(new SampleClient(serverMock.url("/orders/1")).isOk()).isTrue();
+			then(new SampleClient(serverMock.url("/orders/2")).isOk()).isFalse();
+		}
+
+		@Test
+		@WireMockStubs({"classpath:stubs/customers/get-customer.json", "classpath:/stubs/orders"})
+		@DisplayName("should add stubs declared by test method.")
+		void shouldAddStubsOfTestMethod() {
+
+			then(serverMock.getStubMappings()).hasSize(4);
+			then(new SampleClient(serverMock.url("/customers/1")).isOk()).isTrue();
+		}
+
+		@Test
+		@DisplayName("should raise ExtensionConfigurationException for missing stub mappings.")
+		void shouldRaiseExceptionForMissingStubMappings() {
+
+			// when
+			final TestResults results = launchTests(MissingStubsTestCase.class);
+
+			then(results.getThrowables()).isNotEmpty().allSatisfy(throwable -> assertThat(throwable)
+					.isInstanceOf(ExtensionConfigurationException.class)
+					.hasMessageContaining("classpath:/stubs/missing"));
 		}
 	}
 
 	@Nested
-	@DisplayName("Nested test classes")
-	class NestedTestClasses {
+	@DisplayName("Incremental reset")
+	class IncrementalReset {
 
-		@Managed WireMockServer serverMock = with(wireMockConfig().dynamicPort());
+		@Test
+		@DisplayName("should roll back reusable servers to the stubs of class-level setup.")
+		void shouldRollBackToClassLevelSetup() {
 
-		@Nested
-		@DisplayName("accessing parent field")
-		class AccessingParentField {
+			// when
+			final TestResults results = launchTests(IncrementalResetTestCase.class);
 
-			@Test
-			@DisplayName("should work.")
-			void shouldWork() {
-				serverMock.stubFor(get("/z").willReturn(ok()));
-				then(new SampleClient("http://localhost:" + serverMock.port() + "/z").isOk()).isTrue();
-			}
+			then(results.getThrowables()).isEmpty();
+			then(results.getSummary().getTestsSucceededCount()).isEqualTo(4L);
 		}
 	}
 
+	@Nested
+	@DisplayName("Indexed matching")
+	@WireMockSettings(failOnUnmatchedRequests = false, indexedMatching = true)
+	class IndexedMatching {
+
+		@InjectServer WireMockServer serverMock;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
 
-	@ExtendWith(WireMockExtension.class)
-	private static abstract class TestBase {
 		@Test
-		@SuppressWarnings("JUnitTestMethodWithNoAssertions")
-		void testNothing() {
+		@DisplayName("should index stubs of server created by extension.")
+		void shouldIndexStubs() {
+
+			// given
+			serverMock.stubFor(get("/").willReturn(ok()));
+
+			then(((ManagedWireMockServer) serverMock).isIndexedMatching()).isTrue();
+			then(new SampleClient(serverMock.url("/")).isOk()).isTrue();
 		}
 	}
 
-	private static class TestResults extends SummaryGeneratingListener {
+	@Nested
+	@DisplayName("Non-blocking delays")
+	@WireMockSettings(failOnUnmatchedRequests = false, nonBlockingDelays = true)
+	class NonBlockingDelayedResponses {
 
-		private final List<Throwable> throwables = new ArrayList<>();
+		@InjectServer WireMockServer serverMock;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
 
-		@Override
-		public void executionFinished(final TestIdentifier testIdentifier, final TestExecutionResult testExecutionResult) {
-			super.executionFinished(testIdentifier, testExecutionResult);
-			testExecutionResult.getThrowable().ifPresent(throwables::add);
+		@Test
+		@DisplayName("should serve delayed responses asynchronously.")
+		void shouldServeDelayedResponses() {
+
+			// given
+			serverMock.stubFor(get("/").willReturn(ok().withFixedDelay(50)));
+
+			then(serverMock.getOptions().getAsynchronousResponseSettings().isEnabled()).isTrue();
+			then(serverMock.getOptions().httpServerFactory()).isNotInstanceOf(JettyHttpServerFactory.class);
+			then(new SampleClient(serverMock.url("/")).isOk()).isTrue();
 		}
+	}
 
-		public List<Throwable> getThrowables() {
-			return unmodifiableList(throwables);
+	@Nested
+	@DisplayName("Shared thread pool")
+	@WireMockSettings(failOnUnmatchedRequests = false, nonBlockingDelays = true, sharedThreadPool = true)
+	class SharedThreads {
+
+		@InjectServer WireMockServer serverMock;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@Test
+		@DisplayName("should serve requests on the shared thread pool.")
+		void shouldServeRequestsOnSharedThreadPool() {
+
+			// given
+			serverMock.stubFor(get("/").willReturn(ok().withFixedDelay(50)));
+
+			then(serverMock.getOptions().threadPoolFactory().buildThreadPool(serverMock.getOptions()))
+					.isSameAs(SharedThreadPool.getInstance(SharedThreadPool.DEFAULT_MAX_THREADS));
+			then(new SampleClient(serverMock.url("/")).isOk()).isTrue();
+		}
+	}
+
+	@Nested
+	@DisplayName("Lazy start")
+	@WireMockSettings(failOnUnmatchedRequests = false, lazyStart = true)
+	class LazyStart {
+
+		@InjectServer WireMockServer serverMock;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+		@InjectClient WireMock client;
+
+		@Test
+		@DisplayName("should not start server that is not used.")
+		void shouldNotStartUnusedServer() {
+			then(serverMock.isRunning()).isFalse();
+		}
+
+		@Test
+		@DisplayName("should register stubs without starting server.")
+		void shouldRegisterStubsWithoutStarting() {
+
+			// when
+			client.register(get("/").willReturn(ok()));
+			givenThat(get("/static").willReturn(ok()));
+
+			then(serverMock.getStubMappings()).hasSize(2);
+			then(serverMock.isRunning()).isFalse();
+		}
+
+		@Test
+		@DisplayName("should start server when its url is requested.")
+		void shouldStartServerOnFirstUse() {
+
+			// given
+			serverMock.stubFor(get("/").willReturn(ok()));
+
+			// when
+			final boolean ok = new SampleClient(serverMock.url("/")).isOk();
+
+			then(serverMock.isRunning()).isTrue();
+			then(ok).isTrue();
+		}
+
+		@Test
+		@DisplayName("should start server for resolved base url.")
+		void shouldStartServerForBaseUrl(@WireMockBaseUrl final String baseUrl) {
+			then(serverMock.isRunning()).isTrue();
+			then(baseUrl).isEqualTo("http://localhost:" + serverMock.port());
+		}
+	}
+
+	@Nested
+	@DisplayName("In-process transport")
+	@WireMockSettings(lazyStart = true)
+	class InProcessRequests {
+
+		@InjectServer ManagedWireMockServer serverMock;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@Test
+		@DisplayName("should serve requests without starting server.")
+		void shouldServeRequestsWithoutStarting() {
+
+			// given
+			serverMock.stubFor(get("/").willReturn(ok()));
+			final InProcessTransport transport = serverMock.inProcess();
+			final SampleClient client = new SampleClient(InProcessTransport.BASE_URL + "/", new URLConnectionEngine() {
+				@Override
+				protected HttpURLConnection createConnection(final ClientInvocation request) throws IOException {
+					final HttpURLConnection connection = transport.openConnection(request.getUri().toURL());
+					connection.setRequestMethod(request.getMethod());
+					return connection;
+				}
+			});
+
+			// when
+			final boolean ok = client.isOk();
+			client.close();
+
+			// then
+			then(ok).isTrue();
+			then(serverMock.isRunning()).isFalse();
+			serverMock.verify(WireMock.getRequestedFor(WireMock.urlEqualTo("/")));
+		}
+	}
+
+	@Nested
+	@DisplayName("Context bound client")
+	@WireMockSettings(failOnUnmatchedRequests = false, configureStaticDsl = false)
+	class ContextBoundClient {
+
+		@InjectServer WireMockServer serverMock;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+		@InjectClient WireMock client;
+
+		@Test
+		@DisplayName("should inject client bound to server.")
+		void shouldInjectClientBoundToServer() {
+			client.register(get("/").willReturn(ok()));
+			then(serverMock.getStubMappings()).hasSize(1);
+		}
+
+		@Test
+		@StaticDsl
+		@DisplayName("should configure static DSL for tests annotated by @StaticDsl.")
+		void shouldConfigureStaticDslWhenAnnotated() {
+			givenThat(get("/").willReturn(ok()));
+			then(serverMock.getStubMappings()).hasSize(1);
+		}
+
+		@Test
+		@DisplayName("should not configure static DSL otherwise.")
+		void shouldNotConfigureStaticDslOtherwise() {
+
+			// when
+			final TestResults results = launchTests(StaticDslNotConfiguredTestCase.class);
+
+			then(results.getSummary().getTestsSucceededCount()).isEqualTo(1L);
+		}
+	}
+
+	@Nested
+	@DisplayName("Partitioned servers")
+	class PartitionedServers {
+
+		@Test
+		@DisplayName("should isolate stubs and requests of concurrent tests sharing a server.")
+		void shouldIsolateConcurrentTests() {
+
+			// when
+			final TestResults results = launchTests(singletonMap("junit.jupiter.execution.parallel.enabled", "true"),
+					PartitionedTestCase.class);
+
+			then(results.getSummary().getTestsSucceededCount()).isEqualTo(8L);
+			then(results.getSummary().getTestsFailedCount()).isEqualTo(1L);
+			then(results.getThrowables()).hasSize(1);
+			then(results.getThrowables().get(0)).isInstanceOf(VerificationException.class);
+		}
+
+		@Test
+		@DisplayName("should fail resolving partition of unpartitioned server.")
+		void shouldFailResolvingPartitionOfUnpartitionedServer() {
+
+			// when
+			final TestResults results = launchTests(UnpartitionedTestCase.class);
+
+			then(results.getSummary().getTestsFailedCount()).isEqualTo(1L);
+			then(results.getThrowables()).hasSize(1);
+			then(results.getThrowables().get(0)).isInstanceOf(ParameterResolutionException.class);
+		}
+	}
+
+	@Nested
+	@DisplayName("Remote mode")
+	class RemoteMode {
+
+		@Managed WireMockServer remoteServer = with(wireMockConfig().dynamicPort().extensions(new StubImportExtension()));
+
+		@Test
+		@DisplayName("should give each test a partition of the remote server.")
+		void shouldUsePartitionOfRemoteServer() {
+
+			// given
+			final Map<String, String> configurationParameters = new HashMap<>();
+			configurationParameters.put(RemoteAdmin.ENABLED_PROPERTY_NAME, "true");
+			configurationParameters.put(RemoteAdmin.URL_PROPERTY_NAME, remoteServer.baseUrl());
+
+			// when
+			final TestResults results = launchTests(configurationParameters, RemoteTestCase.class);
+
+			then(results.getSummary().getTestsSucceededCount()).isEqualTo(2L);
+			then(results.getSummary().getTestsFailedCount()).isEqualTo(1L);
+			then(results.getThrowables().get(0)).isInstanceOf(VerificationException.class);
+			then(remoteServer.getStubMappings()).isEmpty();
+			then(remoteServer.findAll(getRequestedFor(urlEqualTo("/orders/1")))).hasSize(1);
+		}
+	}
+
+	@Nested
+	@DisplayName("Flight recorder events")
+	class FlightRecorderEvents {
+
+		@Test
+		@DisplayName("should record lifecycle phases and served requests.")
+		void shouldRecordLifecycleAndRequests() throws IOException, InterruptedException {
+
+			// given
+			final TestResults results;
+			final List<RecordedEvent> events;
+			try (Recording recording = new Recording()) {
+				recording.enable("com.github.jenspiegsa.wiremockextension.Lifecycle");
+				recording.enable("com.github.jenspiegsa.wiremockextension.Request");
+				recording.start();
+
+				// when
+				results = launchTests(FlightRecorderTestCase.class);
+
+				events = readRequestEvents(recording);
+			}
+
+			then(results.getSummary().getTestsSucceededCount()).isEqualTo(2L);
+			final List<RecordedEvent> lifecycleEvents = events.stream()
+					.filter(event -> event.getEventType().getName().endsWith("Lifecycle"))
+					.filter(event -> event.getString("testId").contains(FlightRecorderTestCase.class.getSimpleName()))
+					.collect(toList());
+			then(lifecycleEvents).extracting(event -> event.getString("phase")).contains(
+					ExtensionEvents.POST_PROCESS_TEST_INSTANCE, ExtensionEvents.SERVER_START, ExtensionEvents.BEFORE_EACH,
+					ExtensionEvents.VERIFICATION, ExtensionEvents.AFTER_EACH);
+			then(lifecycleEvents).filteredOn(event -> ExtensionEvents.SERVER_START.equals(event.getString("phase")))
+					.allSatisfy(event -> assertThat(event.getInt("port")).isPositive());
+			then(events).filteredOn(event -> event.getEventType().getName().endsWith("Request"))
+					.anySatisfy(event -> {
+						assertThat(event.getString("url")).isEqualTo("/recorded");
+						assertThat(event.getString("stubId")).isEqualTo(FlightRecorderTestCase.STUB_ID.toString());
+						assertThat(event.getBoolean("matched")).isTrue();
+					});
+		}
+
+		@Test
+		@DisplayName("should record requests served by servers created by the test.")
+		void shouldRecordRequestsOfOwnServers() throws IOException, InterruptedException {
+
+			// given
+			final ManagedWireMockServer ownServer = with(wireMockConfig().dynamicPort());
+			ownServer.start();
+			final List<RecordedEvent> events;
+			try (Recording recording = new Recording()) {
+				recording.enable("com.github.jenspiegsa.wiremockextension.Request");
+				recording.start();
+				ownServer.stubFor(get("/own").willReturn(ok()));
+
+				// when
+				then(new SampleClient(ownServer.url("/own")).isOk()).isTrue();
+
+				events = readRequestEvents(recording);
+			} finally {
+				ownServer.stop();
+			}
+
+			then(events).filteredOn(event -> event.getEventType().getName().endsWith("Request"))
+					.anySatisfy(event -> assertThat(event.getString("url")).isEqualTo("/own"));
+		}
+
+		/**
+		 * Dumps the recording until it contains a request event, as requests are recorded after the response was sent.
+		 */
+		private List<RecordedEvent> readRequestEvents(final Recording recording) throws IOException, InterruptedException {
+			final Path file = Files.createTempFile("wiremock-extension", ".jfr");
+			try {
+				List<RecordedEvent> events = dump(recording, file);
+				for (int i = 0; i < 100 && events.stream().noneMatch(event -> event.getEventType().getName().endsWith("Request")); i++) {
+					Thread.sleep(10);
+					events = dump(recording, file);
+				}
+				return events;
+			} finally {
+				Files.delete(file);
+			}
+		}
+
+		private List<RecordedEvent> dump(final Recording recording, final Path file) throws IOException {
+			recording.dump(file);
+			return RecordingFile.readAllEvents(file);
+		}
+	}
+
+	@Nested
+	@DisplayName("Warm-up")
+	class WarmUpPhase {
+
+		@Test
+		@DisplayName("should warm up once before the first test class if enabled.")
+		void shouldWarmUpOnce() {
+
+			// when
+			final TestResults results = launchTests(singletonMap(WarmUp.ENABLED_PROPERTY_NAME, "true"), WarmUpTestCase.class);
+
+			then(results.getSummary().getTestsSucceededCount()).isEqualTo(1L);
+			then(WarmUp.find()).hasValueSatisfying(warmUp -> assertThat(warmUp.isDone()).isTrue());
+		}
+	}
+
+	@Nested
+	@DisplayName("Port allocation")
+	class PortAllocation {
+
+		@Test
+		@DisplayName("should allocate ports instead of the default port if enabled.")
+		void shouldAllocatePorts() throws IOException {
+
+			// given
+			final Path lockFile = Files.createTempFile("wiremock-extension-ports", ".lock");
+			final Map<String, String> configurationParameters = new HashMap<>();
+			configurationParameters.put(PortAllocator.ENABLED_PROPERTY_NAME, "true");
+			configurationParameters.put(PortAllocator.LOCK_FILE_PROPERTY_NAME, lockFile.toString());
+
+			// when
+			final TestResults results = launchTests(configurationParameters, PortAllocationTestCase.class);
+
+			Files.delete(lockFile);
+			then(results.getSummary().getTestsSucceededCount()).isEqualTo(1L);
+		}
+	}
+
+	@Nested
+	@DisplayName("File journal")
+	class FileJournal {
+
+		@Test
+		@DisplayName("should journal requests of created servers in a file per server.")
+		void shouldJournalRequestsInFile() throws IOException {
+
+			// given
+			final Path directory = Files.createTempDirectory("wiremock-journals");
+
+			// when
+			final TestResults results = launchTests(
+					singletonMap(FileRequestJournal.DIRECTORY_PROPERTY_NAME, directory.toString()), FileJournalTestCase.class);
+
+			then(results.getSummary().getTestsSucceededCount()).isEqualTo(1L);
+			final List<Path> files;
+			try (Stream<Path> list = Files.list(directory)) {
+				files = list.collect(toList());
+			}
+			then(files).hasSize(1);
+			then(files.get(0).getFileName().toString()).startsWith("FileJournalTestCase-").endsWith(".journal");
+			then(Files.size(files.get(0))).isPositive();
+			Files.delete(files.get(0));
+			Files.delete(directory);
+		}
+	}
+
+	@Nested
+	@DisplayName("Parameter resolution")
+	class ParameterResolution {
+
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		WireMockServer serverOfBeforeEach;
+
+		@BeforeEach
+		void setup(final WireMockServer server) {
+			serverOfBeforeEach = server;
+		}
+
+		@Test
+		@DisplayName("should resolve running server.")
+		void shouldResolveServer(final WireMockServer server) {
+			then(server).isSameAs(serverOfBeforeEach);
+			then(server.isRunning()).isTrue();
+			then(server.port()).isNotEqualTo(8080);
+		}
+
+		@Test
+		@DisplayName("should resolve client bound to server.")
+		void shouldResolveClient(final WireMock client, final WireMockServer server) {
+			client.register(get("/").willReturn(ok()));
+			then(server.getStubMappings()).hasSize(1);
+		}
+
+		@Test
+		@DisplayName("should resolve base url.")
+		void shouldResolveBaseUrl(@WireMockBaseUrl final String baseUrl, @WireMockBaseUrl final URI baseUri,
+		                          final WireMockServer server) {
+			then(baseUrl).isEqualTo("http://localhost:" + server.port());
+			then(baseUri).isEqualTo(URI.create(baseUrl));
+		}
+
+		@Test
+		@DisplayName("should leave parameters of constructors and @BeforeAll methods to other resolvers.")
+		void shouldLeaveOtherParameters() {
+
+			// when
+			final TestResults results = launchTests(OtherParameterResolverTestCase.class);
+
+			then(results.getThrowables()).isEmpty();
+			then(results.getSummary().getTestsSucceededCount()).isEqualTo(1L);
+		}
+	}
+
+	static class InvalidMultipleOptionsTestCase extends TestBase {
+		@ConfigureWireMock Options o1 = wireMockConfig().dynamicPort();
+		@ConfigureWireMock Options o2 = wireMockConfig().dynamicPort();
+	}
+
+	@WireMockSettings(failOnUnmatchedRequests = true)
+	static class FailOnUnmatchedRequestsTestCase extends TestBase {
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@Test
+		@SuppressWarnings("JUnitTestMethodWithNoAssertions")
+		void shouldFailWhenUnmatchedRequestOccurs() {
+			new SampleClient("http://localhost:" + server.port() + "/").isOk();
+		}
+	}
+
+	@WireMockSettings(failOnUnmatchedRequests = true)
+	static class FailOnNearMissedRequestsTestCase extends TestBase {
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@Test
+		@SuppressWarnings("JUnitTestMethodWithNoAssertions")
+		void shouldFailWhenNearMissedRequestOccurs() {
+			givenThat(get("/a").willReturn(ok()));
+			new SampleClient("http://localhost:" + server.port() + "/").isOk();
+		}
+	}
+
+	@WireMockSettings(failOnUnmatchedRequests = true, lazyNearMisses = true, lifecycle = ServerLifecycle.PER_CLASS)
+	static class LazyNearMissesTestCase extends FailOnNearMissedRequestsTestCase {
+	}
+
+	@WireMockSettings(failOnUnmatchedRequests = true, lifecycle = ServerLifecycle.PER_CLASS)
+	static class FailOnUnmatchedRequestsPerClassTestCase extends TestBase {
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@Test
+		@SuppressWarnings("JUnitTestMethodWithNoAssertions")
+		void shouldFailWhenUnmatchedRequestOccurs() {
+			new SampleClient("http://localhost:" + server.port() + "/").isOk();
+		}
+	}
+
+	@WireMockSettings(journal = JournalMode.BOUNDED, maxJournalEntries = 1)
+	static class BoundedJournalTestCase extends TestBase {
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@Test
+		@SuppressWarnings("JUnitTestMethodWithNoAssertions")
+		void shouldFailWhenEvictedUnmatchedRequestOccurred() {
+			server.stubFor(get("/a").willReturn(ok()));
+			new SampleClient(server.url("/")).isOk();
+			new SampleClient(server.url("/a")).isOk();
+		}
+	}
+
+	@WireMockSettings(journal = JournalMode.COUNTERS_ONLY)
+	static class CountersOnlyTestCase extends FailOnUnmatchedRequestsTestCase {
+	}
+
+	@WireMockSettings(failOnUnmatchedRequests = true, journal = JournalMode.BOUNDED, maxJournalEntries = 1)
+	static class ResetBoundedJournalTestCase extends TestBase {
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@Test
+		@SuppressWarnings("JUnitTestMethodWithNoAssertions")
+		void shouldPassWhenUnmatchedRequestWasReset() {
+			new SampleClient(server.url("/")).isOk();
+			server.resetRequests();
+		}
+	}
+
+	@WireMockSettings(journal = JournalMode.COUNTERS_ONLY)
+	static class ResetCountersOnlyTestCase extends ResetBoundedJournalTestCase {
+	}
+
+	@WireMockSettings(publishMetrics = true)
+	static class PublishMetricsTestCase extends TestBase {
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+	}
+
+	static class FlightRecorderTestCase extends TestBase {
+
+		static final UUID STUB_ID = UUID.randomUUID();
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@Test
+		void shouldServeStub() throws IOException {
+			server.stubFor(get("/recorded").withId(STUB_ID).willReturn(ok()));
+			assertThat(((HttpURLConnection) new URL(server.url("/recorded")).openConnection()).getResponseCode()).isEqualTo(200);
+		}
+	}
+
+	static class WarmUpTestCase extends TestBase {
+
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+	}
+
+	@ExtendWith(WireMockExtension.class)
+	static class PortAllocationTestCase {
+
+		@InjectServer WireMockServer server;
+
+		@Test
+		void shouldBindAllocatedPort() {
+			assertThat(server.port()).isBetween(PortAllocator.FIRST_PORT, PortAllocator.LAST_PORT);
+			assertThat(PortAllocator.isAllocated(server.port())).isTrue();
+		}
+	}
+
+	@WireMockSettings(journal = JournalMode.FILE)
+	static class FileJournalTestCase {
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@Test
+		void shouldVerifyAgainstFile() throws IOException {
+			server.stubFor(get("/").willReturn(ok()));
+			assertThat(((HttpURLConnection) new URL(server.baseUrl() + "/").openConnection()).getResponseCode()).isEqualTo(200);
+			server.verify(1, getRequestedFor(urlEqualTo("/")));
+			assertThat(((ManagedWireMockServer) server).getFileJournal()).hasValueSatisfying(journal -> assertThat(journal.size()).isEqualTo(1));
+		}
+	}
+
+	static class OccupiedPortsTestCase extends TestBase {
+
+		@Managed WireMockServer s1 = with(wireMockConfig().dynamicPort());
+		@Managed WireMockServer s2 = with(wireMockConfig().port(occupiedPort));
+		@Managed WireMockServer s3 = with(wireMockConfig().port(occupiedPort));
+	}
+
+	@WireMockSettings(lifecycle = ServerLifecycle.POOLED)
+	static class PooledTestCase {
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@Test
+		void shouldLeaseRunningServer() {
+			assertThat(server.isRunning()).describedAs("server expected to be running.").isTrue();
+			assertThat(server.getStubMappings()).isEmpty();
+			server.stubFor(get("/").willReturn(ok()));
+			pooledServers.add(server);
+		}
+	}
+
+	@WireMockSettings(lifecycle = ServerLifecycle.POOLED)
+	static class OtherPooledTestCase extends PooledTestCase {
+	}
+
+	@WireMockSettings(lifecycle = ServerLifecycle.POOLED)
+	static class FixedPortPooledTestCase {
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().port(fixedPort);
+
+		@Test
+		void shouldNotLeaseServer() {
+			assertThat(server.port()).isEqualTo(fixedPort);
+			pooledServers.add(server);
+		}
+	}
+
+	@WireMockSettings(lifecycle = ServerLifecycle.POOLED)
+	static class OtherFixedPortPooledTestCase extends FixedPortPooledTestCase {
+	}
+
+	@ExtendWith({WireMockExtension.class, ClassServerResolver.class})
+	static class OtherParameterResolverTestCase {
+
+		static WireMockServer serverOfBeforeAll;
+
+		final WireMockServer serverOfConstructor;
+
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		OtherParameterResolverTestCase(final WireMockServer server) {
+			serverOfConstructor = server;
+		}
+
+		@BeforeAll
+		static void setup(final WireMockServer server) {
+			serverOfBeforeAll = server;
+		}
+
+		@Test
+		void shouldResolveServerOfExtension(final WireMockServer server) {
+			assertThat(serverOfBeforeAll).isSameAs(ClassServerResolver.SERVER);
+			assertThat(serverOfConstructor).isSameAs(ClassServerResolver.SERVER);
+			assertThat(server).isNotSameAs(ClassServerResolver.SERVER);
+		}
+	}
+
+	/**
+	 * Resolves servers for parameters of constructors and {@code @BeforeAll} methods.
+	 */
+	static class ClassServerResolver implements ParameterResolver {
+
+		static final WireMockServer SERVER = new WireMockServer(wireMockConfig().dynamicPort());
+
+		@Override
+		public boolean supportsParameter(final ParameterContext parameterContext, final ExtensionContext extensionContext) {
+			return parameterContext.getParameter().getType() == WireMockServer.class
+					&& !extensionContext.getTestMethod().isPresent();
+		}
+
+		@Override
+		public Object resolveParameter(final ParameterContext parameterContext, final ExtensionContext extensionContext) {
+			return SERVER;
+		}
+	}
+
+	@WireMockSettings(configureStaticDsl = false)
+	static class StaticDslNotConfiguredTestCase {
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@BeforeAll
+		static void configureUnreachableStaticDsl() {
+			WireMock.configureFor("localhost", 1);
+		}
+
+		@Test
+		void shouldLeaveStaticDslUntouched() {
+			catchException(() -> givenThat(get("/").willReturn(ok())));
+			assertThat(server.getStubMappings()).isEmpty();
+		}
+	}
+
+	@WireMockSettings(lifecycle = ServerLifecycle.PER_CLASS, partitioned = true, configureStaticDsl = false)
+	@Execution(ExecutionMode.CONCURRENT)
+	static class PartitionedTestCase extends TestBase {
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@RepeatedTest(7)
+		void shouldOnlySeeStubsAndRequestsOfPartition(final WireMock client, final Partition partition) throws IOException {
+
+			client.register(get("/partitioned").willReturn(ok(partition.getId())));
+
+			assertThat(requestPartitioned(server.url("/partitioned"), partition)).isEqualTo(partition.getId());
+			assertThat(client.allStubMappings().getMappings()).hasSize(1);
+			client.verifyThat(1, getRequestedFor(urlEqualTo("/partitioned")));
+		}
+
+		@Test
+		void shouldFailOnUnmatchedRequestOfPartition(final Partition partition) throws IOException {
+			requestPartitioned(server.url("/unknown"), partition);
+		}
+
+		private static String requestPartitioned(final String url, final Partition partition) throws IOException {
+			final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+			connection.setRequestProperty(Partition.HEADER, partition.getId());
+			if (connection.getResponseCode() != 200) {
+				return null;
+			}
+			try (Scanner body = new Scanner(connection.getInputStream(), "UTF-8")) {
+				return body.useDelimiter("\\A").next();
+			}
+		}
+	}
+
+	static class UnpartitionedTestCase extends TestBase {
+
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@Test
+		@SuppressWarnings("JUnitTestMethodWithNoAssertions")
+		void shouldNotResolvePartition(final Partition partition) {
+		}
+	}
+
+	@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+	@ExtendWith(WireMockExtension.class)
+	static class PerClassInstanceTestCase {
+
+		@Managed WireMockServer managedServer = with(wireMockConfig().dynamicPort());
+		@Managed WireMockServer otherServer = with(wireMockConfig().dynamicPort());
+
+		@RepeatedTest(5)
+		void shouldServeEachRepetition() {
+			assertThat(managedServer.isRunning()).describedAs("server expected to be running.").isTrue();
+			assertThat(otherServer.isRunning()).describedAs("server expected to be running.").isTrue();
+			managedServer.stubFor(get("/").willReturn(ok()));
+			assertThat(new SampleClient(managedServer.url("/")).isOk()).isTrue();
+			perClassInstanceServers.add(managedServer);
+			perClassInstanceServers.add(otherServer);
+		}
+	}
+
+	abstract static class InheritedNestedTestCase {
+
+		@Nested
+		class Inner {
+
+			@InjectServer WireMockServer server;
+			@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+			@Test
+			void shouldRecordServerState() {
+				inheritedNestedServersRunning.put(InheritedNestedTestCase.this.getClass(), server.isRunning());
+			}
+		}
+	}
+
+	@ExtendWith(WireMockExtension.class)
+	@WireMockSettings(lazyStart = true)
+	static class LazyInheritedNestedTestCase extends InheritedNestedTestCase {
+	}
+
+	@ExtendWith(WireMockExtension.class)
+	static class EagerInheritedNestedTestCase extends InheritedNestedTestCase {
+	}
+
+	@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+	@ExtendWith(WireMockExtension.class)
+	@WireMockSettings(lifecycle = ServerLifecycle.PER_CLASS, failOnUnmatchedRequests = false)
+	@WireMockStubs("classpath:/stubs/orders")
+	static class IncrementalResetTestCase {
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@BeforeAll
+		void registerBaselineStub() {
+			server.stubFor(get("/baseline").willReturn(ok()));
+		}
+
+		@RepeatedTest(3)
+		void shouldStartFromBaseline() {
+			assertThat(server.getStubMappings()).hasSize(4);
+			assertThat(server.getAllServeEvents()).isEmpty();
+			assertThat(new SampleClient(server.url("/baseline")).isOk()).isTrue();
+			server.getStubMappings().stream()
+					.filter(stubMapping -> "/baseline".equals(stubMapping.getRequest().getUrl()))
+					.forEach(server::removeStub);
+			server.stubFor(get("/added").willReturn(ok()));
+		}
+
+		@Test
+		void shouldRestoreBaselineAfterResetAll() {
+			assertThat(server.getStubMappings()).hasSize(4);
+			server.resetAll();
+		}
+	}
+
+	@WireMockStubs("classpath:/stubs/orders")
+	static class RemoteTestCase extends TestBase {
+
+		@InjectClient WireMock client;
+
+		@Test
+		void shouldServeStubsOfPartition(@WireMockBaseUrl final String baseUrl, final Partition partition) throws IOException {
+			assertThat(requestPartitioned(baseUrl + "/orders/1", partition)).isEqualTo(200);
+			assertThat(client.allStubMappings().getMappings()).hasSize(3);
+			client.verifyThat(1, getRequestedFor(urlEqualTo("/orders/1")));
+		}
+
+		@Test
+		void shouldFailOnUnmatchedRequest(@WireMockBaseUrl final String baseUrl, final Partition partition) throws IOException {
+			assertThat(requestPartitioned(baseUrl + "/unknown", partition)).isEqualTo(404);
+		}
+
+		private static int requestPartitioned(final String url, final Partition partition) throws IOException {
+			final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+			connection.setRequestProperty(Partition.HEADER, partition.getId());
+			return connection.getResponseCode();
+		}
+	}
+
+	@WireMockStubs("classpath:/stubs/missing")
+	static class MissingStubsTestCase extends TestBase {
+	}
+
+	@WireMockSettings(failOnUnmatchedRequests = false)
+	static class TolerateUnmatchedRequestsTestCase extends TestBase {
+
+		@InjectServer WireMockServer server;
+		@ConfigureWireMock Options options = wireMockConfig().dynamicPort();
+
+		@Test
+		@SuppressWarnings("JUnitTestMethodWithNoAssertions")
+		void shouldIgnoreUnmatchedRequests() {
+			new SampleClient("http://localhost:" + server.port() + "/").isOk();
+		}
+	}
+
+	@Nested
+	@DisplayName("Nested test classes")
+	class NestedTestClasses {
+
+		@Managed WireMockServer serverMock = with(wireMockConfig().dynamicPort());
+
+		@Nested
+		@DisplayName("accessing parent field")
+		class AccessingParentField {
+
+			@Test
+			@DisplayName("should work.")
+			void shouldWork() {
+				serverMock.stubFor(get("/z").willReturn(ok()));
+				then(new SampleClient("http://localhost:" + serverMock.port() + "/z").isOk()).isTrue();
+			}
+		}
+	}
+
+
+	@ExtendWith(WireMockExtension.class)
+	private static abstract class TestBase {
+		@Test
+		@SuppressWarnings("JUnitTestMethodWithNoAssertions")
+		void testNothing() {
+		}
+	}
+
+	private static TestResults launchTests(final Class<?> testClass) {
+		return launchTests(emptyMap(), testClass);
+	}
+
+	private static TestResults launchTests(final Map<String, String> configurationParameters, final Class<?>... testClasses) {
+		final Launcher launcher = LauncherFactory.create();
+		final TestResults results = new TestResults();
+		launcher.execute(request()
+				.selectors(Stream.of(testClasses).map(DiscoverySelectors::selectClass).collect(toList()))
+				.configurationParameters(configurationParameters)
+				.build(), results);
+		return results;
+	}
+
+	private static class TestResults extends SummaryGeneratingListener {
+
+		private final List<Throwable> throwables = new ArrayList<>();
+		private final List<ReportEntry> reportEntries = new ArrayList<>();
+
+		@Override
+		public void executionFinished(final TestIdentifier testIdentifier, final TestExecutionResult testExecutionResult) {
+			super.executionFinished(testIdentifier, testExecutionResult);
+			testExecutionResult.getThrowable().ifPresent(throwables::add);
+		}
+
+		@Override
+		public void reportingEntryPublished(final TestIdentifier testIdentifier, final ReportEntry entry) {
+			reportEntries.add(entry);
+		}
+
+		public List<Throwable> getThrowables() {
+			return unmodifiableList(throwables);
+		}
+
+		public List<ReportEntry> getReportEntries() {
+			return unmodifiableList(reportEntries);
 		}
 	}
 }